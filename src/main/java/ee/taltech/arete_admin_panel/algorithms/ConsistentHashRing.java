@@ -0,0 +1,39 @@
+package ee.taltech.arete_admin_panel.algorithms;
+
+import java.util.*;
+
+/**
+ * Maps keys to nodes by consistent hashing. Every node is placed on the ring at several points and a key belongs to
+ * the first point at or after its hash, so adding or removing a node only moves the keys of its own arcs.
+ * Immutable, a membership change builds a new ring.
+ */
+public class ConsistentHashRing {
+
+    private final TreeMap<Long, String> points = new TreeMap<>();
+    private final Set<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.nodes = Collections.unmodifiableSet(new TreeSet<>(nodes));
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // on the unlikely collision of two points the smaller node id wins on every node alike
+                points.putIfAbsent(DistinctCounter.hash(node + '#' + i), node);
+            }
+        }
+    }
+
+    /**
+     * The node owning the key, empty only if the ring has no nodes.
+     */
+    public Optional<String> owner(String key) {
+        if (points.isEmpty()) {
+            return Optional.empty();
+        }
+        Map.Entry<Long, String> point = points.ceilingEntry(DistinctCounter.hash(key == null ? "" : key));
+        return Optional.of((point == null ? points.firstEntry() : point).getValue());
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+}
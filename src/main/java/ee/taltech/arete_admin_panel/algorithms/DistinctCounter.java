@@ -0,0 +1,206 @@
+package ee.taltech.arete_admin_panel.algorithms;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Counts distinct strings exactly until a threshold and then switches to a HyperLogLog sketch of
+ * {@code 2^precision} one byte registers. The standard error of the sketch is about {@code 1.04 / sqrt(2^precision)}.
+ * Sketches of the same precision can be merged. Thread safe.
+ */
+public class DistinctCounter {
+
+    public static final int EXACT_ONLY = Integer.MAX_VALUE;
+
+    private final int threshold;
+    private final int precision;
+
+    private Set<String> values = new HashSet<>();
+    private byte[] registers;
+
+    public DistinctCounter() {
+        this(EXACT_ONLY, 12);
+    }
+
+    /**
+     * @param threshold distinct values kept exactly before switching to the sketch, {@link #EXACT_ONLY} never switches
+     * @param precision number of index bits of the sketch, between 4 and 16
+     */
+    public DistinctCounter(int threshold, int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("Precision must be between 4 and 16: " + precision);
+        }
+        this.threshold = threshold;
+        this.precision = precision;
+    }
+
+    /**
+     * @return whether the count may have changed
+     */
+    public synchronized boolean add(String value) {
+        if (registers != null) {
+            return offer(hash(value));
+        }
+
+        boolean added = values.add(value);
+        if (added && values.size() > threshold) {
+            toSketch();
+        }
+        return added;
+    }
+
+    public synchronized long count() {
+        if (registers == null) {
+            return values.size();
+        }
+
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // linear counting is more accurate while many registers are empty
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public synchronized boolean isExact() {
+        return registers == null;
+    }
+
+    /**
+     * Adds all values counted by the other counter. Merging a sketch turns this counter into a sketch.
+     */
+    public void merge(DistinctCounter other) {
+        Set<String> otherValues;
+        byte[] otherRegisters;
+        synchronized (other) {
+            otherValues = other.values == null ? null : new HashSet<>(other.values);
+            otherRegisters = other.registers == null ? null : other.registers.clone();
+        }
+
+        synchronized (this) {
+            if (otherRegisters == null) {
+                otherValues.forEach(this::add);
+                return;
+            }
+            if (otherRegisters.length != 1 << precision) {
+                throw new IllegalArgumentException("Cannot merge sketches of different precision");
+            }
+            if (registers == null) {
+                toSketch();
+            }
+            for (int i = 0; i < registers.length; i++) {
+                registers[i] = (byte) Math.max(registers[i], otherRegisters[i]);
+            }
+        }
+    }
+
+    /**
+     * Whether the counters have the same threshold and precision, only then can they be merged.
+     */
+    public boolean isConfiguredLike(DistinctCounter other) {
+        return threshold == other.threshold && precision == other.precision;
+    }
+
+    /**
+     * An empty counter with the same threshold and precision.
+     */
+    public DistinctCounter emptyCopy() {
+        return new DistinctCounter(threshold, precision);
+    }
+
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeInt(threshold);
+        out.writeByte(precision);
+        out.writeBoolean(registers == null);
+        if (registers == null) {
+            out.writeInt(values.size());
+            for (String value : values) {
+                out.writeUTF(value);
+            }
+        } else {
+            out.write(registers);
+        }
+    }
+
+    public static DistinctCounter readFrom(DataInput in) throws IOException {
+        DistinctCounter counter = new DistinctCounter(in.readInt(), in.readByte());
+        if (in.readBoolean()) {
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                counter.values.add(in.readUTF());
+            }
+        } else {
+            counter.registers = new byte[1 << counter.precision];
+            in.readFully(counter.registers);
+            counter.values = null;
+        }
+        return counter;
+    }
+
+    private void toSketch() {
+        registers = new byte[1 << precision];
+        for (String value : values) {
+            offer(hash(value));
+        }
+        values = null;
+    }
+
+    private boolean offer(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // leading zeros of the remaining bits, a sentinel bit bounds the rank
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+            return true;
+        }
+        return false;
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    static long hash(String value) {
+        // FNV-1a over the UTF-8 bytes followed by the murmur3 finalizer to spread the bits
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "DistinctCounter(count=" + count() + ", exact=" + isExact() + ")";
+    }
+}
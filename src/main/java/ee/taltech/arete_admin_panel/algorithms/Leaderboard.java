@@ -0,0 +1,171 @@
+package ee.taltech.arete_admin_panel.algorithms;
+
+import java.util.*;
+
+/**
+ * The best students of a course or slug per {@link Metric}, at most {@link #CAPACITY} each.
+ * <p>
+ * Only the boards are kept, the {@link Scores} of every member live on the student, whose worker passes the member's
+ * new totals with every submission. Totals never decrease, so a student outside a board can only enter it by beating
+ * the lowest score, and evicting that score loses nothing, which keeps the bounded boards exact while using memory
+ * independent of the number of members. A student already on a board is updated in place. Thread safe.
+ */
+public class Leaderboard {
+
+    public static final int CAPACITY = 100;
+
+    public enum Metric {
+        TESTS_PASSED,
+        DIAGNOSTIC_ERRORS,
+        COMMITS
+    }
+
+    private final Map<Metric, TopK> boards = new EnumMap<>(Metric.class);
+
+    public Leaderboard() {
+        for (Metric metric : Metric.values()) {
+            boards.put(metric, new TopK());
+        }
+    }
+
+    /**
+     * Ranks the member by its new totals in this course or slug.
+     */
+    public synchronized void update(String uniid, Scores scores) {
+        for (Metric metric : Metric.values()) {
+            boards.get(metric).update(uniid, scores.get(metric));
+        }
+    }
+
+    /**
+     * Ranks the member by its total of one metric, for loading persisted boards.
+     */
+    public synchronized void offer(Metric metric, String uniid, long score) {
+        boards.get(metric).update(uniid, score);
+    }
+
+    /**
+     * The best students of the metric, highest score first.
+     */
+    public synchronized List<Entry> top(Metric metric, int limit) {
+        return boards.get(metric).top(limit);
+    }
+
+    /**
+     * What a student submitted to one course or slug.
+     */
+    public static class Scores {
+
+        public static final Scores ZERO = new Scores(0, 0, 0);
+
+        private final long testsPassed;
+        private final long diagnosticErrors;
+        private final long commits;
+
+        public Scores(long testsPassed, long diagnosticErrors, long commits) {
+            this.testsPassed = testsPassed;
+            this.diagnosticErrors = diagnosticErrors;
+            this.commits = commits;
+        }
+
+        public long get(Metric metric) {
+            switch (metric) {
+                case TESTS_PASSED:
+                    return testsPassed;
+                case DIAGNOSTIC_ERRORS:
+                    return diagnosticErrors;
+                default:
+                    return commits;
+            }
+        }
+
+        public Scores plus(Scores other) {
+            return new Scores(testsPassed + other.testsPassed, diagnosticErrors + other.diagnosticErrors, commits + other.commits);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Scores)) {
+                return false;
+            }
+            Scores other = (Scores) o;
+            return testsPassed == other.testsPassed && diagnosticErrors == other.diagnosticErrors && commits == other.commits;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(testsPassed, diagnosticErrors, commits);
+        }
+    }
+
+    public static class Entry implements Comparable<Entry> {
+
+        private final String uniid;
+        private final long score;
+
+        public Entry(String uniid, long score) {
+            this.uniid = uniid;
+            this.score = score;
+        }
+
+        public String getUniid() {
+            return uniid;
+        }
+
+        public long getScore() {
+            return score;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byScore = Long.compare(other.score, score);
+            return byScore != 0 ? byScore : uniid.compareTo(other.uniid);
+        }
+    }
+
+    private static class TopK {
+
+        private final TreeSet<Entry> ordered = new TreeSet<>();
+        private final Map<String, Entry> byUniid = new HashMap<>();
+
+        void update(String uniid, long score) {
+            Entry current = byUniid.get(uniid);
+            if (current != null) {
+                if (current.score != score) {
+                    ordered.remove(current);
+                    add(new Entry(uniid, score));
+                }
+                return;
+            }
+
+            if (ordered.size() >= CAPACITY) {
+                Entry lowest = ordered.last();
+                if (score <= lowest.score) {
+                    return;
+                }
+                ordered.pollLast();
+                byUniid.remove(lowest.uniid);
+            }
+            add(new Entry(uniid, score));
+        }
+
+        private void add(Entry entry) {
+            ordered.add(entry);
+            byUniid.put(entry.uniid, entry);
+        }
+
+        List<Entry> top(int limit) {
+            List<Entry> top = new ArrayList<>(Math.min(limit, ordered.size()));
+            for (Entry entry : ordered) {
+                if (top.size() >= limit) {
+                    break;
+                }
+                top.add(entry);
+            }
+            return top;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ee.taltech.arete_admin_panel.algorithms;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Submission counts of the last 24 hours in a ring of one minute buckets.
+ * <p>
+ * Every bucket remembers the minute it counts. Adding to a slot that still holds an older minute swaps in a fresh
+ * bucket with a compare and set, so nothing has to expire buckets and increments never lock. Reads only sum the
+ * buckets whose minute is inside the asked window.
+ */
+public class RollingWindow {
+
+    public static final long BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    public static final int BUCKETS = 24 * 60;
+
+    private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(BUCKETS);
+
+    public void add(long timestamp, int testsRan, int testsPassed) {
+        long minute = timestamp / BUCKET_MILLIS;
+        int slot = (int) Math.floorMod(minute, (long) BUCKETS);
+
+        Bucket bucket = buckets.get(slot);
+        while (bucket == null || bucket.minute < minute) {
+            Bucket fresh = new Bucket(minute);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                bucket = fresh;
+            } else {
+                bucket = buckets.get(slot);
+            }
+        }
+        if (bucket.minute != minute) {
+            // older than the ring, the slot already counts a later minute
+            return;
+        }
+
+        bucket.submissions.increment();
+        bucket.testsRan.add(testsRan);
+        bucket.testsPassed.add(testsPassed);
+    }
+
+    /**
+     * Totals of the buckets in the window ending with the minute of {@code now}.
+     */
+    public Totals sum(long window, long now) {
+        long last = now / BUCKET_MILLIS;
+        long first = last - Math.min(BUCKETS, Math.max(1, window / BUCKET_MILLIS)) + 1;
+
+        long submissions = 0;
+        long testsRan = 0;
+        long testsPassed = 0;
+        for (int slot = 0; slot < BUCKETS; slot++) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket != null && bucket.minute >= first && bucket.minute <= last) {
+                submissions += bucket.submissions.sum();
+                testsRan += bucket.testsRan.sum();
+                testsPassed += bucket.testsPassed.sum();
+            }
+        }
+        return new Totals(submissions, testsRan, testsPassed);
+    }
+
+    public static class Totals {
+
+        public final long submissions;
+        public final long testsRan;
+        public final long testsPassed;
+
+        Totals(long submissions, long testsRan, long testsPassed) {
+            this.submissions = submissions;
+            this.testsRan = testsRan;
+            this.testsPassed = testsPassed;
+        }
+    }
+
+    private static class Bucket {
+
+        private final long minute;
+        private final LongAdder submissions = new LongAdder();
+        private final LongAdder testsRan = new LongAdder();
+        private final LongAdder testsPassed = new LongAdder();
+
+        Bucket(long minute) {
+            this.minute = minute;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ee.taltech.arete_admin_panel.algorithms;
+
+/**
+ * Open addressing map from {@link String} to a non negative {@code int} with linear probing.
+ * Lookups neither box nor allocate. Not thread safe, but a lookup racing a put never throws: keys and values are
+ * replaced together on a resize, so under an optimistic read the result only has to be validated afterwards.
+ */
+public class StringIntHashMap {
+
+    public static final int MISSING = -1;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private Table table;
+    private int size;
+
+    public StringIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        table = new Table(capacity);
+    }
+
+    public int get(String key) {
+        Table table = this.table;
+        String[] keys = table.keys;
+        int mask = keys.length - 1;
+        int index = slot(key, mask);
+        for (int probes = 0; probes < keys.length; probes++) {
+            String candidate = keys[index];
+            if (candidate == null) {
+                return MISSING;
+            }
+            if (candidate.equals(key)) {
+                return table.values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    public void put(String key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative values are reserved: " + value);
+        }
+        if (size + 1 > table.keys.length * LOAD_FACTOR) {
+            resize();
+        }
+        if (table.put(key, value)) {
+            size++;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize() {
+        Table resized = new Table(table.keys.length << 1);
+        for (int i = 0; i < table.keys.length; i++) {
+            if (table.keys[i] != null) {
+                resized.put(table.keys[i], table.values[i]);
+            }
+        }
+        // published only when complete, readers see either the old table or the new one
+        table = resized;
+    }
+
+    private static int slot(String key, int mask) {
+        // murmur3 finalizer, String.hashCode alone clusters badly under linear probing
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+    private static class Table {
+
+        final String[] keys;
+        final int[] values;
+
+        Table(int capacity) {
+            keys = new String[capacity];
+            values = new int[capacity];
+        }
+
+        // true if the key is new
+        boolean put(String key, int value) {
+            int mask = keys.length - 1;
+            int index = slot(key, mask);
+            while (keys[index] != null) {
+                if (keys[index].equals(key)) {
+                    values[index] = value;
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            values[index] = value;
+            keys[index] = key;
+            return true;
+        }
+    }
+}
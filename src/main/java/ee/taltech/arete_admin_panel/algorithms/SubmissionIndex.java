@@ -0,0 +1,276 @@
+package ee.taltech.arete_admin_panel.algorithms;
+
+import com.github.benmanes.caffeine.cache.CacheWriter;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import ee.taltech.arete_admin_panel.domain.Submission;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Secondary indexes over the cached submissions, kept in timestamp order.
+ * <p>
+ * Installed as the {@link CacheWriter} of the submission cache, so the indexes change in the same atomic step as the
+ * cache entry on insert, replace and eviction. A query walks the smallest posting list of its filters in the asked
+ * order and checks the remaining filters on each entry, so it stops as soon as the limit is reached.
+ */
+public class SubmissionIndex implements CacheWriter<Long, Submission> {
+
+    public enum Field {
+        UNIID(Submission::getUniid),
+        SLUG(Submission::getSlug),
+        COURSE(Submission::getGitTestSource),
+        FAILED(submission -> String.valueOf(Boolean.TRUE.equals(submission.getFailed())));
+
+        private final Function<Submission, String> value;
+
+        Field(Function<Submission, String> value) {
+            this.value = value;
+        }
+
+        public String of(Submission submission) {
+            return value.apply(submission);
+        }
+    }
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Posting all = new Posting();
+    private final Map<Field, Map<String, Posting>> postings = new EnumMap<>(Field.class);
+    private final AtomicLong version = new AtomicLong(); // changes with every insert, replace and eviction
+
+    public SubmissionIndex() {
+        for (Field field : Field.values()) {
+            postings.put(field, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public void write(Long id, Submission submission) {
+        Entry entry = new Entry(submission);
+        Entry previous = entries.put(id, entry);
+        if (previous != null) {
+            unindex(previous);
+        }
+        index(entry);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void delete(Long id, Submission submission, RemovalCause cause) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            unindex(entry);
+        }
+        version.incrementAndGet();
+    }
+
+    private void index(Entry entry) {
+        all.add(entry);
+        for (Field field : Field.values()) {
+            String value = field.of(entry.submission);
+            if (value != null) {
+                // added inside the map's lock, so an unindex of the same value can't drop the posting meanwhile
+                postings.get(field).compute(value, (key, posting) -> {
+                    Posting updated = posting == null ? new Posting() : posting;
+                    updated.add(entry);
+                    return updated;
+                });
+            }
+        }
+    }
+
+    private void unindex(Entry entry) {
+        all.remove(entry);
+        for (Field field : Field.values()) {
+            String value = field.of(entry.submission);
+            if (value != null) {
+                postings.get(field).computeIfPresent(value, (key, posting) -> {
+                    posting.remove(entry);
+                    return posting.size.get() == 0 ? null : posting;
+                });
+            }
+        }
+    }
+
+    /**
+     * Submissions matching all filters in timestamp order.
+     *
+     * @param filters   exact values per field, fields without a value are not filtered
+     * @param ascending oldest first if true, newest first otherwise
+     * @param limit     maximum number of results
+     */
+    public List<Submission> query(Map<Field, String> filters, boolean ascending, int limit) {
+        return query(filters, ascending, null, limit);
+    }
+
+    /**
+     * Submissions matching all filters in timestamp order, starting after the cursor in that order.
+     *
+     * @param after last submission of the previous page, from the first submission if null
+     */
+    public List<Submission> query(Map<Field, String> filters, boolean ascending, Cursor after, int limit) {
+        List<Submission> results = new ArrayList<>(Math.min(limit, 1024));
+        Predicate<Entry> matches = matcher(filters);
+        for (Entry entry : candidates(filters, ascending, after)) {
+            if (results.size() >= limit) {
+                break;
+            }
+            if (matches.test(entry)) {
+                results.add(entry.submission);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Number of submissions matching all filters per value of the field.
+     */
+    public Map<String, Long> count(Map<Field, String> filters, Field groupBy) {
+        Map<String, Long> groups = new TreeMap<>();
+        if (filters.isEmpty()) {
+            // answered from the posting sizes alone
+            postings.get(groupBy).forEach((value, posting) -> {
+                if (posting.size.get() > 0) {
+                    groups.put(value, (long) posting.size.get());
+                }
+            });
+            return groups;
+        }
+
+        Predicate<Entry> matches = matcher(filters);
+        for (Entry entry : candidates(filters, true, null)) {
+            String value = groupBy.of(entry.submission);
+            if (value != null && matches.test(entry)) {
+                groups.merge(value, 1L, Long::sum);
+            }
+        }
+        return groups;
+    }
+
+    public int size() {
+        return all.size.get();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    private Iterable<Entry> candidates(Map<Field, String> filters, boolean ascending, Cursor after) {
+        Posting smallest = all;
+        for (Map.Entry<Field, String> filter : filters.entrySet()) {
+            Posting posting = postings.get(filter.getKey()).get(filter.getValue());
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            if (posting.size.get() < smallest.size.get()) {
+                smallest = posting;
+            }
+        }
+        NavigableSet<Entry> entries = smallest.entries;
+        if (after != null) {
+            Entry last = new Entry(after.timestamp, after.id, null);
+            entries = ascending ? entries.tailSet(last, false) : entries.headSet(last, false);
+        }
+        return ascending ? entries : entries.descendingSet();
+    }
+
+    private static Predicate<Entry> matcher(Map<Field, String> filters) {
+        return entry -> {
+            for (Map.Entry<Field, String> filter : filters.entrySet()) {
+                if (!filter.getValue().equals(filter.getKey().of(entry.submission))) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private static class Posting {
+
+        private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>();
+        private final AtomicInteger size = new AtomicInteger(); // the skip list counts by walking
+
+        void add(Entry entry) {
+            if (entries.add(entry)) {
+                size.incrementAndGet();
+            }
+        }
+
+        void remove(Entry entry) {
+            if (entries.remove(entry)) {
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Position of a submission, or of a job, in timestamp order, written as {@code timestamp:id}.
+     */
+    public static class Cursor {
+
+        private final long timestamp;
+        private final long id;
+
+        private Cursor(long timestamp, long id) {
+            this.timestamp = timestamp;
+            this.id = id;
+        }
+
+        public static Cursor of(Submission submission) {
+            return new Cursor(submission.getTimestamp() == null ? 0 : submission.getTimestamp(), submission.getId());
+        }
+
+        public static Cursor parse(String cursor) {
+            int separator = cursor.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected a cursor of the form timestamp:id");
+            }
+            return new Cursor(Long.parseLong(cursor.substring(0, separator)), Long.parseLong(cursor.substring(separator + 1)));
+        }
+
+        public static Cursor of(long timestamp, long id) {
+            return new Cursor(timestamp, id);
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return timestamp + ":" + id;
+        }
+    }
+
+    private static class Entry implements Comparable<Entry> {
+
+        private final long timestamp;
+        private final long id;
+        private final Submission submission;
+
+        Entry(Submission submission) {
+            this(submission.getTimestamp() == null ? 0 : submission.getTimestamp(), submission.getId(), submission);
+        }
+
+        Entry(long timestamp, long id, Submission submission) {
+            this.timestamp = timestamp;
+            this.id = id;
+            this.submission = submission;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byTimestamp = Long.compare(timestamp, other.timestamp);
+            return byTimestamp != 0 ? byTimestamp : Long.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package ee.taltech.arete_admin_panel.algorithms;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sorted set of {@code long} timestamps stored as chunks of varint encoded deltas.
+ * <p>
+ * Submissions arrive almost in order, so adding a new latest timestamp only appends a few bytes to the last chunk.
+ * An out of order timestamp re-encodes the one chunk it falls into. Range counts skip whole chunks by their bounds
+ * and only decode the chunks at the edges of the range.
+ */
+public class TimestampSeries {
+
+    private static final int CHUNK_SIZE = 512;
+
+    private final List<Chunk> chunks = new ArrayList<>();
+    private int size;
+
+    public static TimestampSeries of(Iterable<Long> timestamps) {
+        TimestampSeries series = new TimestampSeries();
+        timestamps.forEach(series::add);
+        return series;
+    }
+
+    /**
+     * Adds the timestamp unless it is already present.
+     */
+    public synchronized boolean add(long timestamp) {
+        if (chunks.isEmpty()) {
+            Chunk chunk = new Chunk(timestamp);
+            chunks.add(chunk);
+            size++;
+            return true;
+        }
+
+        Chunk last = chunks.get(chunks.size() - 1);
+        if (timestamp > last.last) {
+            if (last.size >= CHUNK_SIZE) {
+                chunks.add(new Chunk(timestamp));
+            } else {
+                last.append(timestamp);
+            }
+            size++;
+            return true;
+        }
+
+        int index = chunkFor(timestamp);
+        if (index < 0) {
+            // before the first chunk
+            index = 0;
+        }
+        Chunk chunk = chunks.get(index);
+        long[] values = chunk.decode();
+        int position = Arrays.binarySearch(values, timestamp);
+        if (position >= 0) {
+            return false;
+        }
+
+        position = -position - 1;
+        long[] inserted = new long[values.length + 1];
+        System.arraycopy(values, 0, inserted, 0, position);
+        inserted[position] = timestamp;
+        System.arraycopy(values, position, inserted, position + 1, values.length - position);
+
+        if (inserted.length > 2 * CHUNK_SIZE) {
+            int half = inserted.length / 2;
+            chunks.set(index, Chunk.encode(inserted, 0, half));
+            chunks.add(index + 1, Chunk.encode(inserted, half, inserted.length));
+        } else {
+            chunks.set(index, Chunk.encode(inserted, 0, inserted.length));
+        }
+        size++;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized boolean contains(long timestamp) {
+        int index = chunkFor(timestamp);
+        return index >= 0 && Arrays.binarySearch(chunks.get(index).decode(), timestamp) >= 0;
+    }
+
+    /**
+     * Timestamps in {@code [from, to)}.
+     */
+    public synchronized int count(long from, long to) {
+        int count = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.last < from || chunk.first >= to) {
+                continue;
+            }
+            if (chunk.first >= from && chunk.last < to) {
+                count += chunk.size;
+                continue;
+            }
+            for (long value : chunk.decode()) {
+                if (value >= from && value < to) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Timestamps in {@code [from, to)} counted into buckets of the given width, the last bucket may be shorter.
+     */
+    public synchronized int[] histogram(long from, long to, long bucket) {
+        if (bucket <= 0 || to <= from) {
+            throw new IllegalArgumentException("Expected a positive bucket and range");
+        }
+
+        long buckets = (to - from + bucket - 1) / bucket;
+        if (buckets > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many buckets: " + buckets);
+        }
+
+        int[] histogram = new int[(int) buckets];
+        for (Chunk chunk : chunks) {
+            if (chunk.last < from || chunk.first >= to) {
+                continue;
+            }
+            for (long value : chunk.decode()) {
+                if (value >= from && value < to) {
+                    histogram[(int) ((value - from) / bucket)]++;
+                }
+            }
+        }
+        return histogram;
+    }
+
+    public synchronized long[] toArray() {
+        long[] values = new long[size];
+        int offset = 0;
+        for (Chunk chunk : chunks) {
+            long[] decoded = chunk.decode();
+            System.arraycopy(decoded, 0, values, offset, decoded.length);
+            offset += decoded.length;
+        }
+        return values;
+    }
+
+    /**
+     * Bytes used by the encoded deltas, without object headers.
+     */
+    public synchronized long encodedSize() {
+        long bytes = 0;
+        for (Chunk chunk : chunks) {
+            bytes += Long.BYTES + chunk.length;
+        }
+        return bytes;
+    }
+
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeInt(chunks.size());
+        for (Chunk chunk : chunks) {
+            out.writeLong(chunk.first);
+            out.writeLong(chunk.last);
+            out.writeInt(chunk.size);
+            out.writeInt(chunk.length);
+            out.write(chunk.data, 0, chunk.length);
+        }
+    }
+
+    public static TimestampSeries readFrom(DataInput in) throws IOException {
+        TimestampSeries series = new TimestampSeries();
+        int chunks = in.readInt();
+        for (int i = 0; i < chunks; i++) {
+            Chunk chunk = new Chunk(in.readLong());
+            chunk.last = in.readLong();
+            chunk.size = in.readInt();
+            chunk.length = in.readInt();
+            chunk.data = new byte[chunk.length];
+            in.readFully(chunk.data);
+            series.chunks.add(chunk);
+            series.size += chunk.size;
+        }
+        return series;
+    }
+
+    /**
+     * Index of the last chunk starting at or before the timestamp, -1 if there is none.
+     */
+    private int chunkFor(long timestamp) {
+        int low = 0;
+        int high = chunks.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (chunks.get(middle).first <= timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof TimestampSeries && Arrays.equals(toArray(), ((TimestampSeries) o).toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public String toString() {
+        return "TimestampSeries(size=" + size() + ")";
+    }
+
+    private static class Chunk {
+
+        private final long first;
+        private long last;
+        private int size;
+        private byte[] data = new byte[16];
+        private int length;
+
+        Chunk(long first) {
+            this.first = first;
+            this.last = first;
+            this.size = 1;
+        }
+
+        static Chunk encode(long[] values, int from, int to) {
+            Chunk chunk = new Chunk(values[from]);
+            for (int i = from + 1; i < to; i++) {
+                chunk.append(values[i]);
+            }
+            return chunk;
+        }
+
+        void append(long value) {
+            long delta = value - last;
+            if (length + 10 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            while ((delta & ~0x7FL) != 0) {
+                data[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            data[length++] = (byte) delta;
+            last = value;
+            size++;
+        }
+
+        long[] decode() {
+            long[] values = new long[size];
+            long value = first;
+            values[0] = value;
+            int position = 0;
+            for (int i = 1; i < size; i++) {
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                value += delta;
+                values[i] = value;
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package ee.taltech.arete_admin_panel.algorithms;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Read only copies of cached entities, replaced as a whole by publishing a new version.
+ * <p>
+ * Writers publish the entities they changed at the end of a batch. Publishing copies those entities into a persistent
+ * search tree: only the paths to the changed keys are copied, everything else is shared with the previous version, so
+ * a publish costs {@code O(changed * log n)} whatever the size of the view. Readers take the current version without
+ * locking and it never changes under them, so serializing it neither races the writers nor sees half a batch.
+ * Entries are kept in key order, so pages after a key are read without going through the entries before it.
+ */
+public class VersionedView<K extends Comparable<K>, V> {
+
+    private final Function<V, K> key;
+    private final UnaryOperator<V> copy;
+    private final Set<K> removed = ConcurrentHashMap.newKeySet();
+    private volatile Version<K, V> current = new Version<>(0, null);
+
+    public VersionedView(Function<V, K> key, UnaryOperator<V> copy) {
+        this.key = key;
+        this.copy = copy;
+    }
+
+    /**
+     * Removes the entry with the next publish, even if the entity is published with it.
+     */
+    public void remove(K key) {
+        removed.add(key);
+    }
+
+    /**
+     * Cancels a pending removal, for entities put back into the cache before the next publish.
+     */
+    public void restore(K key) {
+        removed.remove(key);
+    }
+
+    /**
+     * Publishes copies of the changed entities together with the pending removals as the next version. Callers make
+     * sure nothing mutates the entities while they are copied.
+     */
+    public synchronized void publish(Collection<V> changed) {
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        Node<K, V> root = current.root;
+        for (V entity : changed) {
+            root = Node.put(root, key.apply(entity), copy.apply(entity));
+        }
+        // after the puts, an entity evicted while its batch was processed is not published again
+        for (Iterator<K> keys = removed.iterator(); keys.hasNext(); ) {
+            root = Node.remove(root, keys.next());
+            keys.remove();
+        }
+        current = new Version<>(current.epoch + 1, root);
+    }
+
+    public Version<K, V> current() {
+        return current;
+    }
+
+    public static class Version<K extends Comparable<K>, V> {
+
+        private final long epoch;
+        private final Node<K, V> root;
+
+        Version(long epoch, Node<K, V> root) {
+            this.epoch = epoch;
+            this.root = root;
+        }
+
+        public long getEpoch() {
+            return epoch;
+        }
+
+        public Optional<V> get(K key) {
+            Node<K, V> node = root;
+            while (node != null) {
+                int order = key.compareTo(node.key);
+                if (order == 0) {
+                    return Optional.of(node.value);
+                }
+                node = order < 0 ? node.left : node.right;
+            }
+            return Optional.empty();
+        }
+
+        public Collection<V> values() {
+            return new AbstractCollection<>() {
+                @Override
+                public Iterator<V> iterator() {
+                    return new InOrder<>(root, null);
+                }
+
+                @Override
+                public int size() {
+                    return Node.size(root);
+                }
+            };
+        }
+
+        /**
+         * Entries with keys after the given one in key order, from the first entry if it is null.
+         */
+        public List<V> page(K after, int limit) {
+            List<V> page = new ArrayList<>(Math.min(limit, 1024));
+            for (Iterator<V> values = new InOrder<>(root, after); values.hasNext() && page.size() < limit; ) {
+                page.add(values.next());
+            }
+            return page;
+        }
+    }
+
+    /**
+     * Immutable treap node. The priority is derived from the key, so equal contents give the same shape.
+     */
+    private static class Node<K extends Comparable<K>, V> {
+
+        final K key;
+        final V value;
+        final int priority;
+        final Node<K, V> left;
+        final Node<K, V> right;
+        final int size;
+
+        Node(K key, V value, int priority, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + size(left) + size(right);
+        }
+
+        static int size(Node<?, ?> node) {
+            return node == null ? 0 : node.size;
+        }
+
+        static int priority(Object key) {
+            // murmur3 finalizer, sequential ids would otherwise degenerate the tree into a list
+            int h = key.hashCode();
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            h *= 0xc2b2ae35;
+            h ^= h >>> 16;
+            return h;
+        }
+
+        static <K extends Comparable<K>, V> Node<K, V> put(Node<K, V> node, K key, V value) {
+            if (node == null) {
+                return new Node<>(key, value, priority(key), null, null);
+            }
+            int order = key.compareTo(node.key);
+            if (order == 0) {
+                return new Node<>(key, value, node.priority, node.left, node.right);
+            }
+            if (order < 0) {
+                Node<K, V> left = put(node.left, key, value);
+                if (left.priority > node.priority) {
+                    // rotate right
+                    return new Node<>(left.key, left.value, left.priority, left.left,
+                            new Node<>(node.key, node.value, node.priority, left.right, node.right));
+                }
+                return new Node<>(node.key, node.value, node.priority, left, node.right);
+            }
+            Node<K, V> right = put(node.right, key, value);
+            if (right.priority > node.priority) {
+                // rotate left
+                return new Node<>(right.key, right.value, right.priority,
+                        new Node<>(node.key, node.value, node.priority, node.left, right.left), right.right);
+            }
+            return new Node<>(node.key, node.value, node.priority, node.left, right);
+        }
+
+        static <K extends Comparable<K>, V> Node<K, V> remove(Node<K, V> node, K key) {
+            if (node == null) {
+                return null;
+            }
+            int order = key.compareTo(node.key);
+            if (order == 0) {
+                return merge(node.left, node.right);
+            }
+            if (order < 0) {
+                Node<K, V> left = remove(node.left, key);
+                return left == node.left ? node : new Node<>(node.key, node.value, node.priority, left, node.right);
+            }
+            Node<K, V> right = remove(node.right, key);
+            return right == node.right ? node : new Node<>(node.key, node.value, node.priority, node.left, right);
+        }
+
+        // every key of lower is before every key of upper
+        private static <K extends Comparable<K>, V> Node<K, V> merge(Node<K, V> lower, Node<K, V> upper) {
+            if (lower == null) {
+                return upper;
+            }
+            if (upper == null) {
+                return lower;
+            }
+            if (lower.priority > upper.priority) {
+                return new Node<>(lower.key, lower.value, lower.priority, lower.left, merge(lower.right, upper));
+            }
+            return new Node<>(upper.key, upper.value, upper.priority, merge(lower, upper.left), upper.right);
+        }
+    }
+
+    private static class InOrder<K extends Comparable<K>, V> implements Iterator<V> {
+
+        private final Deque<Node<K, V>> path = new ArrayDeque<>();
+
+        InOrder(Node<K, V> root, K after) {
+            // the nodes after the key whose left subtrees are still to be visited
+            for (Node<K, V> node = root; node != null; ) {
+                if (after == null || node.key.compareTo(after) > 0) {
+                    path.push(node);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        public V next() {
+            if (path.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<K, V> node = path.pop();
+            for (Node<K, V> next = node.right; next != null; next = next.left) {
+                path.push(next);
+            }
+            return node.value;
+        }
+    }
+}
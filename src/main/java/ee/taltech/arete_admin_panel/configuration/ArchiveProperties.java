@@ -0,0 +1,24 @@
+package ee.taltech.arete_admin_panel.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "arete.archive")
+@Data
+public class ArchiveProperties {
+
+    private boolean enabled = false;
+
+    private String directory = "archive";
+
+    // jobs older than this are moved out of the database
+    private int olderThanDays = 365;
+
+    // jobs moved per transaction, every batch becomes one segment file
+    private int batchSize = 1000;
+
+    // every n-th record of a segment gets an index entry
+    private int indexInterval = 16;
+}
@@ -1,18 +1,39 @@
 package ee.taltech.arete_admin_panel.configuration;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+
 @Configuration
 @EnableCaching
 public class CacheConfiguration {
 
+    public static final String JOB = "job";
+    public static final String USER = "user";
+
     @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("slug", "course", "course-student", "slug-student", "student", "submission");
+    public CacheManager cacheManager(CacheProperties properties) {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                cache(JOB, properties.getJobCacheSize(), properties.getJobCacheTtl()),
+                cache(USER, properties.getUserCacheSize(), properties.getUserCacheTtl())));
+        return cacheManager;
+    }
+
+    private static CaffeineCache cache(String name, int maximumSize, long ttl) {
+        // statistics are bound to the meter registry by the actuator cache metrics
+        return new CaffeineCache(name, Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(ttl))
+                .recordStats()
+                .build(), false);
     }
 
 }
@@ -0,0 +1,57 @@
+package ee.taltech.arete_admin_panel.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "arete.cache")
+@Data
+public class CacheProperties {
+
+    // aggregation workers, submissions are sharded between them by uniid
+    private int workers = Runtime.getRuntime().availableProcessors();
+
+    // submissions a worker applies before publishing its batch
+    private int batchSize = 256;
+
+    // submissions read per keyset page while warming up
+    private int warmupPageSize = 1000;
+
+    // milliseconds before retrying a failed warm-up, doubled after every failure
+    private long warmupRetryDelay = 1000;
+
+    // longest wait between warm-up attempts
+    private long warmupMaxRetryDelay = 60000;
+
+    // binary snapshot of the caches restored on startup, empty disables snapshots
+    private String snapshotFile = "cache.snapshot";
+
+    // milliseconds between snapshots
+    private long snapshotInterval = 300000;
+
+    // exact keeps every uniid of a course or slug, sketch switches to a HyperLogLog above the threshold
+    private StudentCounting studentCounting = StudentCounting.EXACT;
+
+    // distinct students counted exactly before switching to the sketch
+    private int studentCountingThreshold = 1000;
+
+    // sketch index bits, 2^precision registers with a standard error of 1.04 / sqrt(2^precision)
+    private int studentCountingPrecision = 12;
+
+    // job summaries read by hash and timestamp
+    private int jobCacheSize = 1000;
+
+    // milliseconds a cached job is served
+    private long jobCacheTtl = 600000;
+
+    // users read by username, mostly by the token filter on every request
+    private int userCacheSize = 1000;
+
+    // milliseconds a cached user is served, bounds how long another node's change to the user can go unseen
+    private long userCacheTtl = 60000;
+
+    public enum StudentCounting {
+        EXACT, SKETCH
+    }
+}
@@ -0,0 +1,35 @@
+package ee.taltech.arete_admin_panel.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "arete.cluster")
+@Data
+public class ClusterProperties {
+
+    // partitions aggregation by course between the nodes in cluster_node, disabled runs a single node owning everything
+    private boolean enabled = false;
+
+    // unique name of this node, defaults to the host name and server port
+    private String nodeId = "";
+
+    // base url other nodes reach this node at, defaults to http://localhost with the server port
+    private String url = "";
+
+    // shared secret sent with forwarded submissions
+    private String token = "";
+
+    // milliseconds between heartbeats
+    private long heartbeatInterval = 5000;
+
+    // nodes without a heartbeat for this many milliseconds are left out of the ring
+    private long nodeTimeout = 15000;
+
+    // points per node on the hash ring, more spread courses more evenly
+    private int virtualNodes = 128;
+
+    // milliseconds a request to another node may take
+    private int requestTimeout = 5000;
+}
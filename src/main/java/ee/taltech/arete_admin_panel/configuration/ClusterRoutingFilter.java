@@ -0,0 +1,280 @@
+package ee.taltech.arete_admin_panel.configuration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import ee.taltech.arete_admin_panel.domain.InternedKey;
+import ee.taltech.arete_admin_panel.service.ClusterService;
+import ee.taltech.arete_admin_panel.service.KeyInternService;
+import ee.taltech.arete_admin_panel.service.ResponseCacheService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Gives every node of a cluster the same answers. Reads of a course or exercise are proxied to the node owning its
+ * course, and the lists every node only holds its own part of are merged from the answers of all nodes. Runs after
+ * the security filters, the client's authorization is passed on to the other nodes.
+ */
+@Component
+public class ClusterRoutingFilter extends OncePerRequestFilter {
+
+    private static final Pattern OWNED = Pattern.compile(ClusterService.API + "/(course|exercise)/(\\d+)(/.*)?");
+
+    private enum Merge {
+        CONCAT, SUBMISSIONS, LATENCY, SUM
+    }
+
+    private static final Map<String, Merge> MERGED = Map.of(
+            ClusterService.API + "/course/all", Merge.CONCAT,
+            ClusterService.API + "/exercise/all", Merge.CONCAT,
+            ClusterService.API + "/exercise/latency", Merge.LATENCY,
+            ClusterService.API + "/submission/all", Merge.SUBMISSIONS,
+            ClusterService.API + "/submission/groups", Merge.SUM);
+
+    private final Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    private final ClusterService clusterService;
+    private final KeyInternService keyInternService;
+    private final ObjectMapper objectMapper;
+
+    public ClusterRoutingFilter(ClusterService clusterService, KeyInternService keyInternService, ObjectMapper objectMapper) {
+        this.clusterService = clusterService;
+        this.keyInternService = keyInternService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !clusterService.isEnabled()
+                || !"GET".equals(request.getMethod())
+                || request.getHeader(ClusterService.FORWARDED_HEADER) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String pathAndQuery = request.getQueryString() == null ? path : path + "?" + request.getQueryString();
+
+        Matcher owned = OWNED.matcher(path);
+        if (owned.matches()) {
+            OptionalInt id = parse(owned.group(2));
+            Optional<String> owner = id.isPresent() ? ownerUrl(owned.group(1), id.getAsInt()) : Optional.empty();
+            if (owner.isPresent()) {
+                proxy(owner.get(), pathAndQuery, request, response);
+                return;
+            }
+        } else if (MERGED.containsKey(path)) {
+            merge(MERGED.get(path), pathAndQuery, request, response, chain);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private Optional<String> ownerUrl(String resource, int id) {
+        if ("course".equals(resource)) {
+            return keyInternService.value(InternedKey.Kind.COURSE, id).flatMap(clusterService::ownerUrl);
+        }
+        return keyInternService.value(InternedKey.Kind.SLUG, id)
+                .map(KeyInternService::slugKeyCourseUrl)
+                .flatMap(clusterService::ownerUrl);
+    }
+
+    private void proxy(String owner, String pathAndQuery, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try {
+            ResponseEntity<byte[]> remote = clusterService.get(owner, pathAndQuery, request.getHeader(HttpHeaders.AUTHORIZATION));
+            write(response, remote.getStatusCodeValue(), remote.getHeaders(), remote.getBody());
+        } catch (HttpStatusCodeException e) {
+            write(response, e.getRawStatusCode(), e.getResponseHeaders(), e.getResponseBodyAsByteArray());
+        } catch (RestClientException e) {
+            LOG.warn("Owner {} of {} is unreachable: {}", owner, pathAndQuery, e.getMessage());
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private void merge(Merge merge, String pathAndQuery, HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        ContentCachingResponseWrapper local = new LocalPartResponse(response);
+        chain.doFilter(new LocalPartRequest(request), local);
+        if (local.getStatus() != HttpServletResponse.SC_OK) {
+            local.copyBodyToResponse();
+            return;
+        }
+
+        JsonNode merged = objectMapper.readTree(local.getContentAsByteArray());
+        for (String peer : clusterService.peerUrls()) {
+            try {
+                ResponseEntity<byte[]> remote = clusterService.get(peer, pathAndQuery, request.getHeader(HttpHeaders.AUTHORIZATION));
+                JsonNode part = objectMapper.readTree(remote.getBody());
+                if (merge == Merge.SUM) {
+                    ObjectNode counts = (ObjectNode) merged;
+                    part.fields().forEachRemaining(field ->
+                            counts.put(field.getKey(), counts.path(field.getKey()).asLong() + field.getValue().asLong()));
+                } else {
+                    ((ArrayNode) merged).addAll((ArrayNode) part);
+                }
+            } catch (RestClientException e) {
+                // the node left, its courses are taken over with the next heartbeat
+                LOG.warn("Leaving out {} of {}: {}", peer, pathAndQuery, e.getMessage());
+            }
+        }
+
+        JsonNode finished = finish(merge, merged, request);
+        OptionalInt limit = parse(request.getParameter("limit"));
+        if (merge != Merge.LATENCY && limit.isPresent() && finished.size() > 0 && finished.size() >= limit.getAsInt()) {
+            JsonNode last = finished.get(finished.size() - 1);
+            String cursor = merge == Merge.SUBMISSIONS ? last.path("timestamp").asLong() + ":" + last.path("id").asLong() : last.path("id").asText();
+            response.setHeader(HttpHeaders.LINK, ResponseCacheService.nextLink(request, cursor));
+        }
+
+        byte[] body = objectMapper.writeValueAsBytes(finished);
+        String etag = ResponseCacheService.etag(body);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (ResponseCacheService.isCurrent(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        write(response, HttpServletResponse.SC_OK, headers, body);
+    }
+
+    /**
+     * The request as the local controller sees it when its answer is merged: always complete and uncompressed, the
+     * ETag of the merged answer is checked here.
+     */
+    private static class LocalPartRequest extends HttpServletRequestWrapper {
+
+        LocalPartRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        private static boolean hidden(String name) {
+            return HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name) || HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(name);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return hidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return hidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+    }
+
+    /**
+     * The response of the local controller when its answer is merged, the link to the next page is set for the merged
+     * answer.
+     */
+    private static class LocalPartResponse extends ContentCachingResponseWrapper {
+
+        LocalPartResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!HttpHeaders.LINK.equalsIgnoreCase(name)) {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!HttpHeaders.LINK.equalsIgnoreCase(name)) {
+                super.addHeader(name, value);
+            }
+        }
+    }
+
+    /**
+     * Applies the order and limit of the endpoint to the merged answer. Every node answers with its own page after the
+     * cursor, so the merged page is the first items of their union.
+     */
+    private JsonNode finish(Merge merge, JsonNode merged, HttpServletRequest request) {
+        switch (merge) {
+            case SUBMISSIONS:
+                String sort = request.getParameter("sort");
+                OptionalInt limit = parse(request.getParameter("limit"));
+                if (sort == null && limit.isEmpty() && request.getParameter("after") == null) {
+                    return merged;
+                }
+                Comparator<JsonNode> byTimestamp = Comparator.<JsonNode>comparingLong(node -> node.path("timestamp").asLong())
+                        .thenComparingLong(node -> node.path("id").asLong());
+                return sorted(merged, "timestamp".equals(sort) ? byTimestamp : byTimestamp.reversed(), limit.orElse(Integer.MAX_VALUE));
+            case CONCAT:
+                OptionalInt pageLimit = parse(request.getParameter("limit"));
+                if (pageLimit.isEmpty() && request.getParameter("after") == null) {
+                    return merged;
+                }
+                return sorted(merged, Comparator.comparingLong(node -> node.path("id").asLong()), pageLimit.orElse(Integer.MAX_VALUE));
+            case LATENCY:
+                OptionalInt exercises = parse(request.getParameter("limit"));
+                Comparator<JsonNode> byTotal = Comparator.comparingLong(node -> node.path("job").path("total").asLong());
+                return sorted(merged, byTotal.reversed(), exercises.orElse(10));
+            case SUM:
+                SortedSet<String> keys = new TreeSet<>();
+                merged.fieldNames().forEachRemaining(keys::add);
+                ObjectNode ordered = objectMapper.createObjectNode();
+                keys.forEach(key -> ordered.set(key, merged.get(key)));
+                return ordered;
+            default:
+                return merged;
+        }
+    }
+
+    /**
+     * A non negative number from the request, empty for anything else. The controllers answer invalid parameters with
+     * a 400 before anything is merged, and proxied requests are forwarded unchanged for their owner to reject.
+     */
+    private static OptionalInt parse(String value) {
+        if (value == null) {
+            return OptionalInt.empty();
+        }
+        try {
+            int number = Integer.parseInt(value.trim());
+            return number < 0 ? OptionalInt.empty() : OptionalInt.of(number);
+        } catch (NumberFormatException e) {
+            return OptionalInt.empty();
+        }
+    }
+
+    private JsonNode sorted(JsonNode merged, Comparator<JsonNode> order, int limit) {
+        List<JsonNode> nodes = new ArrayList<>();
+        merged.forEach(nodes::add);
+        nodes.sort(order);
+        ArrayNode result = objectMapper.createArrayNode();
+        nodes.stream().limit(limit).forEach(result::add);
+        return result;
+    }
+
+    private static void write(HttpServletResponse response, int status, HttpHeaders headers, byte[] body) throws IOException {
+        response.setStatus(status);
+        if (headers != null && headers.getContentType() != null) {
+            response.setContentType(headers.getContentType().toString());
+        }
+        if (body != null) {
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+}
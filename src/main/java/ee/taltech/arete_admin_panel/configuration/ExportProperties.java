@@ -0,0 +1,17 @@
+package ee.taltech.arete_admin_panel.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "arete.export")
+@Data
+public class ExportProperties {
+
+    // rows the database cursor sends at a time, also the number of jobs held before the session is cleared
+    private int fetchSize = 500;
+
+    // characters of a job output read per query when it is streamed
+    private int outputChunkSize = 65536;
+}
@@ -0,0 +1,23 @@
+package ee.taltech.arete_admin_panel.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "arete.feed")
+@Data
+public class FeedProperties {
+
+    // milliseconds of changes merged into one event per kind, a changed entity is sent once per window
+    private long coalesceInterval = 250;
+
+    // events queued per subscriber, a subscriber falling further behind is dropped
+    private int bufferSize = 64;
+
+    // threads writing events to subscribers
+    private int senders = 2;
+
+    // milliseconds a subscription stays open, clients reconnect after it
+    private long timeout = 3600000;
+}
@@ -0,0 +1,24 @@
+package ee.taltech.arete_admin_panel.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "arete.job.partition")
+@Data
+public class JobPartitionProperties {
+
+    // monthly partitions created ahead of the current month
+    private int monthsAhead = 3;
+
+    // partitions older than this many months are retired. 0 keeps everything
+    private int retentionMonths = 0;
+
+    // detach keeps the retired partition as a standalone table, drop removes it
+    private RetentionMode retentionMode = RetentionMode.DETACH;
+
+    public enum RetentionMode {
+        DETACH, DROP
+    }
+}
@@ -0,0 +1,32 @@
+package ee.taltech.arete_admin_panel.configuration;
+
+import ee.taltech.arete_admin_panel.service.WarmupService;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the node OUT_OF_SERVICE (503 on /actuator/health) until the caches are warm, so the load balancer
+ * does not route to it before that. The node is DOWN while the last warm-up attempt failed and the next one is pending,
+ * and comes UP once a retry completes it.
+ */
+@Component("warmup")
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private final WarmupService warmupService;
+
+    public WarmupHealthIndicator(WarmupService warmupService) {
+        this.warmupService = warmupService;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = warmupService.isFinished() ? Health.up()
+                : warmupService.isFailed() ? Health.down() : Health.outOfService();
+        return builder
+                .withDetail("replayed", warmupService.getReplayed())
+                .withDetail("total", warmupService.getTotal())
+                .withDetail("attempts", warmupService.getAttempts())
+                .build();
+    }
+}
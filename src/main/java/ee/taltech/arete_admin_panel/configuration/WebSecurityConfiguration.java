@@ -38,6 +38,8 @@ public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
                 .and()
                 .authorizeRequests()
                 .antMatchers(HttpMethod.GET, "/error").permitAll() // error
+                .antMatchers(HttpMethod.GET, "/actuator/health").permitAll() // load balancer readiness
+                .antMatchers(HttpMethod.GET, "/actuator/prometheus").hasAnyAuthority("ADMIN", "METRICS") // prometheus scrapes as a metrics user with Authorization: <username> <password>
                 .antMatchers(HttpMethod.GET, "/services/arete/api/v2/docs/**").permitAll() // swagger
                 .antMatchers(HttpMethod.GET, "/services/arete/api/v2/swagger-ui/**").permitAll() // swagger
 
@@ -52,6 +54,8 @@ public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
                 .antMatchers(HttpMethod.GET, "/services/arete/api/v2/submission/**").hasAnyAuthority("ADMIN", "DEVELOPER") // TODO: people can see their stuff and admin can see all
                 .antMatchers(HttpMethod.POST, "/services/arete/api/v2/submission/**").hasAnyAuthority("ADMIN", "DEVELOPER", "HOOK", "TESTER") // TODO: people can run tests
 
+                .antMatchers(HttpMethod.POST, "/services/arete/api/v2/cluster/**").permitAll() // between nodes, checked against the cluster token
+
                 .antMatchers(HttpMethod.GET, "/services/arete/api/v2/student/**").hasAnyAuthority("ADMIN", "DEVELOPER") // TODO: people can see their stuff and admin can see all
 
                 .antMatchers(HttpMethod.GET, "/services/arete/api/v2/state").hasAnyAuthority("ADMIN", "DEVELOPER") // TODO: people can see state
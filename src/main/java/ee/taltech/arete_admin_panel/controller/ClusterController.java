@@ -0,0 +1,44 @@
+package ee.taltech.arete_admin_panel.controller;
+
+import ee.taltech.arete.java.response.arete.AreteResponseDTO;
+import ee.taltech.arete_admin_panel.service.ClusterService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import javassist.NotFoundException;
+import lombok.SneakyThrows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.*;
+
+@Tag(name = "cluster", description = "requests between nodes of a cluster")
+@RestController
+@RequestMapping("services/arete/api/v2/cluster")
+public class ClusterController {
+
+    private final Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    private final ClusterService clusterService;
+
+    public ClusterController(ClusterService clusterService) {
+        this.clusterService = clusterService;
+    }
+
+    @SneakyThrows
+    @Operation(summary = "Accepts a submission forwarded by the node that received it, for the node owning its course", tags = {"cluster"})
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @PostMapping("/submission/{id}")
+    public void acceptSubmission(@RequestHeader(name = ClusterService.TOKEN_HEADER, required = false) String token,
+                                 @PathVariable("id") Long id,
+                                 @RequestBody AreteResponseDTO areteResponse) {
+        if (!clusterService.isTrusted(token)) {
+            throw new AccessDeniedException("Expected the cluster token");
+        }
+
+        LOG.info("Accepting forwarded submission {}", id);
+        if (!clusterService.acceptForwarded(id, areteResponse)) {
+            throw new NotFoundException("Selected item was not found.");
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package ee.taltech.arete_admin_panel.controller;
 
+import ee.taltech.arete_admin_panel.algorithms.Leaderboard;
 import ee.taltech.arete_admin_panel.domain.Course;
+import ee.taltech.arete_admin_panel.exception.InvalidParameterException;
+import ee.taltech.arete_admin_panel.pojo.abi.statistics.WindowStatisticsDTO;
 import ee.taltech.arete_admin_panel.service.AreteService;
 import ee.taltech.arete_admin_panel.service.CacheService;
+import ee.taltech.arete_admin_panel.service.ResponseCacheService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeIn;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -16,10 +24,12 @@ import lombok.SneakyThrows;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @SecurityScheme(name = "X-Docker-Token", type = SecuritySchemeType.APIKEY, in = SecuritySchemeIn.HEADER)
@@ -33,23 +43,41 @@ import java.util.Optional;
 @RequestMapping({"test", "services/arete/api/v2/course"})
 public class CourseController {
 
+    private static final List<String> DEFAULT_WINDOWS = List.of("5m", "1h", "24h");
+
     private final Logger LOG = LoggerFactory.getLogger(this.getClass());
 
     private final AreteService areteService;
     private final CacheService cacheService;
+    private final ResponseCacheService responseCacheService;
     private final AuthenticationManager authenticationManager; // dont delete <- this bean is used here for authentication
 
-    public CourseController(AreteService areteService, CacheService cacheService, AuthenticationManager authenticationManager) {
+    public CourseController(AreteService areteService,
+                            CacheService cacheService,
+                            ResponseCacheService responseCacheService,
+                            AuthenticationManager authenticationManager) {
         this.areteService = areteService;
         this.cacheService = cacheService;
+        this.responseCacheService = responseCacheService;
         this.authenticationManager = authenticationManager;
     }
 
-    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns all courses", tags = {"course"})
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns courses, a page of limit courses with ids after the after id if given, only the given fields and id if fields are given, 304 if If-None-Match has the current ETag", tags = {"course"},
+            responses = @ApiResponse(responseCode = "200", content = @Content(array = @ArraySchema(schema = @Schema(implementation = Course.class)))))
     @ResponseStatus(HttpStatus.OK)
     @GetMapping(path = "/all")
-    public Collection<Course> getCourses() {
-        return cacheService.getCourseList();
+    public ResponseEntity<byte[]> getCourses(@RequestParam(name = "after", required = false) Integer after,
+                                             @RequestParam(name = "limit", required = false) Integer limit,
+                                             @RequestParam(name = "fields", required = false) List<String> fields,
+                                             WebRequest request) {
+        if (after == null && limit == null && fields == null) {
+            return responseCacheService.respond("course/all", cacheService.getCourseVersion(), cacheService::getCourseList, request);
+        }
+        if (limit != null && limit < 1) {
+            throw new InvalidParameterException("Expected a positive limit");
+        }
+        List<Course> courses = cacheService.getCoursePage(after, limit == null ? Integer.MAX_VALUE : limit);
+        return responseCacheService.respondPage(courses, Course.class, limit, course -> course.getId().toString(), fields, List.of("id"), request);
     }
 
     @SneakyThrows
@@ -67,6 +95,65 @@ public class CourseController {
         }
     }
 
+    @SneakyThrows
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns the number of distinct students who submitted any of the given exercises of course by id, all exercises if none are given", tags = {"course"})
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(path = "/{id}/students")
+    public long getCourseDistinctStudents(@PathVariable("id") Integer id,
+                                          @RequestParam(name = "slug", required = false) List<String> slugs) {
+        try {
+            LOG.info("Counting distinct students of course by id {}", id);
+            Optional<Course> courseOptional = cacheService.getCourse(id);
+            assert courseOptional.isPresent();
+            return cacheService.countDistinctStudents(courseOptional.get().getGitUrl(), slugs == null ? List.of() : slugs);
+        } catch (AssertionError e) {
+            throw new NotFoundException("Selected item was not found.");
+        }
+    }
+
+    @SneakyThrows
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns submissions and pass rate of course by id in the last minutes or hours, windows default to 5m, 1h and 24h", tags = {"course"})
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(path = "/{id}/recent")
+    public List<WindowStatisticsDTO> getCourseRecent(@PathVariable("id") Integer id,
+                                                     @RequestParam(name = "window", required = false) List<String> windows) {
+        try {
+            LOG.info("Reading recent statistics of course by id {}", id);
+            Optional<Course> courseOptional = cacheService.getCourse(id);
+            assert courseOptional.isPresent();
+            return cacheService.getWindowStatistics(courseOptional.get().getRecent(), windows == null ? DEFAULT_WINDOWS : windows);
+        } catch (AssertionError e) {
+            throw new NotFoundException("Selected item was not found.");
+        }
+    }
+
+    @SneakyThrows
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns the best students of course by id by tests_passed, diagnostic_errors or commits", tags = {"course"})
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(path = "/{id}/leaderboard")
+    public List<Leaderboard.Entry> getCourseLeaderboard(@PathVariable("id") Integer id,
+                                                        @RequestParam(name = "metric", defaultValue = "tests_passed") String metric,
+                                                        @RequestParam(name = "limit", defaultValue = "10") Integer limit) {
+        Leaderboard.Metric leaderboardMetric;
+        try {
+            leaderboardMetric = Leaderboard.Metric.valueOf(metric.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParameterException("Expected metric to be one of tests_passed, diagnostic_errors or commits");
+        }
+        if (limit < 1) {
+            throw new InvalidParameterException("Expected a positive limit");
+        }
+
+        try {
+            LOG.info("Reading leaderboard of course by id {}", id);
+            Optional<Course> courseOptional = cacheService.getCourse(id);
+            assert courseOptional.isPresent();
+            return courseOptional.get().getLeaders().top(leaderboardMetric, limit);
+        } catch (AssertionError e) {
+            throw new NotFoundException("Selected item was not found.");
+        }
+    }
+
     @Operation(
             parameters = {@Parameter(in = ParameterIn.HEADER, name = "X-Docker-Token", description = "docker token with structure: s\"{name} {password}\"")},
             security = {@SecurityRequirement(name = "Authorization"), @SecurityRequirement(name = "X-Docker-Token")},
@@ -1,14 +1,26 @@
 package ee.taltech.arete_admin_panel.controller;
 
 import ee.taltech.arete.java.request.hook.AreteTestUpdateDTO;
+import ee.taltech.arete_admin_panel.algorithms.Leaderboard;
 import ee.taltech.arete_admin_panel.domain.Slug;
+import ee.taltech.arete_admin_panel.exception.InvalidParameterException;
+import ee.taltech.arete_admin_panel.pojo.abi.statistics.ExerciseLatencyDTO;
+import ee.taltech.arete_admin_panel.pojo.abi.statistics.UnitTestStatisticsDTO;
+import ee.taltech.arete_admin_panel.pojo.abi.statistics.WindowStatisticsDTO;
 import ee.taltech.arete_admin_panel.service.AreteService;
 import ee.taltech.arete_admin_panel.service.CacheService;
+import ee.taltech.arete_admin_panel.service.LatencyService;
+import ee.taltech.arete_admin_panel.service.ResponseCacheService;
+import ee.taltech.arete_admin_panel.service.UnitTestStatisticService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeIn;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -17,10 +29,12 @@ import lombok.SneakyThrows;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @SecurityScheme(name = "X-Gitlab-Token", type = SecuritySchemeType.APIKEY, in = SecuritySchemeIn.HEADER)
@@ -30,24 +44,48 @@ import java.util.Optional;
 @RequestMapping("services/arete/api/v2/exercise")
 public class ExerciseController {
 
+    private static final List<String> DEFAULT_WINDOWS = List.of("5m", "1h", "24h");
+
     private final Logger LOG = LoggerFactory.getLogger(this.getClass());
 
     private final CacheService cacheService;
+    private final ResponseCacheService responseCacheService;
     private final AreteService areteService;
+    private final LatencyService latencyService;
+    private final UnitTestStatisticService unitTestStatisticService;
     private final AuthenticationManager authenticationManager; // dont delete <- this bean is used here for authentication
 
-    public ExerciseController(CacheService cacheService, AreteService areteService, AuthenticationManager authenticationManager) {
+    public ExerciseController(CacheService cacheService,
+                              ResponseCacheService responseCacheService,
+                              AreteService areteService,
+                              LatencyService latencyService,
+                              UnitTestStatisticService unitTestStatisticService,
+                              AuthenticationManager authenticationManager) {
         this.cacheService = cacheService;
+        this.responseCacheService = responseCacheService;
         this.areteService = areteService;
+        this.latencyService = latencyService;
+        this.unitTestStatisticService = unitTestStatisticService;
         this.authenticationManager = authenticationManager;
     }
 
 
-    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns all exercises", tags = {"exercise"})
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns exercises, a page of limit exercises with ids after the after id if given, only the given fields and id if fields are given, 304 if If-None-Match has the current ETag", tags = {"exercise"},
+            responses = @ApiResponse(responseCode = "200", content = @Content(array = @ArraySchema(schema = @Schema(implementation = Slug.class)))))
     @ResponseStatus(HttpStatus.OK)
     @GetMapping(path = "/all")
-    public Collection<Slug> getSlugs() {
-        return cacheService.getSlugList();
+    public ResponseEntity<byte[]> getSlugs(@RequestParam(name = "after", required = false) Integer after,
+                                           @RequestParam(name = "limit", required = false) Integer limit,
+                                           @RequestParam(name = "fields", required = false) List<String> fields,
+                                           WebRequest request) {
+        if (after == null && limit == null && fields == null) {
+            return responseCacheService.respond("exercise/all", cacheService.getSlugVersion(), cacheService::getSlugList, request);
+        }
+        if (limit != null && limit < 1) {
+            throw new InvalidParameterException("Expected a positive limit");
+        }
+        List<Slug> slugs = cacheService.getSlugPage(after, limit == null ? Integer.MAX_VALUE : limit);
+        return responseCacheService.respondPage(slugs, Slug.class, limit, slug -> slug.getId().toString(), fields, List.of("id"), request);
     }
 
     @SneakyThrows
@@ -65,6 +103,91 @@ public class ExerciseController {
         }
     }
 
+    @SneakyThrows
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns submissions and pass rate of exercise by id in the last minutes or hours, windows default to 5m, 1h and 24h", tags = {"exercise"})
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(path = "/{id}/recent")
+    public List<WindowStatisticsDTO> getSlugRecent(@PathVariable("id") Integer id,
+                                                   @RequestParam(name = "window", required = false) List<String> windows) {
+        try {
+            LOG.info("Reading recent statistics of slug by id {}", id);
+            Optional<Slug> slugOptional = cacheService.getSlug(id);
+            assert slugOptional.isPresent();
+            return cacheService.getWindowStatistics(slugOptional.get().getRecent(), windows == null ? DEFAULT_WINDOWS : windows);
+        } catch (AssertionError e) {
+            throw new NotFoundException("Selected item was not found.");
+        }
+    }
+
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns the exercises the tester spent the most time on with their job and slowest test latencies", tags = {"exercise"})
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(path = "/latency")
+    public List<ExerciseLatencyDTO> getSlowestExercises(@RequestParam(name = "limit", defaultValue = "10") Integer limit,
+                                                        @RequestParam(name = "tests", defaultValue = "5") Integer tests) {
+        if (limit < 1 || tests < 1) {
+            throw new InvalidParameterException("Expected limit and tests to be positive");
+        }
+        return latencyService.getSlowestExercises(limit, tests);
+    }
+
+    @SneakyThrows
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns p50, p95 and p99 job latency of exercise by id and its slowest tests", tags = {"exercise"})
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(path = "/{id}/latency")
+    public ExerciseLatencyDTO getExerciseLatency(@PathVariable("id") Integer id,
+                                                 @RequestParam(name = "tests", defaultValue = "10") Integer tests) {
+        if (tests < 1) {
+            throw new InvalidParameterException("Expected tests to be positive");
+        }
+        try {
+            LOG.info("Reading latency of exercise by id {}", id);
+            Optional<ExerciseLatencyDTO> latencyOptional = latencyService.getExerciseLatency(id, tests);
+            assert latencyOptional.isPresent();
+            return latencyOptional.get();
+        } catch (AssertionError e) {
+            throw new NotFoundException("Selected item was not found.");
+        }
+    }
+
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns the unit tests of exercise by id that fail the most with pass rates and exception classes", tags = {"exercise"})
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(path = "/{id}/tests")
+    public List<UnitTestStatisticsDTO> getFailingTests(@PathVariable("id") Integer id,
+                                                       @RequestParam(name = "limit", defaultValue = "10") Integer limit) {
+        if (limit < 1) {
+            throw new InvalidParameterException("Expected a positive limit");
+        }
+        LOG.info("Reading failing tests of exercise by id {}", id);
+        return unitTestStatisticService.getFailingTests(id, limit);
+    }
+
+    @SneakyThrows
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns the best students of exercise by id by tests_passed, diagnostic_errors or commits", tags = {"exercise"})
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(path = "/{id}/leaderboard")
+    public List<Leaderboard.Entry> getSlugLeaderboard(@PathVariable("id") Integer id,
+                                                      @RequestParam(name = "metric", defaultValue = "tests_passed") String metric,
+                                                      @RequestParam(name = "limit", defaultValue = "10") Integer limit) {
+        Leaderboard.Metric leaderboardMetric;
+        try {
+            leaderboardMetric = Leaderboard.Metric.valueOf(metric.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParameterException("Expected metric to be one of tests_passed, diagnostic_errors or commits");
+        }
+        if (limit < 1) {
+            throw new InvalidParameterException("Expected a positive limit");
+        }
+
+        try {
+            LOG.info("Reading leaderboard of exercise by id {}", id);
+            Optional<Slug> slugOptional = cacheService.getSlug(id);
+            assert slugOptional.isPresent();
+            return slugOptional.get().getLeaders().top(leaderboardMetric, limit);
+        } catch (AssertionError e) {
+            throw new NotFoundException("Selected item was not found.");
+        }
+    }
+
     @Operation(
             parameters = {@Parameter(in = ParameterIn.HEADER, name = "X-Gitlab-Token",
                     description = "gitlab token with structure: s\"{name} {password}\"")},
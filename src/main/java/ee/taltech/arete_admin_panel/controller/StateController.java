@@ -1,7 +1,11 @@
 package ee.taltech.arete_admin_panel.controller;
 
 import ee.taltech.arete.java.response.arete.SystemStateDTO;
+import ee.taltech.arete_admin_panel.pojo.abi.cache.CacheStatisticsDTO;
 import ee.taltech.arete_admin_panel.service.AreteService;
+import ee.taltech.arete_admin_panel.service.CacheService;
+import ee.taltech.arete_admin_panel.service.ClusterService;
+import ee.taltech.arete_admin_panel.service.LiveFeedService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeIn;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
@@ -11,11 +15,16 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
 
 @SecurityScheme(name = "Authorization", type = SecuritySchemeType.APIKEY, in = SecuritySchemeIn.HEADER)
 @Tag(name = "state", description = "server status")
@@ -26,11 +35,21 @@ public class StateController {
     private final Logger LOG = LoggerFactory.getLogger(this.getClass());
 
     private final AreteService areteService;
+    private final CacheService cacheService;
+    private final ClusterService clusterService;
+    private final LiveFeedService liveFeedService;
     private final AuthenticationManager authenticationManager; // dont delete <- this bean is used here for authentication
 
 
-    public StateController(AreteService areteService, AuthenticationManager authenticationManager) {
+    public StateController(AreteService areteService,
+                           CacheService cacheService,
+                           ClusterService clusterService,
+                           LiveFeedService liveFeedService,
+                           AuthenticationManager authenticationManager) {
         this.areteService = areteService;
+        this.cacheService = cacheService;
+        this.clusterService = clusterService;
+        this.liveFeedService = liveFeedService;
         this.authenticationManager = authenticationManager;
     }
 
@@ -50,4 +69,25 @@ public class StateController {
         return areteService.getTesterState();
     }
 
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Return cache statistics", tags = {"state"})
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/cache")
+    public Map<String, CacheStatisticsDTO> getCacheState() {
+        return cacheService.getCacheStatistics();
+    }
+
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Return the live cluster nodes by node id with their urls", tags = {"state"})
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/cluster")
+    public Map<String, String> getClusterState() {
+        return clusterService.getNodes();
+    }
+
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Stream new submissions and changed students, courses and slugs as server-sent events, optionally of one course git url and slug", tags = {"state"})
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getFeed(@RequestParam(required = false) String course, @RequestParam(required = false) String slug) {
+        return liveFeedService.subscribe(course, slug);
+    }
+
 }
@@ -1,10 +1,17 @@
 package ee.taltech.arete_admin_panel.controller;
 
 import ee.taltech.arete_admin_panel.domain.Student;
+import ee.taltech.arete_admin_panel.exception.InvalidParameterException;
+import ee.taltech.arete_admin_panel.pojo.abi.student.StudentActivityDTO;
 import ee.taltech.arete_admin_panel.service.CacheService;
+import ee.taltech.arete_admin_panel.service.ResponseCacheService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeIn;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -13,10 +20,12 @@ import lombok.SneakyThrows;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @SecurityScheme(name = "Authorization", type = SecuritySchemeType.APIKEY, in = SecuritySchemeIn.HEADER)
@@ -25,23 +34,38 @@ import java.util.Optional;
 @RequestMapping("services/arete/api/v2/student")
 public class StudentController {
 
+    private static final int MAX_BUCKETS = 10000;
+
     private final Logger LOG = LoggerFactory.getLogger(this.getClass());
 
     private final CacheService cacheService;
+    private final ResponseCacheService responseCacheService;
     private final AuthenticationManager authenticationManager; // dont delete <- this bean is used here for authentication
 
-    public StudentController(AuthenticationManager authenticationManager, CacheService cacheService) {
+    public StudentController(AuthenticationManager authenticationManager, CacheService cacheService, ResponseCacheService responseCacheService) {
         this.authenticationManager = authenticationManager;
         this.cacheService = cacheService;
+        this.responseCacheService = responseCacheService;
     }
 
 
     @SneakyThrows
-    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns all cached students", tags = {"student"})
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns cached students, a page of limit students with ids after the after id if given, only the given fields and id if fields are given, 304 if If-None-Match has the current ETag", tags = {"student"},
+            responses = @ApiResponse(responseCode = "200", content = @Content(array = @ArraySchema(schema = @Schema(implementation = Student.class)))))
     @ResponseStatus(HttpStatus.OK)
     @GetMapping(path = "/all")
-    public Collection<Student> getStudents() {
-        return cacheService.getStudentList();
+    public ResponseEntity<byte[]> getStudents(@RequestParam(name = "after", required = false) Integer after,
+                                              @RequestParam(name = "limit", required = false) Integer limit,
+                                              @RequestParam(name = "fields", required = false) List<String> fields,
+                                              WebRequest request) {
+        if (after == null && limit == null && fields == null) {
+            return responseCacheService.respond("student/all", cacheService.getStudentVersion(), cacheService::getStudentList, request);
+        }
+        if (limit != null && limit < 1) {
+            throw new InvalidParameterException("Expected a positive limit");
+        }
+        List<Student> students = cacheService.getStudentPage(after, limit == null ? Integer.MAX_VALUE : limit);
+        return responseCacheService.respondPage(students, Student.class, limit, student -> student.getId().toString(), fields, List.of("id"), request);
     }
 
     @SneakyThrows
@@ -58,4 +82,40 @@ public class StudentController {
             throw new NotFoundException("Selected item was not found.");
         }
     }
+
+    @SneakyThrows
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns the number of submissions of student with id in a time range, optionally bucketed into a histogram", tags = {"student"})
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(path = "/{id}/activity")
+    public StudentActivityDTO getStudentActivity(@PathVariable("id") Integer id,
+                                                 @RequestParam(name = "from", required = false) Long from,
+                                                 @RequestParam(name = "to", required = false) Long to,
+                                                 @RequestParam(name = "bucket", required = false) Long bucket) {
+        Student student;
+        try {
+            LOG.info("Reading student activity by id {}", id);
+            Optional<Student> studentOptional = cacheService.getStudent(id);
+            assert studentOptional.isPresent();
+            student = studentOptional.get();
+        } catch (AssertionError e) {
+            throw new NotFoundException("Selected item was not found.");
+        }
+
+        long start = from == null ? student.getFirstTested() : from;
+        long end = to == null ? student.getLastTested() + 1 : to;
+        if (end <= start) {
+            throw new InvalidParameterException("Expected from to be before to");
+        }
+        if (bucket != null && (bucket <= 0 || (end - start) / bucket >= MAX_BUCKETS)) {
+            throw new InvalidParameterException("Expected a positive bucket of at most " + MAX_BUCKETS + " buckets in range");
+        }
+
+        return StudentActivityDTO.builder()
+                .from(start)
+                .to(end)
+                .total(student.getTimestamps().count(start, end))
+                .bucket(bucket)
+                .histogram(bucket == null ? null : student.getTimestamps().histogram(start, end, bucket))
+                .build();
+    }
 }
@@ -4,17 +4,30 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import ee.taltech.arete.java.request.AreteRequestDTO;
 import ee.taltech.arete.java.request.hook.AreteTestUpdateDTO;
 import ee.taltech.arete.java.response.arete.AreteResponseDTO;
-import ee.taltech.arete_admin_panel.domain.Job;
+import ee.taltech.arete_admin_panel.algorithms.SubmissionIndex;
+import ee.taltech.arete_admin_panel.domain.Error;
 import ee.taltech.arete_admin_panel.domain.Submission;
-import ee.taltech.arete_admin_panel.repository.JobRepository;
+import ee.taltech.arete_admin_panel.domain.TestContext;
+import ee.taltech.arete_admin_panel.exception.InvalidParameterException;
+import ee.taltech.arete_admin_panel.exception.JobNotFoundException;
+import ee.taltech.arete_admin_panel.pojo.abi.job.JobSearchHitDTO;
+import ee.taltech.arete_admin_panel.pojo.abi.job.JobSummaryDTO;
 import ee.taltech.arete_admin_panel.service.AreteService;
 import ee.taltech.arete_admin_panel.service.CacheService;
+import ee.taltech.arete_admin_panel.service.JobExportService;
+import ee.taltech.arete_admin_panel.service.JobSearchService;
+import ee.taltech.arete_admin_panel.service.JobService;
+import ee.taltech.arete_admin_panel.service.ResponseCacheService;
 import io.swagger.v3.oas.annotations.ExternalDocumentation;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeIn;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -22,11 +35,21 @@ import lombok.SneakyThrows;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Collection;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 @SecurityScheme(name = "X-Testing-Token", type = SecuritySchemeType.APIKEY, in = SecuritySchemeIn.HEADER)
 @SecurityScheme(name = "Authorization", type = SecuritySchemeType.APIKEY, in = SecuritySchemeIn.HEADER)
@@ -35,40 +58,232 @@ import java.util.Collection;
 @RequestMapping("services/arete/api/v2/submission")
 public class SubmissionController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final Logger LOG = LoggerFactory.getLogger(this.getClass());
 
     private final ObjectMapper objectMapper;
     private final CacheService cacheService;
+    private final ResponseCacheService responseCacheService;
     private final AreteService areteService;
-    private final JobRepository jobRepository;
+    private final JobService jobService;
+    private final JobExportService jobExportService;
+    private final JobSearchService jobSearchService;
     private final AuthenticationManager authenticationManager; // dont delete <- this bean is used here for authentication
 
 
     public SubmissionController(ObjectMapper objectMapper,
                                 CacheService cacheService,
+                                ResponseCacheService responseCacheService,
                                 AreteService areteService,
-                                JobRepository jobRepository,
+                                JobService jobService,
+                                JobExportService jobExportService,
+                                JobSearchService jobSearchService,
                                 AuthenticationManager authenticationManager) {
         this.objectMapper = objectMapper;
         this.cacheService = cacheService;
+        this.responseCacheService = responseCacheService;
         this.areteService = areteService;
-        this.jobRepository = jobRepository;
+        this.jobService = jobService;
+        this.jobExportService = jobExportService;
+        this.jobSearchService = jobSearchService;
         this.authenticationManager = authenticationManager;
     }
 
-    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns all cached submissions", tags = {"submission"})
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns cached submissions, optionally filtered and sorted by timestamp (sort=timestamp or sort=-timestamp), after the after cursor (timestamp:id) of the Link header if given, only the given fields, id and timestamp if fields are given, 304 if If-None-Match has the current ETag", tags = {"submission"},
+            responses = @ApiResponse(responseCode = "200", content = @Content(array = @ArraySchema(schema = @Schema(implementation = Submission.class)))))
     @ResponseStatus(HttpStatus.OK)
     @GetMapping(path = "/all")
-    public Collection<Submission> getSubmissions() {
-        return cacheService.getSubmissionList();
+    public ResponseEntity<byte[]> getSubmissions(@RequestParam(name = "uniid", required = false) String uniid,
+                                                 @RequestParam(name = "slug", required = false) String slug,
+                                                 @RequestParam(name = "course", required = false) String course,
+                                                 @RequestParam(name = "failed", required = false) Boolean failed,
+                                                 @RequestParam(name = "sort", required = false) String sort,
+                                                 @RequestParam(name = "limit", required = false) Integer limit,
+                                                 @RequestParam(name = "after", required = false) String after,
+                                                 @RequestParam(name = "fields", required = false) List<String> fields,
+                                                 WebRequest request) {
+        Map<SubmissionIndex.Field, String> filters = filters(uniid, slug, course, failed);
+        if (filters.isEmpty() && sort == null && limit == null && after == null && fields == null) {
+            return responseCacheService.respond("submission/all", cacheService.getSubmissionVersion(), cacheService::getSubmissionList, request);
+        }
+        if (sort != null && !sort.equals("timestamp") && !sort.equals("-timestamp")) {
+            throw new InvalidParameterException("Expected sort to be timestamp or -timestamp");
+        }
+        if (limit != null && limit < 1) {
+            throw new InvalidParameterException("Expected a positive limit");
+        }
+        SubmissionIndex.Cursor cursor;
+        try {
+            cursor = after == null ? null : SubmissionIndex.Cursor.parse(after);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParameterException("Expected after to be a cursor of the form timestamp:id");
+        }
+        List<Submission> submissions = cacheService.querySubmissions(filters, "timestamp".equals(sort), cursor, limit == null ? Integer.MAX_VALUE : limit);
+        return responseCacheService.respondPage(submissions, Submission.class, limit, submission -> SubmissionIndex.Cursor.of(submission).toString(),
+                fields, List.of("id", "timestamp"), request);
+    }
+
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns the number of cached submissions per uniid, slug, course or failed, optionally filtered", tags = {"submission"})
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(path = "/groups")
+    public Map<String, Long> getSubmissionGroups(@RequestParam(name = "groupBy") String groupBy,
+                                                 @RequestParam(name = "uniid", required = false) String uniid,
+                                                 @RequestParam(name = "slug", required = false) String slug,
+                                                 @RequestParam(name = "course", required = false) String course,
+                                                 @RequestParam(name = "failed", required = false) Boolean failed) {
+        SubmissionIndex.Field field;
+        try {
+            field = SubmissionIndex.Field.valueOf(groupBy.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParameterException("Expected groupBy to be one of uniid, slug, course or failed");
+        }
+        return cacheService.countSubmissions(filters(uniid, slug, course, failed), field);
+    }
+
+    private static Map<SubmissionIndex.Field, String> filters(String uniid, String slug, String course, Boolean failed) {
+        Map<SubmissionIndex.Field, String> filters = new EnumMap<>(SubmissionIndex.Field.class);
+        if (uniid != null) {
+            filters.put(SubmissionIndex.Field.UNIID, uniid);
+        }
+        if (slug != null) {
+            filters.put(SubmissionIndex.Field.SLUG, slug);
+        }
+        if (course != null) {
+            filters.put(SubmissionIndex.Field.COURSE, course);
+        }
+        if (failed != null) {
+            filters.put(SubmissionIndex.Field.FAILED, failed.toString());
+        }
+        return filters;
+    }
+
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Streams the jobs of a course, of one exercise if slug is given, with timestamps from inclusive to exclusive as newline delimited JSON, gzip compressed if accepted", tags = {"submission"})
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(path = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportJobs(@RequestParam(name = "course") String course,
+                                                            @RequestParam(name = "slug", required = false) String slug,
+                                                            @RequestParam(name = "from", defaultValue = "0") Long from,
+                                                            @RequestParam(name = "to", required = false) Long to,
+                                                            WebRequest request) {
+        long end = to == null ? Long.MAX_VALUE : to;
+        if (end <= from) {
+            throw new InvalidParameterException("Expected from to be before to");
+        }
+
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!gzip) {
+            return response.body(out -> jobExportService.export(course, slug, from, end, out));
+        }
+        return response
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(out -> {
+                    GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+                    jobExportService.export(course, slug, from, end, compressed);
+                    compressed.finish();
+                });
     }
 
-    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns a submission by hash", tags = {"submission"})
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns jobs whose output, an error message or a unit test exception contains all words of q, newest first, optionally of a course and slug with timestamps from inclusive to exclusive, after the after cursor (timestamp:id) of the Link header if given, only the given fields, id and timestamp if fields are given", tags = {"submission"},
+            responses = @ApiResponse(responseCode = "200", content = @Content(array = @ArraySchema(schema = @Schema(implementation = JobSearchHitDTO.class)))))
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(path = "/search")
+    public ResponseEntity<byte[]> searchJobs(@RequestParam(name = "q") String q,
+                                             @RequestParam(name = "course", required = false) String course,
+                                             @RequestParam(name = "slug", required = false) String slug,
+                                             @RequestParam(name = "from", defaultValue = "0") Long from,
+                                             @RequestParam(name = "to", required = false) Long to,
+                                             @RequestParam(name = "limit", defaultValue = "100") Integer limit,
+                                             @RequestParam(name = "after", required = false) String after,
+                                             @RequestParam(name = "fields", required = false) List<String> fields,
+                                             WebRequest request) {
+        List<String> terms = JobSearchService.terms(q);
+        if (terms.isEmpty()) {
+            throw new InvalidParameterException("Expected q to contain a word");
+        }
+        long end = to == null ? Long.MAX_VALUE : to;
+        if (end <= from) {
+            throw new InvalidParameterException("Expected from to be before to");
+        }
+        if (limit < 1 || limit > JobSearchService.MAX_LIMIT) {
+            throw new InvalidParameterException("Expected a limit from 1 to " + JobSearchService.MAX_LIMIT);
+        }
+        SubmissionIndex.Cursor cursor;
+        try {
+            cursor = after == null ? null : SubmissionIndex.Cursor.parse(after);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParameterException("Expected after to be a cursor of the form timestamp:id");
+        }
+        List<JobSearchHitDTO> hits = jobSearchService.search(terms, course, slug, from, end, cursor, limit);
+        return responseCacheService.respondPage(hits, JobSearchHitDTO.class, limit, hit -> SubmissionIndex.Cursor.of(hit.getTimestamp(), hit.getId()).toString(),
+                fields, List.of("id", "timestamp"), request);
+    }
+
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns the summary of a submission by hash, without outputs, suites and errors", tags = {"submission"})
     @ResponseStatus(HttpStatus.OK)
     @GetMapping(path = "/{hash}/{timestamp}")
-    public Job getSubmission(@PathVariable("hash") String hash, @PathVariable("timestamp") Long timestamp) {
+    public JobSummaryDTO getSubmission(@PathVariable("hash") String hash, @PathVariable("timestamp") Long timestamp) {
         LOG.info("Reading submission by hash {} and timestamp {}", hash, timestamp);
-        return jobRepository.findByHashAndTimestamp(hash, timestamp);
+        return getSummary(hash, timestamp);
+    }
+
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns the test suites with unit tests of a submission by hash", tags = {"submission"})
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(path = "/{hash}/{timestamp}/suites")
+    public List<TestContext> getSubmissionSuites(@PathVariable("hash") String hash, @PathVariable("timestamp") Long timestamp) {
+        LOG.info("Reading test suites of submission by hash {} and timestamp {}", hash, timestamp);
+        return jobService.getTestSuites(getSummary(hash, timestamp));
+    }
+
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Returns the errors of a submission by hash", tags = {"submission"})
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(path = "/{hash}/{timestamp}/errors")
+    public List<Error> getSubmissionErrors(@PathVariable("hash") String hash, @PathVariable("timestamp") Long timestamp) {
+        LOG.info("Reading errors of submission by hash {} and timestamp {}", hash, timestamp);
+        return jobService.getErrors(getSummary(hash, timestamp));
+    }
+
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Streams the output of a submission by hash, a part if Range: chars=first-last is given, 416 for ranges in other units", tags = {"submission"})
+    @GetMapping(path = "/{hash}/{timestamp}/output")
+    public ResponseEntity<StreamingResponseBody> getSubmissionOutput(@PathVariable("hash") String hash, @PathVariable("timestamp") Long timestamp, WebRequest request) {
+        LOG.info("Reading output of submission by hash {} and timestamp {}", hash, timestamp);
+        return output(getSummary(hash, timestamp), JobService.Output.OUTPUT, request);
+    }
+
+    @Operation(security = {@SecurityRequirement(name = "Authorization")}, summary = "Streams the console output of a submission by hash, a part if Range: chars=first-last is given, 416 for ranges in other units", tags = {"submission"})
+    @GetMapping(path = "/{hash}/{timestamp}/console")
+    public ResponseEntity<StreamingResponseBody> getSubmissionConsole(@PathVariable("hash") String hash, @PathVariable("timestamp") Long timestamp, WebRequest request) {
+        LOG.info("Reading console output of submission by hash {} and timestamp {}", hash, timestamp);
+        return output(getSummary(hash, timestamp), JobService.Output.CONSOLE, request);
+    }
+
+    private JobSummaryDTO getSummary(String hash, Long timestamp) {
+        return jobService.getSummary(hash, timestamp)
+                .orElseThrow(() -> new JobNotFoundException("Selected item was not found."));
+    }
+
+    private ResponseEntity<StreamingResponseBody> output(JobSummaryDTO job, JobService.Output output, WebRequest request) {
+        long length = output.length(job);
+        Optional<JobService.Range> range = JobService.Range.parse(request.getHeader(HttpHeaders.RANGE), length);
+        if (range.isPresent() && !range.get().isSatisfiable(length)) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, JobService.Range.UNIT + " */" + length)
+                    .build();
+        }
+
+        long start = range.map(JobService.Range::getStart).orElse(0L);
+        long end = range.map(JobService.Range::getEnd).orElse(length);
+        ResponseEntity.BodyBuilder response = range.isPresent()
+                ? ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).header(HttpHeaders.CONTENT_RANGE, range.get().contentRange(length))
+                : ResponseEntity.ok();
+        return response
+                .header(HttpHeaders.ACCEPT_RANGES, JobService.Range.UNIT)
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(out -> jobService.writeOutput(job, output, start, end, out));
     }
 
     @SneakyThrows
@@ -0,0 +1,48 @@
+package ee.taltech.arete_admin_panel.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "aggregate_member",
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"kind", "ownerId", "studentId"})},
+        indexes = {@Index(columnList = "kind, studentId")})
+public class AggregateMember {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    private InternedKey.Kind kind; // COURSE or SLUG
+
+    @NotNull
+    private Integer ownerId;
+
+    @NotNull
+    @Column(length = 2047)
+    private String ownerName; // course url or slug name
+
+    @NotNull
+    private Integer studentId;
+
+    @NotNull
+    private String uniid;
+
+    // what the student submitted to the course or slug, ranks the leaderboard, null until backfilled after an upgrade
+    private Long commits;
+
+    private Long testsPassed;
+
+    private Long diagnosticErrors;
+}
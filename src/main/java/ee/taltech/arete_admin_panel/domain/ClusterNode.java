@@ -0,0 +1,29 @@
+package ee.taltech.arete_admin_panel.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "cluster_node")
+public class ClusterNode {
+
+    @Id
+    private String nodeId;
+
+    @NotNull
+    private String url;
+
+    @NotNull
+    private Long heartbeat; // epoch millis of the last heartbeat
+}
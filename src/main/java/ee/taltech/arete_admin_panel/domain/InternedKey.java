@@ -0,0 +1,34 @@
+package ee.taltech.arete_admin_panel.domain;
+
+import lombok.*;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "interned_key", uniqueConstraints = {@UniqueConstraint(columnNames = {"kind", "value"}), @UniqueConstraint(columnNames = {"kind", "keyId"})})
+public class InternedKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    private Kind kind;
+
+    @NotNull
+    @Column(length = 2047)
+    private String value;
+
+    @NotNull
+    private Integer keyId; // dense per kind, used as cache key and public id
+
+    public enum Kind {
+        STUDENT, COURSE, SLUG
+    }
+}
@@ -13,7 +13,7 @@ import java.util.Set;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "job")
+@Table(name = "job", indexes = {@Index(columnList = "hash, timestamp"), @Index(columnList = "gitTestRepo, timestamp")})
 public class Job {
 
     @Id
@@ -48,10 +48,18 @@ public class Job {
 
     private String commitMessage;
 
+    // job(id) is not unique once job is partitioned by timestamp, so the join and collection tables have no foreign key
+    // to it. JobPartitionService deletes their rows together with a dropped partition.
     @OneToMany(cascade = {CascadeType.ALL})
+    @JoinTable(name = "job_test_suites",
+            joinColumns = @JoinColumn(name = "job_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT)),
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private List<TestContext> testSuites;
 
     @OneToMany(cascade = {CascadeType.ALL})
+    @JoinTable(name = "job_errors",
+            joinColumns = @JoinColumn(name = "job_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT)),
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private List<Error> errors;
 
     private String dockerExtra;
@@ -61,7 +69,7 @@ public class Job {
     private String dockerContentRoot;
 
     @ElementCollection
-    @CollectionTable(name = "system_extra", joinColumns = @JoinColumn(name = "id"))
+    @CollectionTable(name = "system_extra", joinColumns = @JoinColumn(name = "id"), foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Set<String> systemExtra;
 
     private Integer dockerTimeout;
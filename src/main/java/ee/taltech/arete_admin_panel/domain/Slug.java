@@ -1,15 +1,19 @@
 package ee.taltech.arete_admin_panel.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import ee.taltech.arete_admin_panel.algorithms.DistinctCounter;
+import ee.taltech.arete_admin_panel.algorithms.Leaderboard;
+import ee.taltech.arete_admin_panel.algorithms.RollingWindow;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.NotNull;
-import java.util.HashSet;
+import java.util.concurrent.atomic.LongAdder;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
 public class Slug {
@@ -25,30 +29,57 @@ public class Slug {
 
     @NotNull
     @Builder.Default
-    private Integer totalCommits = 0;
+    private LongAdder totalCommits = new LongAdder();
 
     @NotNull
     @Builder.Default
-    private Integer totalTestsRan = 0;
+    private LongAdder totalTestsRan = new LongAdder();
 
     @NotNull
     @Builder.Default
-    private Integer totalTestsPassed = 0;
+    private LongAdder totalTestsPassed = new LongAdder();
 
     @NotNull
     @Builder.Default
-    private Integer totalDiagnosticErrors = 0;
+    private LongAdder totalDiagnosticErrors = new LongAdder();
 
     @NotNull
     @Builder.Default
     private Integer differentStudents = 0;
 
     @NotNull
+    @JsonIgnore
     @Builder.Default
-    private HashSet<String> students = new HashSet<>();
+    private DistinctCounter students = new DistinctCounter(); // only backs differentStudents
 
     @NotNull
     @Builder.Default
-    private Integer commitsStyleOK = 0;
+    private LongAdder commitsStyleOK = new LongAdder();
 
+    @JsonIgnore
+    @Builder.Default
+    private RollingWindow recent = new RollingWindow(); // last 24 hours, queried through the window parameter
+
+    @JsonIgnore
+    @Builder.Default
+    private Leaderboard leaders = new Leaderboard(); // best students, queried through the leaderboard endpoint
+
+    /**
+     * A copy for readers with the counters frozen. The thread safe students, window and leaderboard are shared.
+     */
+    public Slug copy() {
+        return toBuilder()
+                .totalCommits(frozen(totalCommits))
+                .totalTestsRan(frozen(totalTestsRan))
+                .totalTestsPassed(frozen(totalTestsPassed))
+                .totalDiagnosticErrors(frozen(totalDiagnosticErrors))
+                .commitsStyleOK(frozen(commitsStyleOK))
+                .build();
+    }
+
+    private static LongAdder frozen(LongAdder counter) {
+        LongAdder copy = new LongAdder();
+        copy.add(counter.sum());
+        return copy;
+    }
 }
@@ -0,0 +1,49 @@
+package ee.taltech.arete_admin_panel.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "slug_aggregate")
+public class SlugAggregate {
+
+    @Id
+    private Integer id; // interned key id
+
+    @NotNull
+    private String name;
+
+    @NotNull
+    private String courseUrl;
+
+    @NotNull
+    @Builder.Default
+    private Long totalCommits = 0L;
+
+    @NotNull
+    @Builder.Default
+    private Long totalTestsRan = 0L;
+
+    @NotNull
+    @Builder.Default
+    private Long totalTestsPassed = 0L;
+
+    @NotNull
+    @Builder.Default
+    private Long totalDiagnosticErrors = 0L;
+
+    @NotNull
+    @Builder.Default
+    private Long commitsStyleOK = 0L;
+}
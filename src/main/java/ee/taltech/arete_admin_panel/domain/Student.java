@@ -1,5 +1,8 @@
 package ee.taltech.arete_admin_panel.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import ee.taltech.arete_admin_panel.algorithms.Leaderboard;
+import ee.taltech.arete_admin_panel.algorithms.TimestampSeries;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -7,11 +10,13 @@ import lombok.NoArgsConstructor;
 
 import javax.persistence.ElementCollection;
 import javax.validation.constraints.NotNull;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Student {
@@ -33,8 +38,9 @@ public class Student {
     private Long lastTested;
 
     @NotNull
+    @JsonIgnore
     @Builder.Default
-    private Set<Long> timestamps = new HashSet<>();
+    private TimestampSeries timestamps = new TimestampSeries(); // queried through /student/{id}/activity
 
     @NotNull
     @Builder.Default
@@ -45,6 +51,16 @@ public class Student {
     @ElementCollection
     private Set<String> slugs = new HashSet<>();
 
+    @NotNull
+    @JsonIgnore
+    @Builder.Default
+    private Map<Integer, Leaderboard.Scores> courseScores = new HashMap<>(); // by interned course id, tracks course membership
+
+    @NotNull
+    @JsonIgnore
+    @Builder.Default
+    private Map<Integer, Leaderboard.Scores> slugScores = new HashMap<>(); // by interned slug id, names alone are not unique
+
     @NotNull
     @Builder.Default
     private Integer totalCommits = 0;
@@ -73,4 +89,15 @@ public class Student {
     @Builder.Default
     private Integer commitsStyleOK = 0;
 
+    /**
+     * A copy for readers. The sets and maps are copied, the immutable scores and thread safe timestamps are shared.
+     */
+    public Student copy() {
+        return toBuilder()
+                .courses(new HashSet<>(courses))
+                .slugs(new HashSet<>(slugs))
+                .courseScores(new HashMap<>(courseScores))
+                .slugScores(new HashMap<>(slugScores))
+                .build();
+    }
 }
@@ -0,0 +1,52 @@
+package ee.taltech.arete_admin_panel.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "student_aggregate")
+public class StudentAggregate {
+
+    @Id
+    private Integer id; // interned key id
+
+    @NotNull
+    private String uniid;
+
+    private String gitRepo;
+
+    private Long firstTested;
+
+    private Long lastTested;
+
+    @NotNull
+    @Builder.Default
+    private Long totalCommits = 0L;
+
+    @NotNull
+    @Builder.Default
+    private Long totalTestsRan = 0L;
+
+    @NotNull
+    @Builder.Default
+    private Long totalTestsPassed = 0L;
+
+    @NotNull
+    @Builder.Default
+    private Long totalDiagnosticErrors = 0L;
+
+    @NotNull
+    @Builder.Default
+    private Long commitsStyleOK = 0L;
+}
@@ -1,5 +1,6 @@
 package ee.taltech.arete_admin_panel.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -55,4 +56,8 @@ public class Submission {
     @Builder.Default
     private Boolean failed = false;
 
+    @JsonIgnore
+    @Builder.Default
+    private Boolean aggregated = false; // set once the submission is part of the persisted aggregates
+
 }
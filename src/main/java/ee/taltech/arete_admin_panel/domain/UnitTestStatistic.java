@@ -0,0 +1,55 @@
+package ee.taltech.arete_admin_panel.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "unit_test_statistic",
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"slugId", "file", "name"})})
+public class UnitTestStatistic {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    private Integer slugId; // interned slug key
+
+    @NotNull
+    @Column(length = 1023)
+    private String file; // test suite name
+
+    @NotNull
+    @Column(length = 1023)
+    private String name;
+
+    @NotNull
+    @Builder.Default
+    private Long passed = 0L;
+
+    @NotNull
+    @Builder.Default
+    private Long failed = 0L;
+
+    @NotNull
+    @Builder.Default
+    private Long skipped = 0L;
+
+    @Builder.Default
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "unit_test_exception", joinColumns = @JoinColumn(name = "statistic_id"))
+    @MapKeyColumn(name = "exception_class", length = 1023)
+    @Column(name = "occurrences")
+    private Map<String, Long> exceptions = new HashMap<>();
+}
@@ -0,0 +1,19 @@
+package ee.taltech.arete_admin_panel.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class JobNotFoundException extends RuntimeException {
+    public JobNotFoundException() {
+        super();
+    }
+
+    public JobNotFoundException(String message) {
+        super(message);
+    }
+
+    public JobNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,42 @@
+package ee.taltech.arete_admin_panel.pojo.abi.feed;
+
+import ee.taltech.arete_admin_panel.domain.Course;
+import lombok.*;
+
+@Getter
+@Builder
+@AllArgsConstructor
+public class FeedCourseDTO {
+
+    private final Integer id;
+
+    private final String gitUrl;
+
+    private final String name;
+
+    private final long totalCommits;
+
+    private final long totalTestsRan;
+
+    private final long totalTestsPassed;
+
+    private final long totalDiagnosticErrors;
+
+    private final Integer differentStudents;
+
+    private final long commitsStyleOK;
+
+    public static FeedCourseDTO of(Course course) {
+        return FeedCourseDTO.builder()
+                .id(course.getId())
+                .gitUrl(course.getGitUrl())
+                .name(course.getName())
+                .totalCommits(course.getTotalCommits().sum())
+                .totalTestsRan(course.getTotalTestsRan().sum())
+                .totalTestsPassed(course.getTotalTestsPassed().sum())
+                .totalDiagnosticErrors(course.getTotalDiagnosticErrors().sum())
+                .differentStudents(course.getDifferentStudents())
+                .commitsStyleOK(course.getCommitsStyleOK().sum())
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package ee.taltech.arete_admin_panel.pojo.abi.feed;
+
+import ee.taltech.arete_admin_panel.domain.Slug;
+import lombok.*;
+
+@Getter
+@Builder
+@AllArgsConstructor
+public class FeedSlugDTO {
+
+    private final Integer id;
+
+    private final String name;
+
+    private final String courseUrl;
+
+    private final long totalCommits;
+
+    private final long totalTestsRan;
+
+    private final long totalTestsPassed;
+
+    private final long totalDiagnosticErrors;
+
+    private final Integer differentStudents;
+
+    private final long commitsStyleOK;
+
+    public static FeedSlugDTO of(Slug slug) {
+        return FeedSlugDTO.builder()
+                .id(slug.getId())
+                .name(slug.getName())
+                .courseUrl(slug.getCourseUrl())
+                .totalCommits(slug.getTotalCommits().sum())
+                .totalTestsRan(slug.getTotalTestsRan().sum())
+                .totalTestsPassed(slug.getTotalTestsPassed().sum())
+                .totalDiagnosticErrors(slug.getTotalDiagnosticErrors().sum())
+                .differentStudents(slug.getDifferentStudents())
+                .commitsStyleOK(slug.getCommitsStyleOK().sum())
+                .build();
+    }
+}
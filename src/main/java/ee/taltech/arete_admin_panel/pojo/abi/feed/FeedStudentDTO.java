@@ -0,0 +1,61 @@
+package ee.taltech.arete_admin_panel.pojo.abi.feed;
+
+import ee.taltech.arete_admin_panel.domain.Student;
+import lombok.*;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+@Getter
+@Builder
+@AllArgsConstructor
+public class FeedStudentDTO {
+
+    private final Integer id;
+
+    private final String uniid;
+
+    private final String gitRepo;
+
+    private final Long firstTested;
+
+    private final Long lastTested;
+
+    private final Set<String> courses; // unmodifiable copies
+
+    private final Set<String> slugs;
+
+    private final Integer totalCommits;
+
+    private final Integer totalTestsRan;
+
+    private final Integer totalTestsPassed;
+
+    private final Integer totalDiagnosticErrors;
+
+    private final Integer differentSlugs;
+
+    private final Integer differentCourses;
+
+    private final Integer commitsStyleOK;
+
+    public static FeedStudentDTO of(Student student) {
+        return FeedStudentDTO.builder()
+                .id(student.getId())
+                .uniid(student.getUniid())
+                .gitRepo(student.getGitRepo())
+                .firstTested(student.getFirstTested())
+                .lastTested(student.getLastTested())
+                .courses(Collections.unmodifiableSet(new HashSet<>(student.getCourses())))
+                .slugs(Collections.unmodifiableSet(new HashSet<>(student.getSlugs())))
+                .totalCommits(student.getTotalCommits())
+                .totalTestsRan(student.getTotalTestsRan())
+                .totalTestsPassed(student.getTotalTestsPassed())
+                .totalDiagnosticErrors(student.getTotalDiagnosticErrors())
+                .differentSlugs(student.getDifferentSlugs())
+                .differentCourses(student.getDifferentCourses())
+                .commitsStyleOK(student.getCommitsStyleOK())
+                .build();
+    }
+}
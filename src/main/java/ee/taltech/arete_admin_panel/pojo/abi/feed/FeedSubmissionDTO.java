@@ -0,0 +1,57 @@
+package ee.taltech.arete_admin_panel.pojo.abi.feed;
+
+import ee.taltech.arete_admin_panel.domain.Submission;
+import lombok.*;
+
+@Getter
+@Builder
+@AllArgsConstructor
+public class FeedSubmissionDTO {
+
+    private final Long id;
+
+    private final String testingPlatform;
+
+    private final String hash;
+
+    private final String slug;
+
+    private final String uniid;
+
+    private final String root;
+
+    private final String gitStudentRepo;
+
+    private final String gitTestSource;
+
+    private final Long timestamp;
+
+    private final Integer style;
+
+    private final Integer diagnosticErrors;
+
+    private final Integer testsPassed;
+
+    private final Integer testsRan;
+
+    private final Boolean failed;
+
+    public static FeedSubmissionDTO of(Submission submission) {
+        return FeedSubmissionDTO.builder()
+                .id(submission.getId())
+                .testingPlatform(submission.getTestingPlatform())
+                .hash(submission.getHash())
+                .slug(submission.getSlug())
+                .uniid(submission.getUniid())
+                .root(submission.getRoot())
+                .gitStudentRepo(submission.getGitStudentRepo())
+                .gitTestSource(submission.getGitTestSource())
+                .timestamp(submission.getTimestamp())
+                .style(submission.getStyle())
+                .diagnosticErrors(submission.getDiagnosticErrors())
+                .testsPassed(submission.getTestsPassed())
+                .testsRan(submission.getTestsRan())
+                .failed(submission.getFailed())
+                .build();
+    }
+}
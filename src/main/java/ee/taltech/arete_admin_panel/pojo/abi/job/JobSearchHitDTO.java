@@ -0,0 +1,25 @@
+package ee.taltech.arete_admin_panel.pojo.abi.job;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobSearchHitDTO {
+
+    private Long id;
+
+    private String hash;
+
+    private Long timestamp;
+
+    private String uniid;
+
+    private String slug;
+
+    private String gitTestRepo;
+
+    private Boolean failed;
+}
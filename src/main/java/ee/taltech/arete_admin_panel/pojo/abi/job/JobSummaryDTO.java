@@ -0,0 +1,95 @@
+package ee.taltech.arete_admin_panel.pojo.abi.job;
+
+import ee.taltech.arete_admin_panel.domain.Job;
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobSummaryDTO {
+
+    private Long id;
+
+    private String hash;
+
+    private Long timestamp;
+
+    private String uniid;
+
+    private String email;
+
+    private String slug;
+
+    private String root;
+
+    private String gitStudentRepo;
+
+    private String gitTestRepo;
+
+    private String commitMessage;
+
+    private String testingPlatform;
+
+    private String type;
+
+    private String version;
+
+    private Integer priority;
+
+    private Long receivedTimestamp;
+
+    private Long finishedTimestamp;
+
+    private Integer totalCount;
+
+    private Integer totalPassedCount;
+
+    private Integer style;
+
+    private Double totalGrade;
+
+    private Boolean failed;
+
+    private long outputLength; // characters, ranges of the output are read from the output sub resource
+
+    private long consoleOutputsLength;
+
+    private long testSuiteCount;
+
+    private long errorCount;
+
+    private boolean archived; // read from the job archive instead of the database
+
+    public static JobSummaryDTO of(Job job, boolean archived) {
+        return JobSummaryDTO.builder()
+                .id(job.getId())
+                .hash(job.getHash())
+                .timestamp(job.getTimestamp())
+                .uniid(job.getUniid())
+                .email(job.getEmail())
+                .slug(job.getSlug())
+                .root(job.getRoot())
+                .gitStudentRepo(job.getGitStudentRepo())
+                .gitTestRepo(job.getGitTestRepo())
+                .commitMessage(job.getCommitMessage())
+                .testingPlatform(job.getTestingPlatform())
+                .type(job.getType())
+                .version(job.getVersion())
+                .priority(job.getPriority())
+                .receivedTimestamp(job.getReceivedTimestamp())
+                .finishedTimestamp(job.getFinishedTimestamp())
+                .totalCount(job.getTotalCount())
+                .totalPassedCount(job.getTotalPassedCount())
+                .style(job.getStyle())
+                .totalGrade(job.getTotalGrade())
+                .failed(job.getFailed())
+                .outputLength(job.getOutput() == null ? 0 : job.getOutput().length())
+                .consoleOutputsLength(job.getConsoleOutputs() == null ? 0 : job.getConsoleOutputs().length())
+                .testSuiteCount(job.getTestSuites() == null ? 0 : job.getTestSuites().size())
+                .errorCount(job.getErrors() == null ? 0 : job.getErrors().size())
+                .archived(archived)
+                .build();
+    }
+}
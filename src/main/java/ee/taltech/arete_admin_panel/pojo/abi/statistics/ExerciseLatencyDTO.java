@@ -0,0 +1,21 @@
+package ee.taltech.arete_admin_panel.pojo.abi.statistics;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExerciseLatencyDTO {
+
+    private Integer id; // exercise id
+
+    private String courseUrl;
+
+    private LatencyDTO job; // from received by the tester to finished
+
+    private List<LatencyDTO> slowestTests; // by p95 of the unit test
+}
@@ -0,0 +1,41 @@
+package ee.taltech.arete_admin_panel.pojo.abi.statistics;
+
+import ee.taltech.arete_admin_panel.algorithms.LatencyHistogram;
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencyDTO {
+
+    private String name; // exercise or test name
+
+    private long count;
+
+    private long total; // milliseconds spent in total, what the tester capacity went to
+
+    private double mean;
+
+    private long p50;
+
+    private long p95;
+
+    private long p99;
+
+    private long max;
+
+    public static LatencyDTO of(String name, LatencyHistogram histogram) {
+        return LatencyDTO.builder()
+                .name(name)
+                .count(histogram.getCount())
+                .total(histogram.getTotal())
+                .mean(histogram.getMean())
+                .p50(histogram.percentile(50))
+                .p95(histogram.percentile(95))
+                .p99(histogram.percentile(99))
+                .max(histogram.getMax())
+                .build();
+    }
+}
@@ -0,0 +1,27 @@
+package ee.taltech.arete_admin_panel.pojo.abi.statistics;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UnitTestStatisticsDTO {
+
+    private String file;
+
+    private String name;
+
+    private long passed;
+
+    private long failed;
+
+    private long skipped;
+
+    private double passRate; // passed / (passed + failed), skipped tests are left out
+
+    private Map<String, Long> exceptions; // most frequent exception classes of failures
+}
@@ -0,0 +1,32 @@
+package ee.taltech.arete_admin_panel.pojo.abi.statistics;
+
+import ee.taltech.arete_admin_panel.algorithms.RollingWindow;
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WindowStatisticsDTO {
+
+    private String window; // as asked for, for example 5m
+
+    private long submissions;
+
+    private long testsRan;
+
+    private long testsPassed;
+
+    private double passRate; // testsPassed / testsRan, 0 without tests
+
+    public static WindowStatisticsDTO of(String window, RollingWindow.Totals totals) {
+        return WindowStatisticsDTO.builder()
+                .window(window)
+                .submissions(totals.submissions)
+                .testsRan(totals.testsRan)
+                .testsPassed(totals.testsPassed)
+                .passRate(totals.testsRan == 0 ? 0 : (double) totals.testsPassed / totals.testsRan)
+                .build();
+    }
+}
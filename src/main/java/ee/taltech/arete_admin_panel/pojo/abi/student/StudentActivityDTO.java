@@ -0,0 +1,21 @@
+package ee.taltech.arete_admin_panel.pojo.abi.student;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentActivityDTO {
+
+    private long from; // inclusive
+
+    private long to; // exclusive
+
+    private int total; // distinct submission timestamps in range
+
+    private Long bucket; // bucket width, null if no histogram was asked for
+
+    private int[] histogram;
+}
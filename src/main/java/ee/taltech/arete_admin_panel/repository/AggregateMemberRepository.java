@@ -0,0 +1,17 @@
+package ee.taltech.arete_admin_panel.repository;
+
+import ee.taltech.arete_admin_panel.domain.AggregateMember;
+import ee.taltech.arete_admin_panel.domain.InternedKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AggregateMemberRepository extends JpaRepository<AggregateMember, Long> {
+
+    List<AggregateMember> findByKindAndOwnerId(@Param("kind") InternedKey.Kind kind, @Param("ownerId") Integer ownerId);
+
+    List<AggregateMember> findByKindAndStudentId(@Param("kind") InternedKey.Kind kind, @Param("studentId") Integer studentId);
+}
@@ -0,0 +1,443 @@
+package ee.taltech.arete_admin_panel.repository;
+
+import ee.taltech.arete_admin_panel.algorithms.DistinctCounter;
+import ee.taltech.arete_admin_panel.algorithms.Leaderboard;
+import ee.taltech.arete_admin_panel.algorithms.TimestampSeries;
+import ee.taltech.arete_admin_panel.configuration.CacheProperties;
+import ee.taltech.arete_admin_panel.domain.Course;
+import ee.taltech.arete_admin_panel.domain.Slug;
+import ee.taltech.arete_admin_panel.domain.Student;
+import ee.taltech.arete_admin_panel.domain.Submission;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Repository;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of the cached students, courses, slugs and recent submissions. The body is streamed into the file
+ * as it is serialized and read back through a memory mapping, so neither side holds a copy of it on the heap.
+ * <p>
+ * Layout: {@code [int magic][int version][long body length][long crc32 of body][long aggregated submissions]
+ * [long last submission id]} followed by the body. A snapshot with a wrong magic, version, length or checksum is
+ * treated as missing.
+ */
+@Repository
+public class CacheSnapshotRepository {
+
+    private static final int MAGIC = 0x41524554; // ARET
+    private static final int VERSION = 6;
+    private static final int HEADER = 4 + 4 + 8 + 8 + 8 + 8;
+
+    private final Logger logger;
+    private final CacheProperties properties;
+
+    public CacheSnapshotRepository(Logger logger, CacheProperties properties) {
+        this.logger = logger;
+        this.properties = properties;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final long aggregatedSubmissions; // matches the database only if no flush happened since
+        private final long lastSubmissionId;
+        private final List<Student> students;
+        private final List<Course> courses;
+        private final List<Slug> slugs;
+        private final List<Submission> submissions;
+    }
+
+    public void save(Snapshot snapshot) throws IOException {
+        Path file = Paths.get(properties.getSnapshotFile()).toAbsolutePath();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        long length;
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // the body goes after the header, the file grows with it and the checksum is summed on the way
+            channel.position(HEADER);
+            CheckedOutputStream body = new CheckedOutputStream(Channels.newOutputStream(channel), new CRC32());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(body, 1 << 16));
+            writeList(out, snapshot.getStudents(), this::writeStudent);
+            writeList(out, snapshot.getCourses(), this::writeCourse);
+            writeList(out, snapshot.getSlugs(), this::writeSlug);
+            writeList(out, snapshot.getSubmissions(), this::writeSubmission);
+            out.flush();
+            length = channel.position() - HEADER;
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(length)
+                    .putLong(body.getChecksum().getValue())
+                    .putLong(snapshot.getAggregatedSubmissions())
+                    .putLong(snapshot.getLastSubmissionId())
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        logger.info("Wrote cache snapshot of {} bytes with {} students", HEADER + length, snapshot.getStudents().size());
+    }
+
+    public Optional<Snapshot> load() {
+        Path file = Paths.get(properties.getSnapshotFile());
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER) {
+                throw new IOException("truncated header");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("unknown format");
+            }
+            long length = buffer.getLong();
+            long checksum = buffer.getLong();
+            long aggregated = buffer.getLong();
+            long lastSubmissionId = buffer.getLong();
+            if (length != channel.size() - HEADER) {
+                throw new IOException("truncated body");
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if (crc.getValue() != checksum) {
+                throw new IOException("checksum mismatch");
+            }
+
+            try (DataInputStream in = new DataInputStream(new MappedInputStream(buffer))) {
+                return Optional.of(new Snapshot(aggregated, lastSubmissionId,
+                        readList(in, this::readStudent),
+                        readList(in, this::readCourse),
+                        readList(in, this::readSlug),
+                        readList(in, this::readSubmission)));
+            }
+        } catch (Exception e) {
+            logger.warn("Ignoring unreadable cache snapshot {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // students, courses and slugs
+
+    private void writeStudent(DataOutputStream out, Student student) throws IOException {
+        out.writeInt(student.getId());
+        writeString(out, student.getUniid());
+        writeString(out, student.getGitRepo());
+        writeLong(out, student.getFirstTested());
+        writeLong(out, student.getLastTested());
+        out.writeInt(student.getTotalCommits());
+        out.writeInt(student.getTotalTestsRan());
+        out.writeInt(student.getTotalTestsPassed());
+        out.writeInt(student.getTotalDiagnosticErrors());
+        out.writeInt(student.getCommitsStyleOK());
+        student.getTimestamps().writeTo(out);
+        writeStrings(out, student.getCourses());
+        writeStrings(out, student.getSlugs());
+        writeScores(out, student.getCourseScores());
+        writeScores(out, student.getSlugScores());
+    }
+
+    private Student readStudent(DataInputStream in) throws IOException {
+        Student student = Student.builder()
+                .id(in.readInt())
+                .uniid(readString(in))
+                .gitRepo(readString(in))
+                .firstTested(readLong(in))
+                .lastTested(readLong(in))
+                .totalCommits(in.readInt())
+                .totalTestsRan(in.readInt())
+                .totalTestsPassed(in.readInt())
+                .totalDiagnosticErrors(in.readInt())
+                .commitsStyleOK(in.readInt())
+                .build();
+        student.setTimestamps(TimestampSeries.readFrom(in));
+        student.setCourses(readStrings(in));
+        student.setSlugs(readStrings(in));
+        student.setCourseScores(readScores(in));
+        student.setSlugScores(readScores(in));
+        student.setDifferentCourses(student.getCourses().size());
+        student.setDifferentSlugs(student.getSlugs().size());
+        return student;
+    }
+
+    private void writeCourse(DataOutputStream out, Course course) throws IOException {
+        out.writeInt(course.getId());
+        writeString(out, course.getGitUrl());
+        writeString(out, course.getName());
+        writeCounters(out, course.getTotalCommits(), course.getTotalTestsRan(), course.getTotalTestsPassed(),
+                course.getTotalDiagnosticErrors(), course.getCommitsStyleOK());
+        course.getStudents().writeTo(out);
+        writeLeaders(out, course.getLeaders());
+    }
+
+    private Course readCourse(DataInputStream in) throws IOException {
+        Course course = Course.builder()
+                .id(in.readInt())
+                .gitUrl(readString(in))
+                .name(readString(in))
+                .totalCommits(readCounter(in))
+                .totalTestsRan(readCounter(in))
+                .totalTestsPassed(readCounter(in))
+                .totalDiagnosticErrors(readCounter(in))
+                .commitsStyleOK(readCounter(in))
+                .students(DistinctCounter.readFrom(in))
+                .leaders(readLeaders(in))
+                .build();
+        course.setDifferentStudents((int) course.getStudents().count());
+        return course;
+    }
+
+    private void writeSlug(DataOutputStream out, Slug slug) throws IOException {
+        out.writeInt(slug.getId());
+        writeString(out, slug.getName());
+        writeString(out, slug.getCourseUrl());
+        writeCounters(out, slug.getTotalCommits(), slug.getTotalTestsRan(), slug.getTotalTestsPassed(),
+                slug.getTotalDiagnosticErrors(), slug.getCommitsStyleOK());
+        slug.getStudents().writeTo(out);
+        writeLeaders(out, slug.getLeaders());
+    }
+
+    private Slug readSlug(DataInputStream in) throws IOException {
+        Slug slug = Slug.builder()
+                .id(in.readInt())
+                .name(readString(in))
+                .courseUrl(readString(in))
+                .totalCommits(readCounter(in))
+                .totalTestsRan(readCounter(in))
+                .totalTestsPassed(readCounter(in))
+                .totalDiagnosticErrors(readCounter(in))
+                .commitsStyleOK(readCounter(in))
+                .students(DistinctCounter.readFrom(in))
+                .leaders(readLeaders(in))
+                .build();
+        slug.setDifferentStudents((int) slug.getStudents().count());
+        return slug;
+    }
+
+    private static void writeScores(DataOutputStream out, Map<Integer, Leaderboard.Scores> scores) throws IOException {
+        out.writeInt(scores.size());
+        for (Map.Entry<Integer, Leaderboard.Scores> member : scores.entrySet()) {
+            out.writeInt(member.getKey());
+            for (Leaderboard.Metric metric : Leaderboard.Metric.values()) {
+                out.writeLong(member.getValue().get(metric));
+            }
+        }
+    }
+
+    private static Map<Integer, Leaderboard.Scores> readScores(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<Integer, Leaderboard.Scores> scores = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            scores.put(in.readInt(), new Leaderboard.Scores(in.readLong(), in.readLong(), in.readLong()));
+        }
+        return scores;
+    }
+
+    // every board in rank order, at most its capacity each
+    private static void writeLeaders(DataOutputStream out, Leaderboard leaders) throws IOException {
+        for (Leaderboard.Metric metric : Leaderboard.Metric.values()) {
+            List<Leaderboard.Entry> top = leaders.top(metric, Leaderboard.CAPACITY);
+            out.writeInt(top.size());
+            for (Leaderboard.Entry entry : top) {
+                writeString(out, entry.getUniid());
+                out.writeLong(entry.getScore());
+            }
+        }
+    }
+
+    private static Leaderboard readLeaders(DataInputStream in) throws IOException {
+        Leaderboard leaders = new Leaderboard();
+        for (Leaderboard.Metric metric : Leaderboard.Metric.values()) {
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                leaders.offer(metric, readString(in), in.readLong());
+            }
+        }
+        return leaders;
+    }
+
+    private void writeSubmission(DataOutputStream out, Submission submission) throws IOException {
+        out.writeLong(submission.getId());
+        writeString(out, submission.getTestingPlatform());
+        writeString(out, submission.getHash());
+        writeString(out, submission.getSlug());
+        writeString(out, submission.getUniid());
+        writeString(out, submission.getRoot());
+        writeString(out, submission.getGitStudentRepo());
+        writeString(out, submission.getGitTestSource());
+        writeLong(out, submission.getTimestamp());
+        writeInt(out, submission.getStyle());
+        writeInt(out, submission.getDiagnosticErrors());
+        writeInt(out, submission.getTestsPassed());
+        writeInt(out, submission.getTestsRan());
+        out.writeBoolean(Boolean.TRUE.equals(submission.getFailed()));
+    }
+
+    private Submission readSubmission(DataInputStream in) throws IOException {
+        return Submission.builder()
+                .id(in.readLong())
+                .testingPlatform(readString(in))
+                .hash(readString(in))
+                .slug(readString(in))
+                .uniid(readString(in))
+                .root(readString(in))
+                .gitStudentRepo(readString(in))
+                .gitTestSource(readString(in))
+                .timestamp(readLong(in))
+                .style(readInt(in))
+                .diagnosticErrors(readInt(in))
+                .testsPassed(readInt(in))
+                .testsRan(readInt(in))
+                .failed(in.readBoolean())
+                .aggregated(true)
+                .build();
+    }
+
+    // primitives
+
+    /**
+     * Reads the remaining bytes of a buffer, for the mapped body without copying it.
+     */
+    private static class MappedInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        MappedInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    private interface Writer<T> {
+        void write(DataOutputStream out, T value) throws IOException;
+    }
+
+    private interface Reader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    private static <T> void writeList(DataOutputStream out, List<T> values, Writer<T> writer) throws IOException {
+        out.writeInt(values.size());
+        for (T value : values) {
+            writer.write(out, value);
+        }
+    }
+
+    private static <T> List<T> readList(DataInputStream in, Reader<T> reader) throws IOException {
+        int size = in.readInt();
+        List<T> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(reader.read(in));
+        }
+        return values;
+    }
+
+    private static void writeCounters(DataOutputStream out, LongAdder... counters) throws IOException {
+        for (LongAdder counter : counters) {
+            out.writeLong(counter.sum());
+        }
+    }
+
+    private static LongAdder readCounter(DataInputStream in) throws IOException {
+        LongAdder counter = new LongAdder();
+        counter.add(in.readLong());
+        return counter;
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static Set<String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Set<String> values = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeInt(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInt(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+}
@@ -0,0 +1,13 @@
+package ee.taltech.arete_admin_panel.repository;
+
+import ee.taltech.arete_admin_panel.domain.ClusterNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ClusterNodeRepository extends JpaRepository<ClusterNode, String> {
+
+    List<ClusterNode> findByHeartbeatGreaterThanOrderByNodeId(Long since);
+}
@@ -0,0 +1,9 @@
+package ee.taltech.arete_admin_panel.repository;
+
+import ee.taltech.arete_admin_panel.domain.CourseAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CourseAggregateRepository extends JpaRepository<CourseAggregate, Integer> {
+}
@@ -0,0 +1,16 @@
+package ee.taltech.arete_admin_panel.repository;
+
+import ee.taltech.arete_admin_panel.domain.InternedKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InternedKeyRepository extends JpaRepository<InternedKey, Long> {
+
+    List<InternedKey> findByKind(InternedKey.Kind kind);
+
+    Optional<InternedKey> findByKindAndKeyId(InternedKey.Kind kind, Integer keyId);
+}
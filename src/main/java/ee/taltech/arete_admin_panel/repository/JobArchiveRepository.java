@@ -0,0 +1,243 @@
+package ee.taltech.arete_admin_panel.repository;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.arete_admin_panel.configuration.ArchiveProperties;
+import ee.taltech.arete_admin_panel.domain.Job;
+import lombok.SneakyThrows;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Repository;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only store for archived jobs.
+ * <p>
+ * Every archive batch becomes an immutable segment: a {@code .dat} file with records sorted by (timestamp, hash)
+ * and a {@code .idx} file with a sparse index over them. A record is {@code [long timestamp][short hash length]
+ * [hash][int payload length][gzipped job json]}. The index holds a header {@code [int magic][int entries]
+ * [long min timestamp][long max timestamp]} followed by {@code [long timestamp][long offset]} for every
+ * n-th record. Index files are memory mapped, lookups binary search them and scan at most one interval of the data file.
+ */
+@Repository
+public class JobArchiveRepository {
+
+    private static final int INDEX_MAGIC = 0x4a4f4253; // JOBS
+    private static final int INDEX_HEADER = 4 + 4 + 8 + 8;
+    private static final int INDEX_ENTRY = 8 + 8;
+
+    private final Logger logger;
+    private final ArchiveProperties properties;
+    private final ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final ConcurrentSkipListMap<Long, MappedByteBuffer> indexes = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+
+    public JobArchiveRepository(Logger logger, ArchiveProperties properties) {
+        this.logger = logger;
+        this.properties = properties;
+        loadSegments();
+    }
+
+    @SneakyThrows
+    private void loadSegments() {
+        Path directory = Paths.get(properties.getDirectory());
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.matches("segment-\\d+\\.idx"))
+                    .forEach(name -> {
+                        long segment = Long.parseLong(name.substring("segment-".length(), name.length() - ".idx".length()));
+                        try {
+                            indexes.put(segment, mapIndex(segment));
+                        } catch (IOException e) {
+                            logger.error("Failed to map archive segment {}: {}", segment, e.getMessage());
+                        }
+                    });
+        }
+        logger.info("Loaded {} archive segments from {}", indexes.size(), directory.toAbsolutePath());
+    }
+
+    /**
+     * Writes jobs as a new segment. Returns only after both files are durable on disk.
+     */
+    public synchronized void append(List<Job> jobs) throws IOException {
+        if (jobs.isEmpty()) {
+            return;
+        }
+
+        Path directory = Files.createDirectories(Paths.get(properties.getDirectory()));
+        long segment = indexes.isEmpty() ? 1 : indexes.firstKey() + 1;
+
+        List<Job> sorted = new ArrayList<>(jobs);
+        sorted.sort(Comparator.comparing(Job::getTimestamp).thenComparing(Job::getHash));
+
+        Path data = directory.resolve(dataName(segment));
+        Path index = directory.resolve(indexName(segment));
+        Path dataTmp = directory.resolve(dataName(segment) + ".tmp");
+        Path indexTmp = directory.resolve(indexName(segment) + ".tmp");
+
+        int interval = Math.max(1, properties.getIndexInterval());
+        int entries = (sorted.size() + interval - 1) / interval;
+        ByteBuffer indexBuffer = ByteBuffer.allocate(INDEX_HEADER + entries * INDEX_ENTRY);
+        indexBuffer.putInt(INDEX_MAGIC)
+                .putInt(entries)
+                .putLong(sorted.get(0).getTimestamp())
+                .putLong(sorted.get(sorted.size() - 1).getTimestamp());
+
+        try (FileOutputStream fileStream = new FileOutputStream(dataTmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileStream))) {
+            for (int i = 0; i < sorted.size(); i++) {
+                Job job = sorted.get(i);
+                if (i % interval == 0) {
+                    indexBuffer.putLong(job.getTimestamp()).putLong(out.size());
+                }
+                byte[] hash = job.getHash().getBytes(StandardCharsets.UTF_8);
+                byte[] payload = compress(mapper.writeValueAsBytes(job));
+                out.writeLong(job.getTimestamp());
+                out.writeShort(hash.length);
+                out.write(hash);
+                out.writeInt(payload.length);
+                out.write(payload);
+            }
+            out.flush();
+            fileStream.getFD().sync();
+        }
+
+        try (FileChannel channel = FileChannel.open(indexTmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            indexBuffer.flip();
+            while (indexBuffer.hasRemaining()) {
+                channel.write(indexBuffer);
+            }
+            channel.force(true);
+        }
+
+        // the index is what makes a segment visible, so it is moved last
+        Files.move(dataTmp, data, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(indexTmp, index, StandardCopyOption.ATOMIC_MOVE);
+        indexes.put(segment, mapIndex(segment));
+        logger.info("Archived {} jobs into segment {}", sorted.size(), segment);
+    }
+
+    public Optional<Job> findByHashAndTimestamp(String hash, Long timestamp) {
+        if (hash == null || timestamp == null) {
+            return Optional.empty();
+        }
+
+        byte[] wanted = hash.getBytes(StandardCharsets.UTF_8);
+        for (Map.Entry<Long, MappedByteBuffer> entry : indexes.entrySet()) {
+            ByteBuffer index = entry.getValue().duplicate();
+            if (timestamp < index.getLong(8) || timestamp > index.getLong(16)) {
+                continue;
+            }
+
+            try {
+                Optional<Job> job = scan(entry.getKey(), index, wanted, timestamp);
+                if (job.isPresent()) {
+                    return job;
+                }
+            } catch (IOException e) {
+                logger.error("Failed to read archive segment {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Optional<Job> scan(long segment, ByteBuffer index, byte[] wanted, long timestamp) throws IOException {
+        int entries = index.getInt(4);
+
+        // last entry strictly before the timestamp, equal timestamps may span interval boundaries
+        int low = 0;
+        int high = entries - 1;
+        int start = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (index.getLong(INDEX_HEADER + mid * INDEX_ENTRY) < timestamp) {
+                start = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        long offset = index.getLong(INDEX_HEADER + start * INDEX_ENTRY + 8);
+
+        try (FileChannel channel = FileChannel.open(Paths.get(properties.getDirectory(), dataName(segment)), StandardOpenOption.READ);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(offset))))) {
+            long position = offset;
+            long size = channel.size();
+            while (position < size) {
+                long recordTimestamp = in.readLong();
+                byte[] hash = new byte[in.readUnsignedShort()];
+                in.readFully(hash);
+                int length = in.readInt();
+                position += 8 + 2 + hash.length + 4 + length;
+
+                if (recordTimestamp > timestamp) {
+                    return Optional.empty();
+                }
+                if (recordTimestamp == timestamp && Arrays.equals(hash, wanted)) {
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    return Optional.of(mapper.readValue(decompress(payload), Job.class));
+                }
+                skipFully(in, length);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private MappedByteBuffer mapIndex(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(properties.getDirectory(), indexName(segment)), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != INDEX_MAGIC) {
+                throw new IOException("Bad index magic in segment " + segment);
+            }
+            return buffer;
+        }
+    }
+
+    private static void skipFully(DataInputStream in, int length) throws IOException {
+        int skipped = 0;
+        while (skipped < length) {
+            int step = in.skipBytes(length - skipped);
+            if (step <= 0) {
+                throw new EOFException();
+            }
+            skipped += step;
+        }
+    }
+
+    private static String dataName(long segment) {
+        return String.format("segment-%08d.dat", segment);
+    }
+
+    private static String indexName(long segment) {
+        return String.format("segment-%08d.idx", segment);
+    }
+
+    private static byte[] compress(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] bytes) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return gzip.readAllBytes();
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package ee.taltech.arete_admin_panel.repository;
 
+import ee.taltech.arete_admin_panel.configuration.CacheConfiguration;
 import ee.taltech.arete_admin_panel.domain.Job;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -10,8 +13,14 @@ import java.util.List;
 @Repository
 public interface JobRepository extends JpaRepository<Job, Long> {
 
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.JOB, key = "#p0.hash + '/' + #p0.timestamp")
+    <S extends Job> S save(S job);
+
     List<Job> findByHash(@Param("hash") String hash);
 
     Job findByHashAndTimestamp(@Param("hash") String hash, @Param("timestamp") Long timestamp);
 
+    List<Job> findByTimestampLessThan(@Param("timestamp") Long timestamp, Pageable pageable);
+
 }
@@ -1,6 +1,5 @@
 package ee.taltech.arete_admin_panel.repository;
 
-import ee.taltech.arete_admin_panel.service.CacheService;
 import ee.taltech.arete_admin_panel.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
@@ -13,10 +12,7 @@ import org.springframework.context.annotation.Configuration;
 class LoadDatabase {
 
     @Bean
-    CommandLineRunner initDatabaseAndCache(UserService userService,
-                                           SubmissionRepository submissionRepository,
-                                           CacheService cacheService,
-                                           Logger logger) {
+    CommandLineRunner initDatabase(UserService userService, Logger logger) {
         return args -> {
             if (userService.getUser("admin").isEmpty()) {
                 String password = System.getenv("ADMIN_PASS");
@@ -26,8 +22,6 @@ class LoadDatabase {
                 }
                 userService.addSuperUser("admin", password);
             }
-
-            submissionRepository.findAll().forEach(cacheService::enqueueSubmission);
         };
     }
 }
@@ -0,0 +1,9 @@
+package ee.taltech.arete_admin_panel.repository;
+
+import ee.taltech.arete_admin_panel.domain.SlugAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SlugAggregateRepository extends JpaRepository<SlugAggregate, Integer> {
+}
@@ -1,7 +1,10 @@
 package ee.taltech.arete_admin_panel.repository;
 
 import ee.taltech.arete_admin_panel.domain.Submission;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +15,27 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     List<Submission> findTop500ByOrderByIdDesc();
 
     List<Submission> findTop10000ByOrderByIdDesc();
+
+    @Query("select s from Submission s where s.id > :after and (s.aggregated is null or s.aggregated = false) order by s.id")
+    List<Submission> findNotAggregatedAfter(@Param("after") Long after, Pageable pageable);
+
+    @Query("select count(s) from Submission s where s.aggregated is null or s.aggregated = false")
+    long countNotAggregated();
+
+    @Query("select count(s) from Submission s where s.aggregated = true")
+    long countAggregated();
+
+    @Query("select coalesce(max(s.id), 0) from Submission s where s.aggregated = true")
+    long findLastAggregatedId();
+
+    @Query("select coalesce(max(s.id), 0) from Submission s")
+    long findLastId();
+
+    List<Submission> findTop10000ByIdGreaterThanOrderByIdDesc(Long id);
+
+    @Query("select s from Submission s where s.aggregated = true and s.timestamp >= :since and s.id <= :until")
+    List<Submission> findAggregatedSince(@Param("since") Long since, @Param("until") Long until);
+
+    @Query("select s.timestamp from Submission s where s.uniid = :uniid")
+    List<Long> findTimestampsByUniid(@Param("uniid") String uniid);
 }
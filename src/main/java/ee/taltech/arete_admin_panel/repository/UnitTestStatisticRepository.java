@@ -0,0 +1,9 @@
+package ee.taltech.arete_admin_panel.repository;
+
+import ee.taltech.arete_admin_panel.domain.UnitTestStatistic;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UnitTestStatisticRepository extends JpaRepository<UnitTestStatistic, Long> {
+}
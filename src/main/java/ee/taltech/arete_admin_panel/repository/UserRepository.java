@@ -1,6 +1,9 @@
 package ee.taltech.arete_admin_panel.repository;
 
+import ee.taltech.arete_admin_panel.configuration.CacheConfiguration;
 import ee.taltech.arete_admin_panel.domain.User;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -11,9 +14,19 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    @Cacheable(cacheNames = CacheConfiguration.USER, key = "#p0", unless = "#result == null")
     Optional<User> findByUsername(@Param("username") String username);
 
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.USER, key = "#p0.username")
+    <S extends User> S save(S user);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfiguration.USER, key = "#p0.username")
+    <S extends User> S saveAndFlush(S user);
+
     @Transactional
+    @CacheEvict(cacheNames = CacheConfiguration.USER, key = "#p0")
     void deleteByUsername(@Param("username") String username);
 }
 
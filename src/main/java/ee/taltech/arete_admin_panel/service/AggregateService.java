@@ -0,0 +1,645 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete_admin_panel.algorithms.DistinctCounter;
+import ee.taltech.arete_admin_panel.algorithms.Leaderboard;
+import ee.taltech.arete_admin_panel.algorithms.TimestampSeries;
+import ee.taltech.arete_admin_panel.configuration.CacheProperties;
+import ee.taltech.arete_admin_panel.domain.*;
+import ee.taltech.arete_admin_panel.repository.*;
+import org.slf4j.Logger;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Persists student, course and slug aggregates incrementally.
+ * <p>
+ * Workers record the deltas of every applied submission. The deltas are coalesced per entity and added to the
+ * aggregate tables once per flush interval, together with marking the submissions as aggregated, in one transaction.
+ * Every live entity equals its persisted row plus its pending delta. A flush swaps the pending deltas for empty ones
+ * under the write lock, which only waits for the submissions being applied, and writes the swapped deltas without
+ * holding any lock. Until they are committed their entities are still found among the flushing deltas, so loading
+ * keeps the invariant. Loading takes one {@link State}, so it sees a delta either pending or flushing.
+ */
+@Service
+public class AggregateService {
+
+    private static final String COUNTER_COLUMNS =
+            "total_commits, total_tests_ran, total_tests_passed, total_diagnostic_errors, commits_styleok";
+
+    private static final String COUNTER_INCREMENTS = "total_commits = total_commits + ?, " +
+            "total_tests_ran = total_tests_ran + ?, " +
+            "total_tests_passed = total_tests_passed + ?, " +
+            "total_diagnostic_errors = total_diagnostic_errors + ?, " +
+            "commits_styleok = commits_styleok + ?";
+
+    // the aggregated submissions of a member, for memberships persisted before members had scores
+    private static final String MEMBER_SUBMISSIONS = "FROM submission s WHERE s.aggregated = TRUE AND s.uniid = aggregate_member.uniid " +
+            "AND (aggregate_member.kind = 'COURSE' AND s.git_test_source = aggregate_member.owner_name " +
+            "OR aggregate_member.kind = 'SLUG' AND s.slug = aggregate_member.owner_name " +
+            "AND s.git_test_source = (SELECT a.course_url FROM slug_aggregate a WHERE a.id = aggregate_member.owner_id))";
+
+    private static final Map<Leaderboard.Metric, String> SCORE_COLUMNS = Map.of(
+            Leaderboard.Metric.TESTS_PASSED, "tests_passed",
+            Leaderboard.Metric.DIAGNOSTIC_ERRORS, "diagnostic_errors",
+            Leaderboard.Metric.COMMITS, "commits");
+
+    private final Logger logger;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StudentAggregateRepository studentAggregateRepository;
+    private final CourseAggregateRepository courseAggregateRepository;
+    private final SlugAggregateRepository slugAggregateRepository;
+    private final AggregateMemberRepository aggregateMemberRepository;
+    private final SubmissionRepository submissionRepository;
+    private final CacheProperties properties;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile State state = new State(new Pending(), null);
+    private final List<Consumer<Set<Integer>>> flushListeners = new CopyOnWriteArrayList<>();
+
+    public AggregateService(Logger logger,
+                            JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            StudentAggregateRepository studentAggregateRepository,
+                            CourseAggregateRepository courseAggregateRepository,
+                            SlugAggregateRepository slugAggregateRepository,
+                            AggregateMemberRepository aggregateMemberRepository,
+                            SubmissionRepository submissionRepository,
+                            CacheProperties properties) {
+        this.logger = logger;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.studentAggregateRepository = studentAggregateRepository;
+        this.courseAggregateRepository = courseAggregateRepository;
+        this.slugAggregateRepository = slugAggregateRepository;
+        this.aggregateMemberRepository = aggregateMemberRepository;
+        this.submissionRepository = submissionRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * Scores the members persisted before members had scores. Runs before the first flush, which only adds to scores.
+     */
+    @PostConstruct
+    public void backfillMemberScores() {
+        int updated = jdbcTemplate.update("UPDATE aggregate_member SET " +
+                "commits = (SELECT count(*) " + MEMBER_SUBMISSIONS + "), " +
+                "tests_passed = (SELECT coalesce(sum(s.tests_passed), 0) " + MEMBER_SUBMISSIONS + "), " +
+                "diagnostic_errors = (SELECT coalesce(sum(s.diagnostic_errors), 0) " + MEMBER_SUBMISSIONS + ") " +
+                "WHERE commits IS NULL");
+        if (updated > 0) {
+            logger.info("Backfilled leaderboard scores of {} course and slug members", updated);
+        }
+    }
+
+    /**
+     * Runs the loading and updating of entities for one submission so that no flush happens in between.
+     */
+    public void apply(Runnable update) {
+        lock.readLock().lock();
+        try {
+            update.run();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs the action while no submission is being applied, without flushing.
+     */
+    public void exclusive(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // loading courses and slugs, callers hold the lock through apply
+
+    /**
+     * Needs no lock, as a student is only applied by the worker that loads it. Reads its whole timestamp history, so
+     * workers call it before {@link #apply(Runnable)}.
+     */
+    public Optional<Student> loadStudent(int id) {
+        Student pendingStudent = state.pendingEntity(pending -> pending.students, id);
+        if (pendingStudent != null) {
+            return Optional.of(pendingStudent);
+        }
+
+        return studentAggregateRepository.findById(id).map(row -> {
+            List<AggregateMember> courseMembers = aggregateMemberRepository.findByKindAndStudentId(InternedKey.Kind.COURSE, id);
+            List<AggregateMember> slugMembers = aggregateMemberRepository.findByKindAndStudentId(InternedKey.Kind.SLUG, id);
+            Set<String> courses = ownerNames(courseMembers);
+            Set<String> slugs = ownerNames(slugMembers);
+            return Student.builder()
+                    .id(id)
+                    .uniid(row.getUniid())
+                    .gitRepo(row.getGitRepo())
+                    .firstTested(row.getFirstTested())
+                    .lastTested(row.getLastTested())
+                    .timestamps(TimestampSeries.of(submissionRepository.findTimestampsByUniid(row.getUniid())))
+                    .courses(courses)
+                    .slugs(slugs)
+                    .courseScores(ownerScores(courseMembers))
+                    .slugScores(ownerScores(slugMembers))
+                    .totalCommits(row.getTotalCommits().intValue())
+                    .totalTestsRan(row.getTotalTestsRan().intValue())
+                    .totalTestsPassed(row.getTotalTestsPassed().intValue())
+                    .totalDiagnosticErrors(row.getTotalDiagnosticErrors().intValue())
+                    .commitsStyleOK(row.getCommitsStyleOK().intValue())
+                    .differentCourses(courses.size())
+                    .differentSlugs(slugs.size())
+                    .build();
+        });
+    }
+
+    public Optional<Course> loadCourse(int id) {
+        Course pendingCourse = state.pendingEntity(pending -> pending.courses, id);
+        if (pendingCourse != null) {
+            return Optional.of(pendingCourse);
+        }
+
+        return courseAggregateRepository.findById(id).map(row -> {
+            DistinctCounter students = loadStudentCounter(InternedKey.Kind.COURSE, id);
+            return Course.builder()
+                    .leaders(leaders(InternedKey.Kind.COURSE, id))
+                    .id(id)
+                    .gitUrl(row.getGitUrl())
+                    .name(row.getName())
+                    .totalCommits(adder(row.getTotalCommits()))
+                    .totalTestsRan(adder(row.getTotalTestsRan()))
+                    .totalTestsPassed(adder(row.getTotalTestsPassed()))
+                    .totalDiagnosticErrors(adder(row.getTotalDiagnosticErrors()))
+                    .commitsStyleOK(adder(row.getCommitsStyleOK()))
+                    .students(students)
+                    .differentStudents((int) students.count())
+                    .build();
+        });
+    }
+
+    public Optional<Slug> loadSlug(int id) {
+        Slug pendingSlug = state.pendingEntity(pending -> pending.slugs, id);
+        if (pendingSlug != null) {
+            return Optional.of(pendingSlug);
+        }
+
+        return slugAggregateRepository.findById(id).map(row -> {
+            DistinctCounter students = loadStudentCounter(InternedKey.Kind.SLUG, id);
+            return Slug.builder()
+                    .leaders(leaders(InternedKey.Kind.SLUG, id))
+                    .id(id)
+                    .name(row.getName())
+                    .courseUrl(row.getCourseUrl())
+                    .totalCommits(adder(row.getTotalCommits()))
+                    .totalTestsRan(adder(row.getTotalTestsRan()))
+                    .totalTestsPassed(adder(row.getTotalTestsPassed()))
+                    .totalDiagnosticErrors(adder(row.getTotalDiagnosticErrors()))
+                    .commitsStyleOK(adder(row.getCommitsStyleOK()))
+                    .students(students)
+                    .differentStudents((int) students.count())
+                    .build();
+        });
+    }
+
+    /**
+     * The most recently tested persisted students with their memberships, read in two queries. Timestamps are left
+     * empty, {@link #loadStudent(int)} reads those of a single student.
+     */
+    public List<Student> loadRecentStudents(int limit) {
+        return loadStudents("ORDER BY last_tested DESC LIMIT ?", limit);
+    }
+
+    /**
+     * Persisted students with ids after the given one in id order, like {@link #loadRecentStudents(int)}.
+     */
+    public List<Student> loadStudentPage(int after, int limit) {
+        return loadStudents("WHERE id > ? ORDER BY id LIMIT ?", after, limit);
+    }
+
+    private List<Student> loadStudents(String selection, Object... arguments) {
+        State state = this.state; // taken before reading the rows, a delta committed meanwhile is still found in it
+        Map<Integer, Student> students = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, uniid, git_repo, first_tested, last_tested, " + COUNTER_COLUMNS +
+                        " FROM student_aggregate " + selection,
+                (RowCallbackHandler) row -> students.put(row.getInt("id"), Student.builder()
+                        .id(row.getInt("id"))
+                        .uniid(row.getString("uniid"))
+                        .gitRepo(row.getString("git_repo"))
+                        .firstTested(row.getLong("first_tested"))
+                        .lastTested(row.getLong("last_tested"))
+                        .totalCommits(row.getInt("total_commits"))
+                        .totalTestsRan(row.getInt("total_tests_ran"))
+                        .totalTestsPassed(row.getInt("total_tests_passed"))
+                        .totalDiagnosticErrors(row.getInt("total_diagnostic_errors"))
+                        .commitsStyleOK(row.getInt("commits_styleok"))
+                        .build()),
+                arguments);
+
+        jdbcTemplate.query("SELECT kind, owner_id, owner_name, student_id, tests_passed, diagnostic_errors, commits " +
+                        "FROM aggregate_member WHERE student_id IN " +
+                        "(SELECT id FROM student_aggregate " + selection + ")",
+                (RowCallbackHandler) row -> {
+                    Student student = students.get(row.getInt("student_id"));
+                    if (student == null) {
+                        return;
+                    }
+                    Leaderboard.Scores scores = new Leaderboard.Scores(
+                            row.getLong("tests_passed"), row.getLong("diagnostic_errors"), row.getLong("commits"));
+                    if (InternedKey.Kind.COURSE.name().equals(row.getString("kind"))) {
+                        student.getCourses().add(row.getString("owner_name"));
+                        student.getCourseScores().put(row.getInt("owner_id"), scores);
+                    } else {
+                        student.getSlugs().add(row.getString("owner_name"));
+                        student.getSlugScores().put(row.getInt("owner_id"), scores);
+                    }
+                },
+                arguments);
+
+        List<Student> result = new ArrayList<>(students.size());
+        for (Student student : students.values()) {
+            Student pendingStudent = state.pendingEntity(pending -> pending.students, student.getId());
+            if (pendingStudent != null) {
+                result.add(pendingStudent);
+                continue;
+            }
+            student.setDifferentCourses(student.getCourses().size());
+            student.setDifferentSlugs(student.getSlugs().size());
+            result.add(student);
+        }
+        return result;
+    }
+
+    /**
+     * Ids of all persisted courses and slugs with their course urls and of the most recently tested students, for
+     * preloading the caches.
+     */
+    public Map<Integer, String> findCourseUrls() {
+        Map<Integer, String> courseUrls = new HashMap<>();
+        jdbcTemplate.query("SELECT id, git_url FROM course_aggregate", (RowCallbackHandler) row -> courseUrls.put(row.getInt(1), row.getString(2)));
+        return courseUrls;
+    }
+
+    public Map<Integer, String> findSlugCourseUrls() {
+        Map<Integer, String> courseUrls = new HashMap<>();
+        jdbcTemplate.query("SELECT id, course_url FROM slug_aggregate", (RowCallbackHandler) row -> courseUrls.put(row.getInt(1), row.getString(2)));
+        return courseUrls;
+    }
+
+    public List<Integer> findRecentStudentIds(int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM student_aggregate ORDER BY last_tested DESC LIMIT ?", Integer.class, limit);
+    }
+
+    /**
+     * A counter of the distinct students of a course or slug, exact or a sketch depending on the configuration.
+     */
+    public DistinctCounter newStudentCounter() {
+        if (properties.getStudentCounting() == CacheProperties.StudentCounting.SKETCH) {
+            return new DistinctCounter(properties.getStudentCountingThreshold(), properties.getStudentCountingPrecision());
+        }
+        return new DistinctCounter();
+    }
+
+    /**
+     * A new counter of the persisted students of a course or slug.
+     */
+    public DistinctCounter loadStudentCounter(InternedKey.Kind kind, int ownerId) {
+        DistinctCounter members = newStudentCounter();
+        aggregateMemberRepository.findByKindAndOwnerId(kind, ownerId).forEach(member -> members.add(member.getUniid()));
+        return members;
+    }
+
+    /**
+     * The persisted boards, only the best members of every metric are read.
+     */
+    private Leaderboard leaders(InternedKey.Kind kind, int ownerId) {
+        Leaderboard leaders = new Leaderboard();
+        for (Leaderboard.Metric metric : Leaderboard.Metric.values()) {
+            String column = SCORE_COLUMNS.get(metric);
+            jdbcTemplate.query("SELECT uniid, " + column + " FROM aggregate_member WHERE kind = ? AND owner_id = ? " +
+                            "ORDER BY " + column + " DESC, uniid LIMIT ?",
+                    (RowCallbackHandler) row -> leaders.offer(metric, row.getString(1), row.getLong(2)),
+                    kind.name(), ownerId, Leaderboard.CAPACITY);
+        }
+        return leaders;
+    }
+
+    private static Set<String> ownerNames(List<AggregateMember> members) {
+        return members.stream().map(AggregateMember::getOwnerName).collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private static Map<Integer, Leaderboard.Scores> ownerScores(List<AggregateMember> members) {
+        Map<Integer, Leaderboard.Scores> scores = new HashMap<>();
+        for (AggregateMember member : members) {
+            scores.put(member.getOwnerId(), new Leaderboard.Scores(orZero(member.getTestsPassed()),
+                    orZero(member.getDiagnosticErrors()), orZero(member.getCommits())));
+        }
+        return scores;
+    }
+
+    private static long orZero(Long value) {
+        return value == null ? 0 : value;
+    }
+
+    private static LongAdder adder(long value) {
+        LongAdder adder = new LongAdder();
+        adder.add(value);
+        return adder;
+    }
+
+    // recording, callers hold the lock through apply
+
+    public void record(Submission submission, Student student, Slug slug, Course course,
+                       boolean newSlugMember, boolean newCourseMember) {
+        Pending pending = state.pending;
+        int diagnosticErrors = submission.getDiagnosticErrors() == null ? 0 : submission.getDiagnosticErrors();
+        int testsPassed = submission.getTestsPassed() == null ? 0 : submission.getTestsPassed();
+        int testsRan = submission.getTestsRan() == null ? 0 : submission.getTestsRan();
+        boolean styleOK = submission.getStyle() != null && submission.getStyle() == 100;
+
+        pending.students.computeIfAbsent(student.getId(), id -> new Delta<>()).add(student, testsRan, testsPassed, diagnosticErrors, styleOK);
+        pending.slugs.computeIfAbsent(slug.getId(), id -> new Delta<>()).add(slug, testsRan, testsPassed, diagnosticErrors, styleOK);
+        pending.courses.computeIfAbsent(course.getId(), id -> new Delta<>()).add(course, testsRan, testsPassed, diagnosticErrors, styleOK);
+        long slugMember = memberKey(slug.getId(), student.getId());
+        pending.slugMembers.computeIfAbsent(slugMember, key -> new Delta<>()).add(slugMember, testsRan, testsPassed, diagnosticErrors, styleOK);
+        long courseMember = memberKey(course.getId(), student.getId());
+        pending.courseMembers.computeIfAbsent(courseMember, key -> new Delta<>()).add(courseMember, testsRan, testsPassed, diagnosticErrors, styleOK);
+
+        if (newSlugMember) {
+            pending.members.add(AggregateMember.builder()
+                    .kind(InternedKey.Kind.SLUG).ownerId(slug.getId()).ownerName(slug.getName())
+                    .studentId(student.getId()).uniid(student.getUniid())
+                    .build());
+        }
+        if (newCourseMember) {
+            pending.members.add(AggregateMember.builder()
+                    .kind(InternedKey.Kind.COURSE).ownerId(course.getId()).ownerName(course.getGitUrl())
+                    .studentId(student.getId()).uniid(student.getUniid())
+                    .build());
+        }
+        if (submission.getId() != null) {
+            pending.submissions.add(submission.getId());
+        }
+    }
+
+    private static long memberKey(int ownerId, int studentId) {
+        return (long) ownerId << 32 | studentId & 0xFFFFFFFFL;
+    }
+
+    // flushing
+
+    /**
+     * Called with the ids of the flushed students after every flush, while no submission is being applied.
+     */
+    public void addFlushListener(Consumer<Set<Integer>> flushedStudents) {
+        flushListeners.add(flushedStudents);
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${arete.cache.flush-interval:1000}")
+    public void flush() {
+        flush(null);
+    }
+
+    /**
+     * Flushes pending deltas and then runs the given action while nothing is pending and no submission is being
+     * applied, so the live entities equal the persisted aggregates for its duration.
+     */
+    public synchronized boolean flush(Runnable afterFlush) {
+        if (!write(swap())) {
+            return false;
+        }
+        if (afterFlush == null) {
+            return true;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // only what was recorded while writing, written while the workers are held off
+            if (!write(swap())) {
+                return false;
+            }
+            afterFlush.run();
+            return true;
+        } catch (Exception e) {
+            logger.error("Failed to run after flushing aggregates: {}", e.getMessage());
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Pending swap() {
+        lock.writeLock().lock();
+        try {
+            Pending flushing = state.pending;
+            state = new State(new Pending(), flushing);
+            return flushing;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean write(Pending flushing) {
+        if (flushing.submissions.isEmpty() && flushing.students.isEmpty()) {
+            exclusive(() -> state = new State(state.pending, null));
+            return true;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            transactionTemplate.execute(status -> {
+                writeStudents(flushing.students.values());
+                writeCourses(flushing.courses.values());
+                writeSlugs(flushing.slugs.values());
+                writeMembers(flushing.members);
+                writeMemberScores(InternedKey.Kind.SLUG, flushing.slugMembers.values());
+                writeMemberScores(InternedKey.Kind.COURSE, flushing.courseMembers.values());
+                markAggregated(flushing.submissions);
+                return null;
+            });
+        } catch (Exception e) {
+            // pending deltas are kept and retried with the next flush
+            logger.error("Failed to flush aggregates: {}", e.getMessage());
+            exclusive(() -> state = new State(flushing.absorb(state.pending), null));
+            return false;
+        }
+
+        exclusive(() -> {
+            state = new State(state.pending, null);
+            flushListeners.forEach(listener -> listener.accept(flushing.students.keySet()));
+        });
+        logger.debug("Flushed aggregates of {} submissions in {} ms", flushing.submissions.size(), System.currentTimeMillis() - start);
+        return true;
+    }
+
+    private void writeStudents(Collection<Delta<Student>> deltas) {
+        List<Delta<Student>> list = new ArrayList<>(deltas);
+        List<Object[]> updates = list.stream().map(delta -> concat(delta.counters(),
+                delta.entity.getGitRepo(), delta.entity.getFirstTested(), delta.entity.getLastTested(), delta.entity.getId()))
+                .collect(Collectors.toList());
+        int[] updated = jdbcTemplate.batchUpdate("UPDATE student_aggregate SET " + COUNTER_INCREMENTS +
+                ", git_repo = ?, first_tested = LEAST(first_tested, ?), last_tested = GREATEST(last_tested, ?) WHERE id = ?", updates);
+
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < list.size(); i++) {
+            if (updated[i] == 0) {
+                Student student = list.get(i).entity;
+                inserts.add(concat(list.get(i).counters(),
+                        student.getId(), student.getUniid(), student.getGitRepo(), student.getFirstTested(), student.getLastTested()));
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO student_aggregate (" + COUNTER_COLUMNS +
+                ", id, uniid, git_repo, first_tested, last_tested) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", inserts);
+    }
+
+    private void writeCourses(Collection<Delta<Course>> deltas) {
+        List<Delta<Course>> list = new ArrayList<>(deltas);
+        int[] updated = jdbcTemplate.batchUpdate("UPDATE course_aggregate SET " + COUNTER_INCREMENTS + " WHERE id = ?",
+                list.stream().map(delta -> concat(delta.counters(), delta.entity.getId())).collect(Collectors.toList()));
+
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < list.size(); i++) {
+            if (updated[i] == 0) {
+                Course course = list.get(i).entity;
+                inserts.add(concat(list.get(i).counters(), course.getId(), course.getGitUrl(), course.getName()));
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO course_aggregate (" + COUNTER_COLUMNS +
+                ", id, git_url, name) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", inserts);
+    }
+
+    private void writeSlugs(Collection<Delta<Slug>> deltas) {
+        List<Delta<Slug>> list = new ArrayList<>(deltas);
+        int[] updated = jdbcTemplate.batchUpdate("UPDATE slug_aggregate SET " + COUNTER_INCREMENTS + " WHERE id = ?",
+                list.stream().map(delta -> concat(delta.counters(), delta.entity.getId())).collect(Collectors.toList()));
+
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < list.size(); i++) {
+            if (updated[i] == 0) {
+                Slug slug = list.get(i).entity;
+                inserts.add(concat(list.get(i).counters(), slug.getId(), slug.getName(), slug.getCourseUrl()));
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO slug_aggregate (" + COUNTER_COLUMNS +
+                ", id, name, course_url) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", inserts);
+    }
+
+    private void writeMembers(Collection<AggregateMember> members) {
+        jdbcTemplate.batchUpdate("INSERT INTO aggregate_member (kind, owner_id, owner_name, student_id, uniid, commits, tests_passed, diagnostic_errors) " +
+                        "VALUES (?, ?, ?, ?, ?, 0, 0, 0)",
+                members.stream().map(member -> new Object[]{member.getKind().name(), member.getOwnerId(),
+                        member.getOwnerName(), member.getStudentId(), member.getUniid()}).collect(Collectors.toList()));
+    }
+
+    // members are inserted before, so every scored member has a row
+    private void writeMemberScores(InternedKey.Kind kind, Collection<Delta<Long>> deltas) {
+        jdbcTemplate.batchUpdate("UPDATE aggregate_member SET commits = commits + ?, tests_passed = tests_passed + ?, " +
+                        "diagnostic_errors = diagnostic_errors + ? WHERE kind = ? AND owner_id = ? AND student_id = ?",
+                deltas.stream().map(delta -> new Object[]{delta.commits.sum(), delta.testsPassed.sum(), delta.diagnosticErrors.sum(),
+                        kind.name(), (int) (delta.entity >>> 32), delta.entity.intValue()}).collect(Collectors.toList()));
+    }
+
+    private void markAggregated(Collection<Long> submissions) {
+        jdbcTemplate.batchUpdate("UPDATE submission SET aggregated = TRUE WHERE id = ?",
+                submissions.stream().map(id -> new Object[]{id}).collect(Collectors.toList()));
+    }
+
+    private static Object[] concat(Object[] first, Object... rest) {
+        Object[] result = Arrays.copyOf(first, first.length + rest.length);
+        System.arraycopy(rest, 0, result, first.length, rest.length);
+        return result;
+    }
+
+    private static class State {
+        final Pending pending; // recorded into
+        final Pending flushing; // being written, null between flushes
+
+        State(Pending pending, Pending flushing) {
+            this.pending = pending;
+            this.flushing = flushing;
+        }
+
+        <T> T pendingEntity(Function<Pending, Map<Integer, Delta<T>>> deltas, int id) {
+            Delta<T> delta = deltas.apply(pending).get(id);
+            if (delta == null && flushing != null) {
+                delta = deltas.apply(flushing).get(id);
+            }
+            return delta == null ? null : delta.entity;
+        }
+    }
+
+    private static class Pending {
+        final Map<Integer, Delta<Student>> students = new ConcurrentHashMap<>();
+        final Map<Integer, Delta<Course>> courses = new ConcurrentHashMap<>();
+        final Map<Integer, Delta<Slug>> slugs = new ConcurrentHashMap<>();
+        final Queue<AggregateMember> members = new ConcurrentLinkedQueue<>();
+        final Map<Long, Delta<Long>> slugMembers = new ConcurrentHashMap<>(); // scores by member key
+        final Map<Long, Delta<Long>> courseMembers = new ConcurrentHashMap<>();
+        final Queue<Long> submissions = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Adds the later deltas to these, callers hold the write lock.
+         */
+        Pending absorb(Pending later) {
+            later.students.forEach((id, delta) -> students.merge(id, delta, Delta::absorb));
+            later.courses.forEach((id, delta) -> courses.merge(id, delta, Delta::absorb));
+            later.slugs.forEach((id, delta) -> slugs.merge(id, delta, Delta::absorb));
+            members.addAll(later.members);
+            later.slugMembers.forEach((key, delta) -> slugMembers.merge(key, delta, Delta::absorb));
+            later.courseMembers.forEach((key, delta) -> courseMembers.merge(key, delta, Delta::absorb));
+            submissions.addAll(later.submissions);
+            return this;
+        }
+    }
+
+    private static class Delta<T> {
+        volatile T entity; // latest live instance, carries the non counter columns
+        final LongAdder commits = new LongAdder();
+        final LongAdder testsRan = new LongAdder();
+        final LongAdder testsPassed = new LongAdder();
+        final LongAdder diagnosticErrors = new LongAdder();
+        final LongAdder styleOK = new LongAdder();
+
+        void add(T entity, int testsRan, int testsPassed, int diagnosticErrors, boolean styleOK) {
+            this.entity = entity;
+            this.commits.increment();
+            this.testsRan.add(testsRan);
+            this.testsPassed.add(testsPassed);
+            this.diagnosticErrors.add(diagnosticErrors);
+            if (styleOK) {
+                this.styleOK.increment();
+            }
+        }
+
+        Delta<T> absorb(Delta<T> later) {
+            entity = later.entity;
+            commits.add(later.commits.sum());
+            testsRan.add(later.testsRan.sum());
+            testsPassed.add(later.testsPassed.sum());
+            diagnosticErrors.add(later.diagnosticErrors.sum());
+            styleOK.add(later.styleOK.sum());
+            return this;
+        }
+
+        Object[] counters() {
+            return new Object[]{commits.sum(), testsRan.sum(), testsPassed.sum(), diagnosticErrors.sum(), styleOK.sum()};
+        }
+    }
+}
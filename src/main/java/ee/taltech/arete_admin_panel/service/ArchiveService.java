@@ -0,0 +1,89 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete_admin_panel.configuration.ArchiveProperties;
+import ee.taltech.arete_admin_panel.configuration.CacheConfiguration;
+import ee.taltech.arete_admin_panel.domain.Job;
+import ee.taltech.arete_admin_panel.repository.JobArchiveRepository;
+import ee.taltech.arete_admin_panel.repository.JobRepository;
+import org.slf4j.Logger;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+@Service
+public class ArchiveService {
+
+    private final Logger logger;
+    private final ArchiveProperties properties;
+    private final JobRepository jobRepository;
+    private final JobArchiveRepository jobArchiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache jobCache;
+
+    public ArchiveService(Logger logger,
+                          ArchiveProperties properties,
+                          JobRepository jobRepository,
+                          JobArchiveRepository jobArchiveRepository,
+                          TransactionTemplate transactionTemplate,
+                          CacheManager cacheManager) {
+        this.logger = logger;
+        this.properties = properties;
+        this.jobRepository = jobRepository;
+        this.jobArchiveRepository = jobArchiveRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.jobCache = Objects.requireNonNull(cacheManager.getCache(CacheConfiguration.JOB));
+    }
+
+    @Scheduled(cron = "0 0 4 * * *")
+    public void archiveOldJobs() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        long cutoff = System.currentTimeMillis() - Duration.ofDays(properties.getOlderThanDays()).toMillis();
+        logger.info("Archiving jobs older than {}", cutoff);
+
+        int total = 0;
+        List<Job> moved;
+        do {
+            moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            if (moved == null) {
+                break;
+            }
+            // evicted once the rows are gone, a summary cached before the commit would still point to the database
+            for (Job job : moved) {
+                jobCache.evict(job.getHash() + "/" + job.getTimestamp());
+            }
+            total += moved.size();
+        } while (!moved.isEmpty());
+
+        logger.info("Archived {} jobs", total);
+    }
+
+    private List<Job> archiveBatch(long cutoff) {
+        List<Job> jobs = jobRepository.findByTimestampLessThan(cutoff,
+                PageRequest.of(0, properties.getBatchSize(), Sort.by("timestamp")));
+        if (jobs.isEmpty()) {
+            return jobs;
+        }
+
+        try {
+            // segment is durable before the rows are removed, a crash in between only duplicates jobs in the archive
+            jobArchiveRepository.append(jobs);
+        } catch (Exception e) {
+            logger.error("Failed to archive jobs: {}", e.getMessage());
+            return List.of();
+        }
+
+        jobRepository.deleteAll(jobs);
+        return jobs;
+    }
+}
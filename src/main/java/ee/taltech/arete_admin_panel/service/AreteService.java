@@ -12,12 +12,16 @@ import ee.taltech.arete_admin_panel.domain.Job;
 import ee.taltech.arete_admin_panel.domain.Submission;
 import ee.taltech.arete_admin_panel.repository.JobRepository;
 import ee.taltech.arete_admin_panel.repository.SubmissionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -30,7 +34,8 @@ public class AreteService {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-    private final CacheService cacheService;
+    private final ClusterService clusterService;
+    private final MeterRegistry meterRegistry;
     private final SubmissionRepository submissionRepository;
     private final JobRepository jobRepository;
     private final LoadBalancerClient areteClient;
@@ -39,10 +44,28 @@ public class AreteService {
     public void parseAreteResponseDTO(AreteResponseDTO response) {
         logger.info("Saving job into DB for user: {} with hash: {} in: {}", response.getUniid(), response.getHash(), response.getRoot());
 
-        setDefaultValuesIfNull(response);
-        Submission submission = saveSubmission(response);
-        saveJob(response);
-        cacheService.enqueueSubmission(submission);
+        ingestTimer("defaults").record(() -> setDefaultValuesIfNull(response));
+        Submission submission = ingestTimer("submission").record(() -> saveSubmission(response));
+        ingestTimer("job").record(() -> saveJob(response));
+
+        // aggregates mark submissions as processed in the database, so they must not see uncommitted ones
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ingestTimer("enqueue").record(() -> clusterService.dispatch(submission, response));
+                }
+            });
+        } else {
+            ingestTimer("enqueue").record(() -> clusterService.dispatch(submission, response));
+        }
+    }
+
+    private Timer ingestTimer(String stage) {
+        return Timer.builder("arete.ingest")
+                .description("Time spent per stage of saving a tester response")
+                .tag("stage", stage)
+                .register(meterRegistry);
     }
 
     private void setDefaultValuesIfNull(AreteResponseDTO response) {
@@ -1,127 +1,496 @@
 package ee.taltech.arete_admin_panel.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheWriter;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import ee.taltech.arete_admin_panel.algorithms.DistinctCounter;
+import ee.taltech.arete_admin_panel.algorithms.Leaderboard;
+import ee.taltech.arete_admin_panel.algorithms.RollingWindow;
+import ee.taltech.arete_admin_panel.algorithms.SubmissionIndex;
+import ee.taltech.arete_admin_panel.algorithms.VersionedView;
+import ee.taltech.arete_admin_panel.configuration.CacheProperties;
+import ee.taltech.arete_admin_panel.configuration.ClusterProperties;
 import ee.taltech.arete_admin_panel.domain.Course;
+import ee.taltech.arete_admin_panel.domain.InternedKey;
 import ee.taltech.arete_admin_panel.domain.Slug;
 import ee.taltech.arete_admin_panel.domain.Student;
 import ee.taltech.arete_admin_panel.domain.Submission;
-import lombok.SneakyThrows;
+import ee.taltech.arete_admin_panel.exception.InvalidParameterException;
+import ee.taltech.arete_admin_panel.pojo.abi.cache.CacheStatisticsDTO;
+import ee.taltech.arete_admin_panel.pojo.abi.feed.FeedCourseDTO;
+import ee.taltech.arete_admin_panel.pojo.abi.feed.FeedSlugDTO;
+import ee.taltech.arete_admin_panel.pojo.abi.feed.FeedStudentDTO;
+import ee.taltech.arete_admin_panel.pojo.abi.feed.FeedSubmissionDTO;
+import ee.taltech.arete_admin_panel.pojo.abi.statistics.WindowStatisticsDTO;
+import ee.taltech.arete_admin_panel.repository.CacheSnapshotRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import org.slf4j.Logger;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Service
 public class CacheService {
 
     private final int CACHE_MAX_SIZE = 10000;
     private final Logger logger;
+    private final KeyInternService keyInternService;
+    private final AggregateService aggregateService;
+    private final CacheProperties properties;
+    private final ClusterProperties clusterProperties;
+    private final DistributionSummary batchSize;
+    private final Timer batchTimer;
+
+    private final List<Worker> workers = new ArrayList<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile Set<Long> replayedIds = null; // only set while replaying, see startReplay
+    private final Cache<Long, Boolean> enqueuedIds = Caffeine.newBuilder() // recently enqueued, checked by the cluster sweep
+            .maximumSize(100 * CACHE_MAX_SIZE)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+
+    private final SubmissionIndex submissionIndex = new SubmissionIndex();
+    private final Cache<Long, Submission> submissionCache = Caffeine.newBuilder()
+            .maximumSize(CACHE_MAX_SIZE)
+            .writer(submissionIndex)
+            .recordStats()
+            .build();
+    // what readers see, published by the workers after each batch
+    private final VersionedView<Integer, Student> studentView = new VersionedView<>(Student::getId, Student::copy);
+    private final VersionedView<Integer, Course> courseView = new VersionedView<>(Course::getId, Course::copy);
+    private final VersionedView<Integer, Slug> slugView = new VersionedView<>(Slug::getId, Slug::copy);
+    private final Cache<Integer, Student> studentCache = newCache(studentView);
+    private final Cache<Integer, Course> courseCache = newCache(courseView);
+    private final Cache<Integer, Slug> slugCache = newCache(slugView);
+    private final List<Consumer<Published>> publishListeners = new CopyOnWriteArrayList<>();
+
+    public CacheService(Logger logger,
+                        KeyInternService keyInternService,
+                        AggregateService aggregateService,
+                        CacheProperties properties,
+                        ClusterProperties clusterProperties,
+                        MeterRegistry meterRegistry) {
+        this.logger = logger;
+        this.keyInternService = keyInternService;
+        this.aggregateService = aggregateService;
+        this.properties = properties;
+        this.clusterProperties = clusterProperties;
+
+        Gauge.builder("arete.cache.queue", pending, AtomicInteger::get)
+                .description("Submissions enqueued but not yet visible to readers")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("arete.cache.batch.size")
+                .description("Submissions a worker drained at once")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("arete.cache.batch")
+                .description("Time to apply and publish a drained batch")
+                .register(meterRegistry);
+        // same tag keys as the spring caches bound by the actuator, prometheus rejects differing sets
+        CaffeineCacheMetrics.monitor(meterRegistry, submissionCache, "submission", cacheTags("submission"));
+        CaffeineCacheMetrics.monitor(meterRegistry, studentCache, "student", cacheTags("student"));
+        CaffeineCacheMetrics.monitor(meterRegistry, courseCache, "course", cacheTags("course"));
+        CaffeineCacheMetrics.monitor(meterRegistry, slugCache, "slug", cacheTags("slug"));
+    }
 
-    private final ConcurrentLinkedQueue<Submission> toProcess = new ConcurrentLinkedQueue<>();
-    private final AtomicBoolean isProcessing = new AtomicBoolean(false);
+    private static Tags cacheTags(String name) {
+        return Tags.of("cacheManager", "aggregate", "name", name);
+    }
 
-    private final Map<Integer, Submission> submissionCache = Collections
-            .synchronizedMap(new LinkedHashMap<>(CACHE_MAX_SIZE, 0.75f, false) {
-                @Override
-                protected boolean removeEldestEntry(final Map.Entry eldest) {
-                    return size() > CACHE_MAX_SIZE;
-                }
-            });
+    private <K extends Comparable<K>, V> Cache<K, V> newCache(VersionedView<K, V> view) {
+        // W-TinyLFU admission keeps frequently submitting students over one-off ones
+        return Caffeine.newBuilder()
+                .maximumSize(CACHE_MAX_SIZE)
+                .writer(new CacheWriter<K, V>() {
+                    @Override
+                    public void write(K key, V value) {
+                        // put back after an eviction, published again by whoever put it
+                        view.restore(key);
+                    }
+
+                    @Override
+                    public void delete(K key, V value, RemovalCause cause) {
+                        view.remove(key);
+                    }
+                })
+                .recordStats()
+                .build();
+    }
 
-    private final Map<Integer, Student> studentCache = Collections
-            .synchronizedMap(new LinkedHashMap<>(10000, 0.75f, false) {
-                @Override
-                protected boolean removeEldestEntry(final Map.Entry eldest) {
-                    return size() > CACHE_MAX_SIZE;
-                }
+    @PostConstruct
+    public void startWorkers() {
+        for (int i = 0; i < Math.max(1, properties.getWorkers()); i++) {
+            Worker worker = new Worker("aggregator-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        logger.info("Started {} aggregation workers", workers.size());
+
+        if (clusterProperties.isEnabled()) {
+            // other nodes add to the same students, so a student is read again from its persisted row after each flush
+            aggregateService.addFlushListener(ids -> {
+                studentCache.invalidateAll(ids);
+                studentView.publish(List.of());
             });
+        }
+    }
+
+    @PreDestroy
+    public void stopWorkers() {
+        workers.forEach(Thread::interrupt);
+    }
+
+    public void enqueueSubmission(Submission submission) {
+        Set<Long> replayedIds = this.replayedIds;
+        if (replayedIds != null && submission.getId() != null && !replayedIds.add(submission.getId())) {
+            // a live callback and the replay both saw this not yet aggregated submission
+            logger.debug("Skipping already enqueued submission {}", submission.getId());
+            return;
+        }
+        if (clusterProperties.isEnabled() && submission.getId() != null && enqueuedIds.asMap().putIfAbsent(submission.getId(), true) != null) {
+            // forwarded by another node and swept at the same time
+            logger.debug("Skipping already enqueued submission {}", submission.getId());
+            return;
+        }
+
+        logger.debug("Enqueueing submission {}", submission.getHash());
+        pending.incrementAndGet();
+        // a student is always aggregated by the same worker, so students need no locking
+        workers.get(shard(submission.getUniid())).queue.add(submission);
+    }
+
+    public boolean wasEnqueued(long id) {
+        return enqueuedIds.getIfPresent(id) != null;
+    }
+
+    /**
+     * Submissions enqueued but not yet applied.
+     */
+    public int getQueueSize() {
+        return pending.get();
+    }
+
+    /**
+     * Deduplicates enqueued submissions by id until {@link #finishReplay()}, so replaying not yet aggregated
+     * submissions can overlap with live callbacks.
+     */
+    public void startReplay() {
+        replayedIds = ConcurrentHashMap.newKeySet();
+    }
+
+    public void finishReplay() {
+        replayedIds = null;
+    }
+
+    private int shard(String uniid) {
+        int h = uniid == null ? 0 : uniid.hashCode();
+        h ^= h >>> 16;
+        return Math.floorMod(h, workers.size());
+    }
 
-    private final Map<Integer, Course> courseCache = Collections
-            .synchronizedMap(new LinkedHashMap<>(10000, 0.75f, false) {
-                @Override
-                protected boolean removeEldestEntry(final Map.Entry eldest) {
-                    return size() > CACHE_MAX_SIZE;
+    private void process(Submission submission, Batch batch) {
+        logger.info("Processing submission {}", submission.getHash());
+
+        // only this worker applies the student, so it is loaded without holding off flushes
+        Student student = getStudent(submission);
+        aggregateService.apply(() -> {
+            Course course = getCourse(submission);
+            Slug slug = getSlug(submission);
+
+            updateStudentSlugCourse(submission, student, slug, course);
+
+            updateSubmissionCache(submission);
+            updateStudentCache(student);
+
+            batch.students.put(student.getId(), student);
+            batch.courses.put(course.getId(), course);
+            batch.slugs.put(slug.getId(), slug);
+            batch.submissions.add(submission);
+        });
+    }
+
+    private static class Batch {
+        final List<Submission> submissions = new ArrayList<>();
+        final Map<Integer, Student> students = new HashMap<>();
+        final Map<Integer, Course> courses = new HashMap<>();
+        final Map<Integer, Slug> slugs = new HashMap<>();
+    }
+
+    /**
+     * Publishes every cached entity after changes outside the workers. Holds off the workers while copying.
+     */
+    private void publishAll() {
+        aggregateService.exclusive(() -> {
+            studentView.publish(studentCache.asMap().values());
+            courseView.publish(courseCache.asMap().values());
+            slugView.publish(slugCache.asMap().values());
+        });
+    }
+
+    /**
+     * Puts a submission into the submission cache without aggregating it again.
+     */
+    public void cacheSubmission(Submission submission) {
+        submissionCache.put(submission.getId(), submission);
+    }
+
+    // snapshots
+
+    /**
+     * Copies the cached state. Callers hold off the workers through {@link AggregateService#flush(Runnable)}.
+     */
+    public CacheSnapshotRepository.Snapshot exportState(long aggregatedSubmissions, long lastSubmissionId) {
+        return new CacheSnapshotRepository.Snapshot(aggregatedSubmissions, lastSubmissionId,
+                new ArrayList<>(studentCache.asMap().values()),
+                new ArrayList<>(courseCache.asMap().values()),
+                new ArrayList<>(slugCache.asMap().values()),
+                new ArrayList<>(submissionCache.asMap().values()));
+    }
+
+    public void restoreState(CacheSnapshotRepository.Snapshot snapshot) {
+        snapshot.getStudents().forEach(this::updateStudentCache);
+        // counters of a snapshot taken before the counting configuration changed can't be merged with new ones,
+        // the snapshot matches the persisted aggregates, so they are counted again from the members
+        DistinctCounter configured = aggregateService.newStudentCounter();
+        int recounted = 0;
+        for (Course course : snapshot.getCourses()) {
+            if (!course.getStudents().isConfiguredLike(configured)) {
+                course.setStudents(aggregateService.loadStudentCounter(InternedKey.Kind.COURSE, course.getId()));
+                course.setDifferentStudents((int) course.getStudents().count());
+                recounted++;
+            }
+            updateCourseCache(course);
+        }
+        for (Slug slug : snapshot.getSlugs()) {
+            if (!slug.getStudents().isConfiguredLike(configured)) {
+                slug.setStudents(aggregateService.loadStudentCounter(InternedKey.Kind.SLUG, slug.getId()));
+                slug.setDifferentStudents((int) slug.getStudents().count());
+                recounted++;
+            }
+            updateSlugCache(slug);
+        }
+        if (recounted > 0) {
+            logger.info("Recounted the students of {} courses and slugs with the changed counting configuration", recounted);
+        }
+        snapshot.getSubmissions().forEach(this::cacheSubmission);
+        publishAll();
+    }
+
+    /**
+     * Loads persisted aggregates into the caches when there is no usable snapshot, only the courses and slugs of
+     * owned course urls.
+     */
+    public void preload(Predicate<String> ownsCourse) {
+        List<Integer> courseIds = owned(aggregateService.findCourseUrls(), ownsCourse);
+        List<Integer> slugIds = owned(aggregateService.findSlugCourseUrls(), ownsCourse);
+        List<Integer> studentIds = aggregateService.findRecentStudentIds(CACHE_MAX_SIZE);
+        logger.info("Preloading {} courses, {} slugs and {} students", courseIds.size(), slugIds.size(), studentIds.size());
+
+        aggregateService.apply(() -> {
+            courseIds.forEach(id -> aggregateService.loadCourse(id).ifPresent(course -> courseCache.asMap().putIfAbsent(id, course)));
+            slugIds.forEach(id -> aggregateService.loadSlug(id).ifPresent(slug -> slugCache.asMap().putIfAbsent(id, slug)));
+        });
+        // one student at a time, so the workers are not held off for the whole preload
+        studentIds.forEach(id -> aggregateService.apply(() ->
+                aggregateService.loadStudent(id).ifPresent(student -> studentCache.asMap().putIfAbsent(id, student))));
+        publishAll();
+    }
+
+    /**
+     * Drops the courses and slugs of course urls this node no longer owns. Callers hold off the workers through
+     * {@link AggregateService#flush(Runnable)}, so nothing of them is pending.
+     */
+    public void retainCourses(Predicate<String> ownsCourse) {
+        courseCache.asMap().values().removeIf(course -> !ownsCourse.test(course.getGitUrl()));
+        slugCache.asMap().values().removeIf(slug -> !ownsCourse.test(slug.getCourseUrl()));
+        courseView.publish(List.of());
+        slugView.publish(List.of());
+    }
+
+    /**
+     * Replaces the owned courses and slugs with their persisted aggregates, which picks up what their previous
+     * owners flushed. The rolling windows are kept, they are not persisted. Callers hold off the workers through
+     * {@link AggregateService#flush(Runnable)}.
+     */
+    public void reloadCourses(Predicate<String> ownsCourse) {
+        for (Integer id : owned(aggregateService.findCourseUrls(), ownsCourse)) {
+            aggregateService.loadCourse(id).ifPresent(course -> {
+                Course previous = courseCache.getIfPresent(id);
+                if (previous != null) {
+                    course.setRecent(previous.getRecent());
                 }
+                courseCache.put(id, course);
             });
-
-    private final Map<Integer, Slug> slugCache = Collections
-            .synchronizedMap(new LinkedHashMap<>(10000, 0.75f, false) {
-                @Override
-                protected boolean removeEldestEntry(final Map.Entry eldest) {
-                    return size() > CACHE_MAX_SIZE;
+        }
+        for (Integer id : owned(aggregateService.findSlugCourseUrls(), ownsCourse)) {
+            aggregateService.loadSlug(id).ifPresent(slug -> {
+                Slug previous = slugCache.getIfPresent(id);
+                if (previous != null) {
+                    slug.setRecent(previous.getRecent());
                 }
+                slugCache.put(id, slug);
             });
-
-    public CacheService(Logger logger) {
-        this.logger = logger;
+        }
+        publishAll();
+        logger.info("Reloaded {} courses and {} slugs", courseCache.estimatedSize(), slugCache.estimatedSize());
     }
 
-    @SneakyThrows
-    public void enqueueSubmission(Submission submission) {
-        logger.debug("Enqueueing submission {}", submission.getHash());
-        toProcess.add(submission);
+    private static List<Integer> owned(Map<Integer, String> courseUrls, Predicate<String> ownsCourse) {
+        List<Integer> ids = new ArrayList<>();
+        courseUrls.forEach((id, courseUrl) -> {
+            if (ownsCourse.test(courseUrl)) {
+                ids.add(id);
+            }
+        });
+        return ids;
     }
 
-    @Async
-    @Scheduled(fixedRate = 100)
-    public void process() {
-        if (isProcessing.get()) {
-            return;
+    private class Worker extends Thread {
+
+        private final BlockingQueue<Submission> queue = new LinkedBlockingQueue<>();
+
+        Worker(String name) {
+            super(name);
+            setDaemon(true);
         }
-        isProcessing.set(true);
 
-        try {
-            while (toProcess.peek() != null) {
-                Submission submission = toProcess.poll();
-                logger.info("Processing submission {}", submission.getHash());
+        @Override
+        public void run() {
+            List<Submission> submissions = new ArrayList<>(properties.getBatchSize());
+            while (!isInterrupted()) {
+                try {
+                    submissions.add(queue.take());
+                } catch (InterruptedException e) {
+                    return;
+                }
+                queue.drainTo(submissions, properties.getBatchSize() - 1);
+
+                Batch batch = new Batch();
+                batchSize.record(submissions.size());
+                long start = System.nanoTime();
+                try {
+                    for (Submission submission : submissions) {
+                        try {
+                            process(submission, batch);
+                        } catch (Exception e) {
+                            logger.error("Failed to process submission {}", submission.getHash(), e);
+                        }
+                    }
+                    // students are only changed by this worker, courses and slugs are copied with the latest counters
+                    studentView.publish(batch.students.values());
+                    courseView.publish(batch.courses.values());
+                    slugView.publish(batch.slugs.values());
+                    notifyPublished(batch);
+                } finally {
+                    // counted as pending until readers can see them
+                    pending.addAndGet(-submissions.size());
+                    batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+                submissions.clear();
+            }
+        }
+    }
 
-                Course course = getCourse(submission);
-                Slug slug = getSlug(submission);
-                Student student = getStudent(submission);
+    /**
+     * Called by the workers with the submissions of every batch and the published copies of what they changed.
+     * The worker waits for the listeners, so they only hand the batch over.
+     */
+    public void addPublishListener(Consumer<Published> listener) {
+        publishListeners.add(listener);
+    }
 
-                updateStudentSlugCourse(submission, student, slug, course);
+    private void notifyPublished(Batch batch) {
+        if (publishListeners.isEmpty() || batch.submissions.isEmpty()) {
+            return;
+        }
 
-                updateSubmissionCache(submission);
-                updateCourseCache(course);
-                updateSlugCache(slug);
-                updateStudentCache(student);
+        // listeners read them on other threads, so nothing the workers go on changing is handed over
+        Published published = new Published(
+                batch.submissions.stream().map(FeedSubmissionDTO::of).collect(Collectors.toList()),
+                published(studentView, batch.students.keySet(), FeedStudentDTO::of),
+                published(courseView, batch.courses.keySet(), FeedCourseDTO::of),
+                published(slugView, batch.slugs.keySet(), FeedSlugDTO::of));
+        for (Consumer<Published> listener : publishListeners) {
+            try {
+                listener.accept(published);
+            } catch (Exception e) {
+                logger.error("Publish listener failed", e);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
+    }
+
+    private static <K extends Comparable<K>, V, D> List<D> published(VersionedView<K, V> view, Set<K> keys, Function<V, D> snapshot) {
+        VersionedView.Version<K, V> version = view.current();
+        List<D> values = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            version.get(key).map(snapshot).ifPresent(values::add);
+        }
+        return values;
+    }
 
-        isProcessing.set(false);
+    /**
+     * What a batch changed, immutable snapshots taken by the worker that published it.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Published {
+
+        private final List<FeedSubmissionDTO> submissions;
+        private final List<FeedStudentDTO> students;
+        private final List<FeedCourseDTO> courses;
+        private final List<FeedSlugDTO> slugs;
     }
 
     private Course getCourse(Submission submission) {
-        Optional<Course> optionalCourse = getCourse(submission.getGitTestSource());
-        return optionalCourse.orElseGet(() -> Course.builder()
-                .id(Objects.hash(submission.getGitTestSource()))
+        // courses and slugs are shared between workers, so they are created atomically inside the cache
+        int id = keyInternService.intern(InternedKey.Kind.COURSE, submission.getGitTestSource());
+        return courseCache.get(id, key -> aggregateService.loadCourse(key).orElseGet(() -> Course.builder()
+                .id(key)
                 .gitUrl(submission.getGitTestSource())
                 .name(submission.getRoot())
-                .build());
+                .students(aggregateService.newStudentCounter())
+                .build()));
     }
 
     private Slug getSlug(Submission submission) {
-        Optional<Slug> optionalSlug = getSlug(submission.getSlug(), submission.getGitTestSource());
-        return optionalSlug.orElseGet(() -> Slug.builder()
-                .id(Objects.hash(submission.getSlug(), submission.getGitTestSource()))
+        int id = keyInternService.intern(InternedKey.Kind.SLUG, KeyInternService.slugKey(submission.getSlug(), submission.getGitTestSource()));
+        return slugCache.get(id, key -> aggregateService.loadSlug(key).orElseGet(() -> Slug.builder()
+                .id(key)
                 .courseUrl(submission.getGitTestSource())
                 .name(submission.getSlug())
-                .build());
+                .students(aggregateService.newStudentCounter())
+                .build()));
     }
 
     private Student getStudent(Submission submission) {
-        Optional<Student> optionalStudent = getStudent(submission.getUniid());
-        Student student = optionalStudent.orElseGet(() -> Student.builder()
-                .id(Objects.hash(submission.getUniid()))
+        int id = keyInternService.intern(InternedKey.Kind.STUDENT, submission.getUniid());
+        Student student = studentCache.get(id, key -> aggregateService.loadStudent(key).orElseGet(() -> Student.builder()
+                .id(key)
                 .uniid(submission.getUniid())
                 .firstTested(submission.getTimestamp())
                 .lastTested(submission.getTimestamp())
-                .build());
+                .build()));
 
         if (student.getGitRepo() == null && submission.getGitStudentRepo() != null) {
             student.setGitRepo(submission.getGitTestSource());
@@ -133,8 +502,8 @@ public class CacheService {
     private void updateStudentSlugCourse(Submission submission, Student student, Slug slug, Course course) {
 
         if (submission.getStyle() != null && submission.getStyle() == 100) {
-            slug.setCommitsStyleOK(slug.getCommitsStyleOK() + 1);
-            course.setCommitsStyleOK(course.getCommitsStyleOK() + 1);
+            slug.getCommitsStyleOK().increment();
+            course.getCommitsStyleOK().increment();
             student.setCommitsStyleOK(student.getCommitsStyleOK() + 1);
         }
 
@@ -142,114 +511,265 @@ public class CacheService {
         int newTestPassed = submission.getTestsPassed() == null ? 0 : submission.getTestsPassed();
         int newTestsRan = submission.getTestsRan() == null ? 0 : submission.getTestsRan();
 
-        slug.setTotalCommits(slug.getTotalCommits() + 1);
-        course.setTotalCommits(course.getTotalCommits() + 1);
+        slug.getTotalCommits().increment();
+        course.getTotalCommits().increment();
         student.setTotalCommits(student.getTotalCommits() + 1);
 
-        slug.setTotalDiagnosticErrors(slug.getTotalDiagnosticErrors() + newDiagnosticErrors);
-        course.setTotalDiagnosticErrors(course.getTotalDiagnosticErrors() + newDiagnosticErrors);
+        slug.getTotalDiagnosticErrors().add(newDiagnosticErrors);
+        course.getTotalDiagnosticErrors().add(newDiagnosticErrors);
         student.setTotalDiagnosticErrors(student.getTotalDiagnosticErrors() + newDiagnosticErrors);
 
-        slug.setTotalTestsPassed(slug.getTotalTestsPassed() + newTestPassed);
-        course.setTotalTestsPassed(course.getTotalTestsPassed() + newTestPassed);
+        slug.getTotalTestsPassed().add(newTestPassed);
+        course.getTotalTestsPassed().add(newTestPassed);
         student.setTotalTestsPassed(student.getTotalTestsPassed() + newTestPassed);
 
-        slug.setTotalTestsRan(slug.getTotalTestsRan() + newTestsRan);
-        course.setTotalTestsRan(course.getTotalTestsRan() + newTestsRan);
+        slug.getTotalTestsRan().add(newTestsRan);
+        course.getTotalTestsRan().add(newTestsRan);
         student.setTotalTestsRan(student.getTotalTestsRan() + newTestsRan);
 
+        if (submission.getTimestamp() != null) {
+            slug.getRecent().add(submission.getTimestamp(), newTestsRan, newTestPassed);
+            course.getRecent().add(submission.getTimestamp(), newTestsRan, newTestPassed);
+        }
+
         student.getTimestamps().add(submission.getTimestamp());
         student.setLastTested(submission.getTimestamp());
 
+        student.getCourses().add(submission.getGitTestSource());
+        student.getSlugs().add(submission.getSlug());
+
         student.setDifferentCourses(student.getCourses().size());
         student.setDifferentSlugs(student.getSlugs().size());
 
-        student.getCourses().add(submission.getGitTestSource());
-        student.getSlugs().add(submission.getSlug());
+        // membership is decided on the student, which only this worker touches, so it stays exact with sketches
+        Leaderboard.Scores submitted = new Leaderboard.Scores(newTestPassed, newDiagnosticErrors, 1);
+        boolean newSlugMember = !student.getSlugScores().containsKey(slug.getId());
+        Leaderboard.Scores slugScores = student.getSlugScores().merge(slug.getId(), submitted, Leaderboard.Scores::plus);
+        if (newSlugMember && slug.getStudents().add(submission.getUniid())) {
+            slug.setDifferentStudents((int) slug.getStudents().count());
+        }
 
-        slug.getStudents().add(submission.getUniid());
-        slug.setDifferentStudents(slug.getStudents().size());
+        boolean newCourseMember = !student.getCourseScores().containsKey(course.getId());
+        Leaderboard.Scores courseScores = student.getCourseScores().merge(course.getId(), submitted, Leaderboard.Scores::plus);
+        if (newCourseMember && course.getStudents().add(submission.getUniid())) {
+            course.setDifferentStudents((int) course.getStudents().count());
+        }
+
+        // ranked by what the student submitted to this slug and course, not by the student's totals
+        slug.getLeaders().update(student.getUniid(), slugScores);
+        course.getLeaders().update(student.getUniid(), courseScores);
 
-        course.getStudents().add(submission.getUniid());
-        course.setDifferentStudents(course.getStudents().size());
+        aggregateService.record(submission, student, slug, course, newSlugMember, newCourseMember);
     }
 
     // update
 
     public void updateStudentCache(Student student) {
         logger.debug("Update student cache");
-        studentCache.put(Objects.hash(student.getUniid()), student);
+        studentCache.put(student.getId(), student);
     }
 
     public void updateSlugCache(Slug slug) {
         logger.debug("Update slug cache");
-        slugCache.put(Objects.hash(slug.getName(), slug.getCourseUrl()), slug);
+        slugCache.put(slug.getId(), slug);
     }
 
     public void updateSubmissionCache(Submission submission) {
         logger.debug("Update submission cache");
-        submissionCache.put(Objects.hash(submission.getId()), submission);
+        submissionCache.put(submission.getId(), submission);
     }
 
     public void updateCourseCache(Course course) {
         logger.debug("Update course cache");
-        courseCache.put(Objects.hash(course.getGitUrl()), course);
+        courseCache.put(course.getId(), course);
     }
 
     // singleton by values
 
     public Optional<Course> getCourse(String gitUrl) {
         logger.info("Getting course by url {}", gitUrl);
-        return Optional.ofNullable(courseCache.getOrDefault(Objects.hash(gitUrl), null));
+        return getCourse(keyInternService.find(InternedKey.Kind.COURSE, gitUrl));
     }
 
     public Optional<Slug> getSlug(String name, String gitUrl) {
         logger.info("Getting slug by name {} and url {}", name, gitUrl);
-        return Optional.ofNullable(slugCache.getOrDefault(Objects.hash(name, gitUrl), null));
+        return getSlug(keyInternService.find(InternedKey.Kind.SLUG, KeyInternService.slugKey(name, gitUrl)));
     }
 
     public Optional<Student> getStudent(String uniid) {
         logger.info("Getting student by uniid {}", uniid);
-        return Optional.ofNullable(studentCache.getOrDefault(Objects.hash(uniid), null));
+        return getStudent(keyInternService.find(InternedKey.Kind.STUDENT, uniid));
     }
 
     // collection
 
     public Collection<Submission> getSubmissionList() {
         logger.info("Reading all submissions from cache");
-        return submissionCache.values();
+        return submissionCache.asMap().values();
+    }
+
+    /**
+     * Cached submissions matching the filters, newest first unless ascending, answered from the submission index.
+     */
+    public List<Submission> querySubmissions(Map<SubmissionIndex.Field, String> filters, boolean ascending, SubmissionIndex.Cursor after, int limit) {
+        logger.info("Querying submissions from cache by {} after {}", filters, after);
+        return submissionIndex.query(filters, ascending, after, limit);
+    }
+
+    public Map<String, Long> countSubmissions(Map<SubmissionIndex.Field, String> filters, SubmissionIndex.Field groupBy) {
+        logger.info("Counting submissions from cache by {} grouped by {}", filters, groupBy);
+        return submissionIndex.count(filters, groupBy);
+    }
+
+    /**
+     * Versions of the lists, changing whenever the list may have changed. Read them before the list.
+     */
+    public long getStudentVersion() {
+        // students of a cluster are read from the aggregates, which have no version
+        return clusterProperties.isEnabled() ? ResponseCacheService.UNVERSIONED : studentView.current().getEpoch();
+    }
+
+    public long getCourseVersion() {
+        return courseView.current().getEpoch();
+    }
+
+    public long getSlugVersion() {
+        return slugView.current().getEpoch();
+    }
+
+    public long getSubmissionVersion() {
+        return submissionIndex.getVersion();
     }
 
     public Collection<Student> getStudentList() {
+        if (clusterProperties.isEnabled()) {
+            // students are shared by all nodes, their persisted aggregates are the same for every node
+            logger.info("Reading recent students from aggregates");
+            List<Student> students = new ArrayList<>();
+            aggregateService.apply(() -> students.addAll(aggregateService.loadRecentStudents(CACHE_MAX_SIZE)));
+            return students;
+        }
         logger.info("Reading all students from cache");
-        return studentCache.values();
+        return studentView.current().values();
+    }
+
+    /**
+     * Pages of the lists in id order, read without going through the entries before the page.
+     */
+    public List<Student> getStudentPage(Integer after, int limit) {
+        if (clusterProperties.isEnabled()) {
+            logger.info("Reading students after {} from aggregates", after);
+            List<Student> students = new ArrayList<>();
+            aggregateService.apply(() -> students.addAll(aggregateService.loadStudentPage(after == null ? Integer.MIN_VALUE : after, limit)));
+            return students;
+        }
+        logger.info("Reading students after {} from cache", after);
+        return studentView.current().page(after, limit);
+    }
+
+    public List<Course> getCoursePage(Integer after, int limit) {
+        logger.info("Reading courses after {} from cache", after);
+        return courseView.current().page(after, limit);
+    }
+
+    public List<Slug> getSlugPage(Integer after, int limit) {
+        logger.info("Reading slugs after {} from cache", after);
+        return slugView.current().page(after, limit);
     }
 
     public Collection<Course> getCourseList() {
         logger.info("Reading all courses from cache");
-        return courseCache.values();
+        return courseView.current().values();
     }
 
     public Collection<Slug> getSlugList() {
         logger.info("Reading all slugs from cache");
-        return slugCache.values();
+        return slugView.current().values();
+    }
+
+    /**
+     * Distinct students who submitted any of the given slugs of a course, all slugs of the course if none are given.
+     * Merges the slug counters, so the result is an estimate once a slug switched to a sketch.
+     */
+    public long countDistinctStudents(String gitUrl, Collection<String> slugNames) {
+        DistinctCounter students = aggregateService.newStudentCounter();
+        for (Slug slug : slugCache.asMap().values()) {
+            if (gitUrl.equals(slug.getCourseUrl()) && (slugNames.isEmpty() || slugNames.contains(slug.getName()))) {
+                students.merge(slug.getStudents());
+            }
+        }
+        return students.count();
+    }
+
+    /**
+     * Counts already aggregated submissions into the rolling windows, for rebuilding the windows after a restart.
+     */
+    public void restoreRecent(Submission submission) {
+        if (submission.getTimestamp() == null) {
+            return;
+        }
+        int testsRan = submission.getTestsRan() == null ? 0 : submission.getTestsRan();
+        int testsPassed = submission.getTestsPassed() == null ? 0 : submission.getTestsPassed();
+        getCourse(keyInternService.find(InternedKey.Kind.COURSE, submission.getGitTestSource()))
+                .ifPresent(course -> course.getRecent().add(submission.getTimestamp(), testsRan, testsPassed));
+        getSlug(keyInternService.find(InternedKey.Kind.SLUG, KeyInternService.slugKey(submission.getSlug(), submission.getGitTestSource())))
+                .ifPresent(slug -> slug.getRecent().add(submission.getTimestamp(), testsRan, testsPassed));
+    }
+
+    public List<WindowStatisticsDTO> getWindowStatistics(RollingWindow recent, List<String> windows) {
+        long now = System.currentTimeMillis();
+        List<WindowStatisticsDTO> statistics = new ArrayList<>();
+        for (String window : windows) {
+            Duration duration;
+            try {
+                duration = DurationStyle.detectAndParse(window);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidParameterException("Expected a window like 5m, 1h or 24h: " + window);
+            }
+            if (duration.isNegative() || duration.isZero() || duration.toMillis() > RollingWindow.BUCKETS * RollingWindow.BUCKET_MILLIS) {
+                throw new InvalidParameterException("Expected a window of at most 24h: " + window);
+            }
+            statistics.add(WindowStatisticsDTO.of(window, recent.sum(duration.toMillis(), now)));
+        }
+        return statistics;
+    }
+
+    // statistics
+
+    public Map<String, CacheStatisticsDTO> getCacheStatistics() {
+        Map<String, CacheStatisticsDTO> statistics = new LinkedHashMap<>();
+        statistics.put("submission", CacheStatisticsDTO.of(submissionCache));
+        statistics.put("student", CacheStatisticsDTO.of(studentCache));
+        statistics.put("course", CacheStatisticsDTO.of(courseCache));
+        statistics.put("slug", CacheStatisticsDTO.of(slugCache));
+        return statistics;
     }
 
     // singleton by key
 
-    public Optional<Student> getStudent(Integer id) {
-        return Optional.ofNullable(studentCache.getOrDefault(id, null));
+    public Optional<Student> getStudent(int id) {
+        if (id == KeyInternService.MISSING) {
+            return Optional.empty();
+        }
+        Student student = studentView.current().get(id).orElse(null);
+        if (student == null && clusterProperties.isEnabled()) {
+            // not cached after a flush, or only aggregated by other nodes
+            List<Student> loaded = new ArrayList<>(1);
+            aggregateService.apply(() -> aggregateService.loadStudent(id).ifPresent(loaded::add));
+            return loaded.stream().findFirst();
+        }
+        return Optional.ofNullable(student);
     }
 
-    public Optional<Slug> getSlug(Integer id) {
-        return Optional.ofNullable(slugCache.getOrDefault(id, null));
+    public Optional<Slug> getSlug(int id) {
+        return id == KeyInternService.MISSING ? Optional.empty() : slugView.current().get(id);
     }
 
-    public Optional<Course> getCourse(Integer id) {
-        return Optional.ofNullable(courseCache.getOrDefault(id, null));
+    public Optional<Course> getCourse(int id) {
+        return id == KeyInternService.MISSING ? Optional.empty() : courseView.current().get(id);
     }
 
-    public Optional<Submission> getSubmission(Integer id) {
-        return Optional.ofNullable(submissionCache.getOrDefault(id, null));
+    public Optional<Submission> getSubmission(long id) {
+        return Optional.ofNullable(submissionCache.getIfPresent(id));
     }
 }
@@ -0,0 +1,272 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete.java.response.arete.AreteResponseDTO;
+import ee.taltech.arete_admin_panel.algorithms.ConsistentHashRing;
+import ee.taltech.arete_admin_panel.configuration.ClusterProperties;
+import ee.taltech.arete_admin_panel.domain.ClusterNode;
+import ee.taltech.arete_admin_panel.domain.Submission;
+import ee.taltech.arete_admin_panel.repository.ClusterNodeRepository;
+import ee.taltech.arete_admin_panel.repository.SubmissionRepository;
+import org.slf4j.Logger;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Partitions aggregation between the nodes behind the load balancer by consistent hashing of the course url.
+ * <p>
+ * Nodes announce themselves with a heartbeat in {@code cluster_node} and build the same ring from the live rows.
+ * The owner of a course aggregates all of its submissions, other nodes forward them to it and route reads of the
+ * course and its slugs to it. Submissions whose forwarding failed stay not aggregated and are picked up by the
+ * owner's sweep. When the membership changes every node drops the courses it lost, and one heartbeat later, once
+ * the previous owners flushed, reloads the courses it gained from the persisted aggregates.
+ */
+@Service
+public class ClusterService {
+
+    public static final String API = "/services/arete/api/v2";
+    public static final String TOKEN_HEADER = "X-Cluster-Token";
+    public static final String FORWARDED_HEADER = "X-Cluster-Forwarded"; // set on requests between nodes, never routed again
+
+    private final Logger logger;
+    private final ClusterProperties properties;
+    private final ClusterNodeRepository clusterNodeRepository;
+    private final SubmissionRepository submissionRepository;
+    private final CacheService cacheService;
+    private final AggregateService aggregateService;
+    private final LatencyService latencyService;
+    private final UnitTestStatisticService unitTestStatisticService;
+    private final RestTemplate restTemplate;
+
+    private final String nodeId;
+    private final String url;
+    private volatile ConsistentHashRing ring;
+    private volatile Map<String, String> urls = Map.of();
+    private volatile boolean reloadOwned = false;
+    private volatile long sweptUntil = 0L;
+
+    public ClusterService(Logger logger,
+                          ClusterProperties properties,
+                          ClusterNodeRepository clusterNodeRepository,
+                          SubmissionRepository submissionRepository,
+                          CacheService cacheService,
+                          AggregateService aggregateService,
+                          LatencyService latencyService,
+                          UnitTestStatisticService unitTestStatisticService,
+                          RestTemplateBuilder restTemplateBuilder,
+                          Environment environment) {
+        this.logger = logger;
+        this.properties = properties;
+        this.clusterNodeRepository = clusterNodeRepository;
+        this.submissionRepository = submissionRepository;
+        this.cacheService = cacheService;
+        this.aggregateService = aggregateService;
+        this.latencyService = latencyService;
+        this.unitTestStatisticService = unitTestStatisticService;
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofMillis(properties.getRequestTimeout()))
+                .setReadTimeout(Duration.ofMillis(properties.getRequestTimeout()))
+                .build();
+
+        String port = environment.getProperty("server.port", "8080");
+        this.nodeId = properties.getNodeId().isEmpty() ? hostName() + ":" + port : properties.getNodeId();
+        this.url = properties.getUrl().isEmpty() ? "http://localhost:" + port : properties.getUrl();
+        this.ring = new ConsistentHashRing(List.of(nodeId), properties.getVirtualNodes());
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    @PostConstruct
+    public void join() {
+        if (isEnabled()) {
+            // the ring is known before the warm-up preloads the owned courses
+            heartbeat();
+            logger.info("Joined cluster as {} at {}", nodeId, url);
+        }
+    }
+
+    @PreDestroy
+    public void leave() {
+        if (isEnabled()) {
+            // flushed first, so whoever takes over the courses loads them complete
+            aggregateService.flush();
+            clusterNodeRepository.deleteById(nodeId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${arete.cluster.heartbeat-interval:5000}", initialDelayString = "${arete.cluster.heartbeat-interval:5000}")
+    public void heartbeat() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        try {
+            clusterNodeRepository.save(ClusterNode.builder().nodeId(nodeId).url(url).heartbeat(now).build());
+            Map<String, String> live = clusterNodeRepository.findByHeartbeatGreaterThanOrderByNodeId(now - properties.getNodeTimeout()).stream()
+                    .collect(Collectors.toMap(ClusterNode::getNodeId, ClusterNode::getUrl));
+            live.put(nodeId, url);
+
+            if (!live.keySet().equals(ring.getNodes())) {
+                logger.info("Cluster membership changed to {}", live.keySet());
+                urls = live;
+                ring = new ConsistentHashRing(live.keySet(), properties.getVirtualNodes());
+                aggregateService.flush(() -> cacheService.retainCourses(this::isOwner));
+                reloadOwned = true;
+            } else if (reloadOwned) {
+                reloadOwned = !aggregateService.flush(() -> cacheService.reloadCourses(this::isOwner));
+            }
+            urls = live;
+        } catch (Exception e) {
+            logger.error("Cluster heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Whether this node aggregates the course, always true outside a cluster.
+     */
+    public boolean isOwner(String courseUrl) {
+        return ownerUrl(courseUrl).isEmpty();
+    }
+
+    /**
+     * Url of the node owning the course, empty if this node owns it.
+     */
+    public Optional<String> ownerUrl(String courseUrl) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        return ring.owner(courseUrl).filter(owner -> !owner.equals(nodeId)).map(urls::get);
+    }
+
+    public Map<String, String> getNodes() {
+        return isEnabled() ? new TreeMap<>(urls) : Map.of(nodeId, url);
+    }
+
+    public Collection<String> peerUrls() {
+        if (!isEnabled()) {
+            return List.of();
+        }
+        return urls.entrySet().stream()
+                .filter(entry -> !entry.getKey().equals(nodeId))
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+    }
+
+    // submissions
+
+    /**
+     * Aggregates a committed submission here or forwards it with its tester response to the owner of its course.
+     */
+    public void dispatch(Submission submission, AreteResponseDTO response) {
+        Optional<String> owner = ownerUrl(submission.getGitTestSource());
+        if (owner.isEmpty()) {
+            accept(submission, response);
+            return;
+        }
+
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(TOKEN_HEADER, properties.getToken());
+            restTemplate.postForEntity(owner.get() + API + "/cluster/submission/" + submission.getId(),
+                    new HttpEntity<>(response, headers), Void.class);
+        } catch (RestClientException e) {
+            logger.warn("Failed to forward submission {} to {}, leaving it to the sweep: {}", submission.getId(), owner.get(), e.getMessage());
+        }
+    }
+
+    public void accept(Submission submission, AreteResponseDTO response) {
+        cacheService.enqueueSubmission(submission);
+        latencyService.record(response);
+        unitTestStatisticService.record(response);
+    }
+
+    /**
+     * Whether a request carries the token shared by the nodes. Without a configured token nothing is trusted.
+     */
+    public boolean isTrusted(String token) {
+        return isEnabled() && !properties.getToken().isEmpty() && properties.getToken().equals(token);
+    }
+
+    /**
+     * Accepts a submission another node forwarded, false if the submission does not exist.
+     */
+    public boolean acceptForwarded(long id, AreteResponseDTO response) {
+        Optional<Submission> submission = submissionRepository.findById(id);
+        submission.ifPresent(value -> accept(value, response));
+        return submission.isPresent();
+    }
+
+    /**
+     * Enqueues owned submissions that stayed not aggregated for a whole sweep interval, because forwarding them failed
+     * or their owner left before aggregating them.
+     */
+    @Scheduled(fixedDelayString = "${arete.cluster.node-timeout:15000}", initialDelayString = "${arete.cluster.node-timeout:15000}")
+    public void sweep() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        long until = sweptUntil;
+        sweptUntil = submissionRepository.findLastId();
+        long after = 0L;
+        int swept = 0;
+        List<Submission> page;
+        do {
+            page = submissionRepository.findNotAggregatedAfter(after, PageRequest.of(0, 1000));
+            for (Submission submission : page) {
+                if (submission.getId() <= until && isOwner(submission.getGitTestSource()) && !cacheService.wasEnqueued(submission.getId())) {
+                    cacheService.enqueueSubmission(submission);
+                    swept++;
+                }
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 1000 && after <= until);
+
+        if (swept > 0) {
+            logger.info("Swept {} submissions missing from the aggregates", swept);
+        }
+    }
+
+    // reads
+
+    /**
+     * Gets a path from another node on behalf of a client, with the client's authorization.
+     */
+    public ResponseEntity<byte[]> get(String nodeUrl, String pathAndQuery, String authorization) {
+        HttpHeaders headers = new HttpHeaders();
+        if (authorization != null) {
+            headers.set(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        headers.set(FORWARDED_HEADER, nodeId);
+        return restTemplate.exchange(nodeUrl + pathAndQuery, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+    }
+}
@@ -0,0 +1,107 @@
+package ee.taltech.arete_admin_panel.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import ee.taltech.arete_admin_panel.configuration.ExportProperties;
+import ee.taltech.arete_admin_panel.domain.Job;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes jobs as newline delimited JSON straight from a database cursor.
+ * <p>
+ * The jobs are scrolled forward only in a read only transaction with a fetch size, so Postgres keeps the result on the
+ * server and sends it a page of rows at a time. The persistence context is cleared after every page, which keeps
+ * memory constant however many jobs are exported.
+ */
+@Service
+public class JobExportService {
+
+    private final Logger logger;
+    private final ExportProperties properties;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter writer;
+
+    public JobExportService(Logger logger,
+                            ExportProperties properties,
+                            EntityManager entityManager,
+                            PlatformTransactionManager transactionManager,
+                            ObjectMapper objectMapper) {
+        this.logger = logger;
+        this.properties = properties;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // one job per line, flushed by the page rather than by the job
+        this.writer = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Writes the jobs of the course, of one exercise if a slug is given, with timestamps in [from, to) in timestamp
+     * order, one JSON object per line.
+     *
+     * @return number of jobs written
+     */
+    public long export(String course, String slug, long from, long to, OutputStream out) {
+        logger.info("Exporting jobs of {} {} from {} to {}", course, slug, from, to);
+        Long exported = transactionTemplate.execute(status -> {
+            try (JsonGenerator generator = writer.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                return write(course, slug, from, to, generator);
+            } catch (IOException e) {
+                // the client went away, the cursor is closed with the transaction
+                throw new UncheckedIOException(e);
+            }
+        });
+        logger.info("Exported {} jobs of {}", exported, course);
+        return exported == null ? 0 : exported;
+    }
+
+    private long write(String course, String slug, long from, long to, JsonGenerator generator) throws IOException {
+        Session session = entityManager.unwrap(Session.class);
+        Query<Job> query = session.createQuery("select j from Job j where j.gitTestRepo = :course" +
+                (slug == null ? "" : " and j.slug = :slug") +
+                " and j.timestamp >= :from and j.timestamp < :to order by j.timestamp, j.id", Job.class)
+                .setParameter("course", course)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setFetchSize(properties.getFetchSize())
+                .setReadOnly(true)
+                .setCacheable(false);
+        if (slug != null) {
+            query.setParameter("slug", slug);
+        }
+
+        long written = 0;
+        try (ScrollableResults rows = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                writer.writeValue(generator, rows.get(0));
+                if (++written % properties.getFetchSize() == 0) {
+                    generator.flush();
+                    session.clear();
+                }
+            }
+        }
+        if (written > 0) {
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+        return written;
+    }
+}
@@ -0,0 +1,153 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete_admin_panel.configuration.CacheConfiguration;
+import ee.taltech.arete_admin_panel.configuration.JobPartitionProperties;
+import org.slf4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+
+@Service
+@ConditionalOnProperty(name = "spring.jpa.database", havingValue = "POSTGRESQL")
+public class JobPartitionService {
+
+    private static final String PARENT = "job";
+    private static final String DEFAULT = PARENT + "_default";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+    // rows referencing the jobs of a partition, deleted before it is dropped. job(id) is not unique, so there are no
+    // foreign keys to cascade, and the join rows go in the same statement as the rows they point to
+    private static final List<String> CHILD_DELETES = List.of(
+            "DELETE FROM depended_groups WHERE id IN (SELECT u.unit_tests_id FROM text_context_unit_tests u " +
+                    "JOIN job_test_suites s ON s.test_suites_id = u.test_context_id WHERE s.job_id IN (SELECT id FROM %s))",
+            "DELETE FROM depended_methods WHERE id IN (SELECT u.unit_tests_id FROM text_context_unit_tests u " +
+                    "JOIN job_test_suites s ON s.test_suites_id = u.test_context_id WHERE s.job_id IN (SELECT id FROM %s))",
+            "WITH links AS (DELETE FROM text_context_unit_tests WHERE test_context_id IN " +
+                    "(SELECT test_suites_id FROM job_test_suites WHERE job_id IN (SELECT id FROM %s)) RETURNING unit_tests_id) " +
+                    "DELETE FROM unit_test WHERE id IN (SELECT unit_tests_id FROM links)",
+            "WITH suites AS (DELETE FROM job_test_suites WHERE job_id IN (SELECT id FROM %s) RETURNING test_suites_id) " +
+                    "DELETE FROM text_context WHERE id IN (SELECT test_suites_id FROM suites)",
+            "WITH errors AS (DELETE FROM job_errors WHERE job_id IN (SELECT id FROM %s) RETURNING errors_id) " +
+                    "DELETE FROM error WHERE id IN (SELECT errors_id FROM errors)",
+            "DELETE FROM system_extra WHERE id IN (SELECT id FROM %s)");
+
+    private final Logger logger;
+    private final JdbcTemplate jdbcTemplate;
+    private final JobPartitionProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache jobCache;
+
+    public JobPartitionService(Logger logger, JdbcTemplate jdbcTemplate, JobPartitionProperties properties,
+                               PlatformTransactionManager transactionManager, CacheManager cacheManager) {
+        this.logger = logger;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jobCache = Objects.requireNonNull(cacheManager.getCache(CacheConfiguration.JOB));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 3 * * *")
+    public void maintainPartitions() {
+        if (!isPartitioned()) {
+            logger.warn("Table {} is not partitioned. Skipping partition maintenance", PARENT);
+            return;
+        }
+
+        YearMonth now = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= properties.getMonthsAhead(); i++) {
+            createPartition(now.plusMonths(i));
+        }
+
+        if (properties.getRetentionMonths() > 0) {
+            retirePartitionsBefore(now.minusMonths(properties.getRetentionMonths()));
+        }
+    }
+
+    public static String partitionName(YearMonth month) {
+        return PARENT + "_" + month.format(PARTITION_SUFFIX);
+    }
+
+    private boolean isPartitioned() {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT c.relkind::text FROM pg_class c WHERE c.relname = ? AND pg_table_is_visible(c.oid)", String.class, PARENT);
+        return kinds.contains("p");
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        long from = month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        long to = month.plusMonths(1).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name)) {
+            return;
+        }
+
+        try {
+            transactionTemplate.execute(status -> {
+                Boolean defaultHasRows = jdbcTemplate.queryForObject(String.format(
+                        "SELECT EXISTS (SELECT 1 FROM %s WHERE timestamp >= ? AND timestamp < ?)", DEFAULT), Boolean.class, from, to);
+                if (!defaultHasRows) {
+                    jdbcTemplate.execute(String.format(
+                            "CREATE TABLE %s PARTITION OF %s FOR VALUES FROM (%d) TO (%d)", name, PARENT, from, to));
+                    return null;
+                }
+
+                // the new partition would overlap rows of the default partition, so they are moved into it first
+                logger.info("Moving rows of partition {} out of {}", name, DEFAULT);
+                jdbcTemplate.execute(String.format("ALTER TABLE %s DETACH PARTITION %s", PARENT, DEFAULT));
+                jdbcTemplate.execute(String.format(
+                        "CREATE TABLE %s PARTITION OF %s FOR VALUES FROM (%d) TO (%d)", name, PARENT, from, to));
+                jdbcTemplate.update(String.format(
+                        "INSERT INTO %s SELECT * FROM %s WHERE timestamp >= ? AND timestamp < ?", PARENT, DEFAULT), from, to);
+                jdbcTemplate.update(String.format("DELETE FROM %s WHERE timestamp >= ? AND timestamp < ?", DEFAULT), from, to);
+                jdbcTemplate.execute(String.format("ALTER TABLE %s ATTACH PARTITION %s DEFAULT", PARENT, DEFAULT));
+                return null;
+            });
+            logger.debug("Created partition {} [{}, {})", name, from, to);
+        } catch (Exception e) {
+            logger.error("Failed to create partition {}: {}", name, e.getMessage());
+        }
+    }
+
+    private void retirePartitionsBefore(YearMonth oldestKept) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname::text FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ?", String.class, PARENT);
+
+        String oldestKeptName = partitionName(oldestKept);
+        for (String partition : partitions) {
+            // names are zero padded, so lexicographic order is chronological order
+            if (!partition.matches(PARENT + "_y\\d{4}m\\d{2}") || partition.compareTo(oldestKeptName) >= 0) {
+                continue;
+            }
+
+            logger.info("Retiring partition {} ({})", partition, properties.getRetentionMode());
+            transactionTemplate.execute(status -> {
+                if (properties.getRetentionMode() == JobPartitionProperties.RetentionMode.DROP) {
+                    for (String delete : CHILD_DELETES) {
+                        jdbcTemplate.update(String.format(delete, partition));
+                    }
+                }
+                jdbcTemplate.execute(String.format("ALTER TABLE %s DETACH PARTITION %s", PARENT, partition));
+                if (properties.getRetentionMode() == JobPartitionProperties.RetentionMode.DROP) {
+                    jdbcTemplate.execute(String.format("DROP TABLE %s", partition));
+                }
+                return null;
+            });
+            // the jobs of the partition are not tracked one by one, so every cached summary is dropped
+            jobCache.clear();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete_admin_panel.algorithms.SubmissionIndex;
+import ee.taltech.arete_admin_panel.pojo.abi.job.JobSearchHitDTO;
+import org.slf4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Finds jobs by the words of their output, error messages and unit test exceptions, newest first.
+ * <p>
+ * On Postgres every searched text has a GIN index over its {@code tsvector}, created on startup and kept up to date by
+ * the database as jobs are saved. Dots, colons, slashes, dollars and backslashes are indexed as spaces, so
+ * {@code java.lang.StackOverflowError} is found by {@code StackOverflowError} too. Other databases are scanned with
+ * {@code LIKE}, which is only good enough for development. Archived jobs are not searched.
+ */
+@Service
+public class JobSearchService {
+
+    public static final int MAX_LIMIT = 1000;
+    private static final int INDEXED_LENGTH = 262144; // characters of a text indexed, keeps its tsvector below the 1MB limit
+    private static final String SEPARATORS = ".:/$\\";
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private enum Source {
+        OUTPUT("job_output_search", "job", "output"),
+        ERROR("error_message_search", "error", "message"),
+        UNIT_TEST("unit_test_exception_search", "unit_test", "exception_class", "exception_message");
+
+        private final String index;
+        private final String table;
+        private final String text;
+
+        Source(String index, String table, String... columns) {
+            this.index = index;
+            this.table = table;
+            this.text = Arrays.stream(columns).map(column -> "coalesce(" + column + ", '')")
+                    .collect(Collectors.joining(" || ' ' || "));
+        }
+
+        // queries repeat the index expression exactly, otherwise the planner does not use the index
+        String vector() {
+            return "to_tsvector('simple', translate(left(" + text + ", " + INDEXED_LENGTH + "), '" + SEPARATORS + "', '" +
+                    " ".repeat(SEPARATORS.length()) + "'))";
+        }
+    }
+
+    private final Logger logger;
+    private final JdbcTemplate jdbcTemplate;
+    private boolean postgres;
+
+    public JobSearchService(Logger logger, JdbcTemplate jdbcTemplate) {
+        this.logger = logger;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void detectDatabase() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        postgres = "PostgreSQL".equals(product);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        if (!postgres) {
+            logger.warn("Full text indexes need Postgres. Job search scans the tables");
+            return;
+        }
+
+        for (Source source : Source.values()) {
+            long start = System.currentTimeMillis();
+            try {
+                // built once, the first start after an upgrade blocks writes to the table until it is done
+                jdbcTemplate.execute(String.format("CREATE INDEX IF NOT EXISTS %s ON %s USING gin (%s)",
+                        source.index, source.table, source.vector()));
+                logger.debug("Ensured index {} in {} ms", source.index, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                logger.error("Failed to create index {}: {}", source.index, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Words of the query, every one of them has to be in the same output, error message or unit test exception.
+     */
+    public static List<String> terms(String query) {
+        List<String> terms = new ArrayList<>();
+        for (String term : NON_WORD.split(query.toLowerCase(Locale.ROOT))) {
+            if (!term.isEmpty() && !terms.contains(term)) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Jobs matching all terms with timestamps from inclusive to exclusive, newest first.
+     *
+     * @param course git url of the tests, all courses if null
+     * @param slug   all exercises if null
+     * @param after  last job of the previous page, from the newest job if null
+     */
+    public List<JobSearchHitDTO> search(List<String> terms, String course, String slug, long from, long to, SubmissionIndex.Cursor after, int limit) {
+        logger.info("Searching jobs for {} of course {} and slug {}", terms, course, slug);
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT id, hash, timestamp, uniid, slug, git_test_repo, failed FROM job WHERE id IN (")
+                .append("SELECT id FROM job WHERE ").append(matches(Source.OUTPUT, terms, args))
+                .append(" UNION SELECT job_id FROM job_errors WHERE errors_id IN (SELECT id FROM error WHERE ")
+                .append(matches(Source.ERROR, terms, args)).append(')')
+                .append(" UNION SELECT s.job_id FROM job_test_suites s JOIN text_context_unit_tests u ON u.test_context_id = s.test_suites_id")
+                .append(" WHERE u.unit_tests_id IN (SELECT id FROM unit_test WHERE ").append(matches(Source.UNIT_TEST, terms, args)).append("))")
+                .append(" AND timestamp >= ? AND timestamp < ?");
+        args.add(from);
+        args.add(to);
+        if (course != null) {
+            sql.append(" AND git_test_repo = ?");
+            args.add(course);
+        }
+        if (slug != null) {
+            sql.append(" AND slug = ?");
+            args.add(slug);
+        }
+        if (after != null) {
+            sql.append(" AND (timestamp < ? OR timestamp = ? AND id < ?)");
+            args.add(after.getTimestamp());
+            args.add(after.getTimestamp());
+            args.add(after.getId());
+        }
+        sql.append(" ORDER BY timestamp DESC, id DESC LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), (row, i) -> JobSearchHitDTO.builder()
+                .id(row.getLong(1))
+                .hash(row.getString(2))
+                .timestamp(row.getLong(3))
+                .uniid(row.getString(4))
+                .slug(row.getString(5))
+                .gitTestRepo(row.getString(6))
+                .failed((Boolean) row.getObject(7))
+                .build(), args.toArray());
+    }
+
+    private String matches(Source source, List<String> terms, List<Object> args) {
+        if (postgres) {
+            // terms are letters and digits only, so they need no quoting inside the tsquery
+            args.add(String.join(" & ", terms));
+            return source.vector() + " @@ to_tsquery('simple', ?)";
+        }
+
+        List<String> conditions = new ArrayList<>();
+        for (String term : terms) {
+            conditions.add("lower(" + source.text + ") LIKE ?");
+            args.add('%' + term + '%');
+        }
+        return String.join(" AND ", conditions);
+    }
+}
@@ -0,0 +1,252 @@
+package ee.taltech.arete_admin_panel.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.arete_admin_panel.configuration.CacheConfiguration;
+import ee.taltech.arete_admin_panel.configuration.ExportProperties;
+import ee.taltech.arete_admin_panel.domain.Error;
+import ee.taltech.arete_admin_panel.domain.Job;
+import ee.taltech.arete_admin_panel.domain.TestContext;
+import ee.taltech.arete_admin_panel.pojo.abi.job.JobSummaryDTO;
+import ee.taltech.arete_admin_panel.repository.JobArchiveRepository;
+import org.slf4j.Logger;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Reads a job in parts, so viewing it never loads more than is shown.
+ * <p>
+ * The summary is read in one query without the outputs, suites and errors, which are read on their own when asked
+ * for. Outputs are streamed in ranges of characters, every chunk is a substring query of its own. Jobs moved to the
+ * archive are read from there as a whole.
+ */
+@Service
+public class JobService {
+
+    private static final String SUMMARY = "select j.id, j.hash, j.timestamp, j.uniid, j.email, j.slug, j.root, " +
+            "j.gitStudentRepo, j.gitTestRepo, j.commitMessage, j.testingPlatform, j.type, j.version, j.priority, " +
+            "j.receivedTimestamp, j.finishedTimestamp, j.totalCount, j.totalPassedCount, j.style, j.totalGrade, j.failed, " +
+            "length(j.output), length(j.consoleOutputs), " +
+            "(select count(t) from Job s join s.testSuites t where s = j), (select count(e) from Job s join s.errors e where s = j) " +
+            "from Job j where j.hash = :hash and j.timestamp = :timestamp";
+
+    public enum Output {
+        OUTPUT("output", Job::getOutput),
+        CONSOLE("consoleOutputs", Job::getConsoleOutputs);
+
+        private final String property;
+        private final Function<Job, String> archived;
+
+        Output(String property, Function<Job, String> archived) {
+            this.property = property;
+            this.archived = archived;
+        }
+
+        public long length(JobSummaryDTO job) {
+            return this == OUTPUT ? job.getOutputLength() : job.getConsoleOutputsLength();
+        }
+    }
+
+    private final Logger logger;
+    private final ExportProperties properties;
+    private final EntityManager entityManager;
+    private final JobArchiveRepository jobArchiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    public JobService(Logger logger,
+                      ExportProperties properties,
+                      EntityManager entityManager,
+                      JobArchiveRepository jobArchiveRepository,
+                      PlatformTransactionManager transactionManager) {
+        this.logger = logger;
+        this.properties = properties;
+        this.entityManager = entityManager;
+        this.jobArchiveRepository = jobArchiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Cacheable(cacheNames = CacheConfiguration.JOB, key = "#hash + '/' + #timestamp", unless = "#result == null")
+    public Optional<JobSummaryDTO> getSummary(String hash, Long timestamp) {
+        List<?> rows = entityManager.createQuery(SUMMARY)
+                .setParameter("hash", hash)
+                .setParameter("timestamp", timestamp)
+                .setMaxResults(1)
+                .getResultList();
+        if (!rows.isEmpty()) {
+            return Optional.of(summary((Object[]) rows.get(0)));
+        }
+        logger.debug("Job {} {} not in database, trying archive", hash, timestamp);
+        return jobArchiveRepository.findByHashAndTimestamp(hash, timestamp).map(job -> JobSummaryDTO.of(job, true));
+    }
+
+    private static JobSummaryDTO summary(Object[] row) {
+        return JobSummaryDTO.builder()
+                .id((Long) row[0])
+                .hash((String) row[1])
+                .timestamp((Long) row[2])
+                .uniid((String) row[3])
+                .email((String) row[4])
+                .slug((String) row[5])
+                .root((String) row[6])
+                .gitStudentRepo((String) row[7])
+                .gitTestRepo((String) row[8])
+                .commitMessage((String) row[9])
+                .testingPlatform((String) row[10])
+                .type((String) row[11])
+                .version((String) row[12])
+                .priority((Integer) row[13])
+                .receivedTimestamp((Long) row[14])
+                .finishedTimestamp((Long) row[15])
+                .totalCount((Integer) row[16])
+                .totalPassedCount((Integer) row[17])
+                .style((Integer) row[18])
+                .totalGrade((Double) row[19])
+                .failed((Boolean) row[20])
+                .outputLength(row[21] == null ? 0 : ((Number) row[21]).longValue())
+                .consoleOutputsLength(row[22] == null ? 0 : ((Number) row[22]).longValue())
+                .testSuiteCount(((Number) row[23]).longValue())
+                .errorCount(((Number) row[24]).longValue())
+                .build();
+    }
+
+    public List<TestContext> getTestSuites(JobSummaryDTO job) {
+        if (job.isArchived()) {
+            return archived(job).map(Job::getTestSuites).orElse(List.of());
+        }
+        // copied while the transaction is open, the unit tests of all suites are fetched in batches
+        return transactionTemplate.execute(status -> mapper.convertValue(
+                entityManager.createQuery("select t from Job j join j.testSuites t where j.hash = :hash and j.timestamp = :timestamp", TestContext.class)
+                        .setParameter("hash", job.getHash())
+                        .setParameter("timestamp", job.getTimestamp())
+                        .getResultList(),
+                new TypeReference<List<TestContext>>() {
+                }));
+    }
+
+    public List<Error> getErrors(JobSummaryDTO job) {
+        if (job.isArchived()) {
+            return archived(job).map(Job::getErrors).orElse(List.of());
+        }
+        return entityManager.createQuery("select e from Job j join j.errors e where j.hash = :hash and j.timestamp = :timestamp", Error.class)
+                .setParameter("hash", job.getHash())
+                .setParameter("timestamp", job.getTimestamp())
+                .getResultList();
+    }
+
+    /**
+     * Writes the characters from start inclusive to end exclusive of the output as UTF-8.
+     */
+    public void writeOutput(JobSummaryDTO job, Output output, long start, long end, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        if (job.isArchived()) {
+            String text = archived(job).map(output.archived).orElse("");
+            writer.write(text, (int) Math.min(start, text.length()), (int) (Math.min(end, text.length()) - Math.min(start, text.length())));
+            writer.flush();
+            return;
+        }
+
+        int chunk = properties.getOutputChunkSize();
+        for (long position = start; position < end; position += chunk) {
+            // substring is one based
+            String part = entityManager.createQuery("select substring(j." + output.property + ", :start, :length) from Job j " +
+                    "where j.hash = :hash and j.timestamp = :timestamp", String.class)
+                    .setParameter("start", (int) position + 1)
+                    .setParameter("length", (int) Math.min(chunk, end - position))
+                    .setParameter("hash", job.getHash())
+                    .setParameter("timestamp", job.getTimestamp())
+                    .setMaxResults(1)
+                    .getResultList()
+                    .stream().findFirst().orElse(null);
+            if (part == null || part.isEmpty()) {
+                break;
+            }
+            writer.write(part);
+            writer.flush();
+        }
+        writer.flush();
+    }
+
+    private Optional<Job> archived(JobSummaryDTO job) {
+        return jobArchiveRepository.findByHashAndTimestamp(job.getHash(), job.getTimestamp());
+    }
+
+    /**
+     * A single range of characters of an output as in {@code Range: chars=0-1023}, {@code chars=1024-} or the suffix
+     * {@code chars=-1024}. Offsets count characters, not UTF-8 bytes, so the outputs advertise {@code Accept-Ranges: chars}
+     * and ranges in any other unit, bytes included, are not satisfiable. Multiple and malformed ranges are ignored and
+     * the whole output is sent for them.
+     */
+    public static class Range {
+
+        public static final String UNIT = "chars";
+
+        private final long start;
+        private final long end; // exclusive
+
+        private static final Range OTHER_UNIT = new Range(0, 0);
+
+        private Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public static Optional<Range> parse(String header, long length) {
+            if (header == null || header.contains(",")) {
+                return Optional.empty();
+            }
+            if (!header.startsWith(UNIT + "=")) {
+                return Optional.of(OTHER_UNIT);
+            }
+            String spec = header.substring(UNIT.length() + 1).trim();
+            int dash = spec.indexOf('-');
+            try {
+                if (dash == 0) {
+                    long suffix = Long.parseLong(spec.substring(1));
+                    return Optional.of(new Range(Math.max(0, length - suffix), length));
+                }
+                if (dash < 0) {
+                    return Optional.empty();
+                }
+                long start = Long.parseLong(spec.substring(0, dash));
+                if (dash == spec.length() - 1) {
+                    return Optional.of(new Range(start, length));
+                }
+                long last = Long.parseLong(spec.substring(dash + 1));
+                return last < start ? Optional.empty() : Optional.of(new Range(start, Math.min(last + 1, length)));
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        public boolean isSatisfiable(long length) {
+            return start < length && start < end;
+        }
+
+        public String contentRange(long length) {
+            return UNIT + " " + start + "-" + (end - 1) + "/" + length;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete_admin_panel.algorithms.StringIntHashMap;
+import ee.taltech.arete_admin_panel.domain.InternedKey;
+import ee.taltech.arete_admin_panel.repository.InternedKeyRepository;
+import org.slf4j.Logger;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Assigns every distinct uniid, course url and slug a dense int id. Ids are persisted, so they stay
+ * the same across restarts and unlike {@code Objects.hash} never collide.
+ */
+@Service
+public class KeyInternService {
+
+    public static final int MISSING = StringIntHashMap.MISSING;
+    private static final int MAX_ATTEMPTS = 10;
+    private static final String NULL_VALUE = "\u0001"; // submissions without a uniid, course or slug, postgres text can't hold \0
+
+    private final Logger logger;
+    private final InternedKeyRepository internedKeyRepository;
+
+    private final Map<InternedKey.Kind, StringIntHashMap> ids = new EnumMap<>(InternedKey.Kind.class);
+    private final Map<InternedKey.Kind, String[]> values = new EnumMap<>(InternedKey.Kind.class); // indexed by id
+    private final StampedLock lock = new StampedLock();
+
+    public KeyInternService(Logger logger, InternedKeyRepository internedKeyRepository) {
+        this.logger = logger;
+        this.internedKeyRepository = internedKeyRepository;
+        for (InternedKey.Kind kind : InternedKey.Kind.values()) {
+            ids.put(kind, new StringIntHashMap(1024));
+            values.put(kind, new String[1024]);
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        long stamp = lock.writeLock();
+        try {
+            for (InternedKey key : internedKeyRepository.findAll()) {
+                store(key.getKind(), key.getValue(), key.getKeyId());
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        logger.info("Loaded {} students, {} courses and {} slugs ids",
+                ids.get(InternedKey.Kind.STUDENT).size(),
+                ids.get(InternedKey.Kind.COURSE).size(),
+                ids.get(InternedKey.Kind.SLUG).size());
+    }
+
+    public static String slugKey(String name, String gitUrl) {
+        return gitUrl + '\n' + name;
+    }
+
+    public static String slugKeyCourseUrl(String slugKey) {
+        return slugKey.substring(0, slugKey.indexOf('\n'));
+    }
+
+    /**
+     * Returns the id of the key or {@link #MISSING} without assigning a new one.
+     */
+    public int find(InternedKey.Kind kind, String value) {
+        String key = value == null ? NULL_VALUE : value;
+        StringIntHashMap map = ids.get(kind);
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            // a lookup racing a put may be wrong but never throws, the id is only used if no write happened meanwhile
+            int id = map.get(key);
+            if (lock.validate(stamp)) {
+                return id;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return map.get(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * The key with the id. Keys other nodes interned since are read from the table once.
+     */
+    public Optional<String> value(InternedKey.Kind kind, int id) {
+        String value;
+        long stamp = lock.readLock();
+        try {
+            String[] keys = values.get(kind);
+            value = id >= 0 && id < keys.length ? keys[id] : null;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        if (value != null) {
+            return Optional.of(value);
+        }
+
+        Optional<String> interned = internedKeyRepository.findByKindAndKeyId(kind, id).map(InternedKey::getValue);
+        // written like new keys, one at a time per kind
+        interned.ifPresent(key -> {
+            synchronized (ids.get(kind)) {
+                put(kind, key, id);
+            }
+        });
+        return interned;
+    }
+
+    public int intern(InternedKey.Kind kind, String value) {
+        int id = find(kind, value);
+        if (id != MISSING) {
+            return id;
+        }
+
+        String key = value == null ? NULL_VALUE : value;
+        StringIntHashMap map = ids.get(kind);
+        // new keys of a kind are interned one at a time, the table is written without holding off lookups
+        synchronized (map) {
+            id = map.get(key);
+            if (id != MISSING) {
+                return id;
+            }
+
+            for (int attempt = 1; ; attempt++) {
+                id = map.size() + 1;
+                try {
+                    internedKeyRepository.save(InternedKey.builder().kind(kind).value(key).keyId(id).build());
+                    put(kind, key, id);
+                    logger.debug("Interned {} {} as {}", kind, key, id);
+                    return id;
+                } catch (DataIntegrityViolationException e) {
+                    if (attempt >= MAX_ATTEMPTS) {
+                        throw e;
+                    }
+                    // another node interned the value or took the id, catch up with the table and try again
+                    internedKeyRepository.findByKind(kind).forEach(interned -> put(kind, interned.getValue(), interned.getKeyId()));
+                    id = map.get(key);
+                    if (id != MISSING) {
+                        return id;
+                    }
+                }
+            }
+        }
+    }
+
+    private void put(InternedKey.Kind kind, String key, int id) {
+        long stamp = lock.writeLock();
+        try {
+            store(kind, key, id);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // callers hold the write lock
+    private void store(InternedKey.Kind kind, String key, int id) {
+        ids.get(kind).put(key, id);
+        String[] keys = values.get(kind);
+        if (id >= keys.length) {
+            // ids are dense, but another node may have taken a few ahead of this one
+            keys = Arrays.copyOf(keys, Math.max(keys.length * 2, id + 1));
+            values.put(kind, keys);
+        }
+        keys[id] = key;
+    }
+}
@@ -0,0 +1,110 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete.java.response.arete.AreteResponseDTO;
+import ee.taltech.arete.java.response.arete.TestContextDTO;
+import ee.taltech.arete.java.response.arete.UnitTestDTO;
+import ee.taltech.arete_admin_panel.algorithms.LatencyHistogram;
+import ee.taltech.arete_admin_panel.domain.InternedKey;
+import ee.taltech.arete_admin_panel.pojo.abi.statistics.ExerciseLatencyDTO;
+import ee.taltech.arete_admin_panel.pojo.abi.statistics.LatencyDTO;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Latency histograms per exercise and per unit test, recorded from the tester timings of every response.
+ * Only kept in memory, they describe the tester since the last restart.
+ */
+@Service
+public class LatencyService {
+
+    private final Logger logger;
+    private final KeyInternService keyInternService;
+
+    private final Map<Integer, ExerciseLatency> exercises = new ConcurrentHashMap<>();
+
+    public LatencyService(Logger logger, KeyInternService keyInternService) {
+        this.logger = logger;
+        this.keyInternService = keyInternService;
+    }
+
+    private static class ExerciseLatency {
+
+        private final String name;
+        private final String courseUrl;
+        private final LatencyHistogram job = new LatencyHistogram();
+        private final Map<String, LatencyHistogram> tests = new ConcurrentHashMap<>();
+
+        ExerciseLatency(String name, String courseUrl) {
+            this.name = name;
+            this.courseUrl = courseUrl;
+        }
+    }
+
+    public void record(AreteResponseDTO response) {
+        int id = keyInternService.intern(InternedKey.Kind.SLUG, KeyInternService.slugKey(response.getSlug(), response.getGitTestRepo()));
+        ExerciseLatency exercise = exercises.computeIfAbsent(id, key -> new ExerciseLatency(response.getSlug(), response.getGitTestRepo()));
+
+        long suites = 0;
+        boolean timedSuites = false;
+        for (TestContextDTO suite : response.getTestSuites()) {
+            if (suite.getStartDate() != null && suite.getEndDate() != null) {
+                suites += suite.getEndDate() - suite.getStartDate();
+                timedSuites = true;
+            }
+            if (suite.getUnitTests() == null) {
+                continue;
+            }
+            for (UnitTestDTO test : suite.getUnitTests()) {
+                if (test.getTimeElapsed() != null && test.getName() != null) {
+                    String name = suite.getName() == null ? test.getName() : suite.getName() + "." + test.getName();
+                    exercise.tests.computeIfAbsent(name, key -> new LatencyHistogram()).record(test.getTimeElapsed());
+                }
+            }
+        }
+
+        if (response.getReceivedTimestamp() != null && response.getFinishedTimestamp() != null) {
+            exercise.job.record(response.getFinishedTimestamp() - response.getReceivedTimestamp());
+        } else if (timedSuites) {
+            exercise.job.record(suites);
+        } else {
+            logger.debug("No timings in response {}", response.getHash());
+        }
+    }
+
+    public Optional<ExerciseLatencyDTO> getExerciseLatency(int id, int slowestTests) {
+        return Optional.ofNullable(exercises.get(id)).map(exercise -> toDTO(id, exercise, slowestTests));
+    }
+
+    /**
+     * Exercises by the total time the tester spent on them, the largest first.
+     */
+    public List<ExerciseLatencyDTO> getSlowestExercises(int limit, int slowestTests) {
+        return exercises.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Integer, ExerciseLatency> entry) -> entry.getValue().job.getTotal()).reversed())
+                .limit(limit)
+                .map(entry -> toDTO(entry.getKey(), entry.getValue(), slowestTests))
+                .collect(Collectors.toList());
+    }
+
+    private static ExerciseLatencyDTO toDTO(int id, ExerciseLatency exercise, int slowestTests) {
+        List<LatencyDTO> tests = exercise.tests.entrySet().stream()
+                .map(entry -> LatencyDTO.of(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(LatencyDTO::getP95).reversed())
+                .limit(slowestTests)
+                .collect(Collectors.toList());
+
+        return ExerciseLatencyDTO.builder()
+                .id(id)
+                .courseUrl(exercise.courseUrl)
+                .job(LatencyDTO.of(exercise.name, exercise.job))
+                .slowestTests(tests)
+                .build();
+    }
+}
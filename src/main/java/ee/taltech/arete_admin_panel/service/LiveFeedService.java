@@ -0,0 +1,262 @@
+package ee.taltech.arete_admin_panel.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.arete_admin_panel.configuration.FeedProperties;
+import ee.taltech.arete_admin_panel.pojo.abi.feed.FeedCourseDTO;
+import ee.taltech.arete_admin_panel.pojo.abi.feed.FeedSlugDTO;
+import ee.taltech.arete_admin_panel.pojo.abi.feed.FeedStudentDTO;
+import ee.taltech.arete_admin_panel.pojo.abi.feed.FeedSubmissionDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.slf4j.Logger;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes what the aggregation workers publish to subscribers as server-sent events.
+ * <p>
+ * Batches published within a coalescing window are merged, so a student, course or slug changed several times is sent
+ * once with its latest counters. A window becomes at most one event per kind, {@code submissions}, {@code students},
+ * {@code courses} and {@code slugs}, each a JSON array. Events are serialized once per distinct filter and queued to
+ * every subscriber with that filter. A subscriber whose bounded queue fills up is sent a {@code dropped} event and
+ * closed, it reads the full lists again before subscribing anew.
+ * <p>
+ * Only changes applied on this node are sent, in a cluster a subscriber sees the courses of the node it is connected to.
+ */
+@Service
+public class LiveFeedService {
+
+    private final Logger logger;
+    private final FeedProperties properties;
+    private final ObjectMapper objectMapper;
+    private final CacheService cacheService;
+    private final Counter droppedSubscribers;
+    private final ExecutorService senders;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private Window window = new Window(); // guarded by this
+
+    public LiveFeedService(Logger logger,
+                           FeedProperties properties,
+                           ObjectMapper objectMapper,
+                           CacheService cacheService,
+                           MeterRegistry meterRegistry) {
+        this.logger = logger;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.cacheService = cacheService;
+
+        Gauge.builder("arete.feed.subscribers", subscribers, Set::size)
+                .description("Open live feed subscriptions")
+                .register(meterRegistry);
+        this.droppedSubscribers = Counter.builder("arete.feed.dropped")
+                .description("Live feed subscribers dropped for falling behind")
+                .register(meterRegistry);
+        // a subscriber on a slow connection blocks a sender until its queue overflows
+        this.senders = Executors.newFixedThreadPool(Math.max(1, properties.getSenders()), runnable -> {
+            Thread thread = new Thread(runnable, "feed-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static class Window {
+        final List<FeedSubmissionDTO> submissions = new ArrayList<>();
+        final Map<Integer, FeedStudentDTO> students = new LinkedHashMap<>();
+        final Map<Integer, FeedCourseDTO> courses = new LinkedHashMap<>();
+        final Map<Integer, FeedSlugDTO> slugs = new LinkedHashMap<>();
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class Filter {
+
+        private final String course; // git url of the course tests
+        private final String slug;
+
+        boolean matches(FeedSubmissionDTO submission) {
+            return matches(submission.getGitTestSource(), submission.getSlug());
+        }
+
+        boolean matches(FeedStudentDTO student) {
+            return (course == null || student.getCourses().contains(course))
+                    && (slug == null || student.getSlugs().contains(slug));
+        }
+
+        boolean matches(FeedCourseDTO course) {
+            return slug == null && (this.course == null || this.course.equals(course.getGitUrl()));
+        }
+
+        boolean matches(FeedSlugDTO slug) {
+            return matches(slug.getCourseUrl(), slug.getName());
+        }
+
+        private boolean matches(String course, String slug) {
+            return (this.course == null || this.course.equals(course)) && (this.slug == null || this.slug.equals(slug));
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Event {
+        private final String name;
+        private final String data;
+    }
+
+    private static class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Filter filter;
+        private final BlockingQueue<Event> queue;
+        private final AtomicBoolean sending = new AtomicBoolean(); // at most one sender per subscriber
+        private volatile boolean dropped;
+
+        Subscriber(SseEmitter emitter, Filter filter, int bufferSize) {
+            this.emitter = emitter;
+            this.filter = filter;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, bufferSize));
+        }
+    }
+
+    @PostConstruct
+    public void listen() {
+        cacheService.addPublishListener(this::publish);
+    }
+
+    @PreDestroy
+    public void stopSenders() {
+        senders.shutdownNow();
+    }
+
+    /**
+     * Subscribes to the changes of a course, given by the git url of its tests, and a slug. Null matches all.
+     */
+    public SseEmitter subscribe(String course, String slug) {
+        return subscribe(new SseEmitter(properties.getTimeout()), course, slug);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, String course, String slug) {
+        Subscriber subscriber = new Subscriber(emitter, new Filter(course, slug), properties.getBufferSize());
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        logger.info("Live feed subscribed to course {} and slug {}", course, slug);
+        return emitter;
+    }
+
+    void publish(CacheService.Published published) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        synchronized (this) {
+            window.submissions.addAll(published.getSubmissions());
+            published.getStudents().forEach(student -> window.students.put(student.getId(), student));
+            published.getCourses().forEach(course -> window.courses.put(course.getId(), course));
+            published.getSlugs().forEach(slug -> window.slugs.put(slug.getId(), slug));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${arete.feed.coalesce-interval:250}")
+    public void flush() {
+        Window flushed;
+        synchronized (this) {
+            if (window.submissions.isEmpty()) {
+                return;
+            }
+            flushed = window;
+            window = new Window();
+        }
+
+        Map<Filter, List<Event>> rendered = new HashMap<>();
+        for (Subscriber subscriber : subscribers) {
+            List<Event> events = rendered.computeIfAbsent(subscriber.filter, filter -> render(flushed, filter));
+            if (events.isEmpty()) {
+                continue;
+            }
+            for (Event event : events) {
+                if (!subscriber.queue.offer(event)) {
+                    drop(subscriber);
+                    break;
+                }
+            }
+            schedule(subscriber);
+        }
+    }
+
+    private List<Event> render(Window window, Filter filter) {
+        List<Event> events = new ArrayList<>(4);
+        render(events, "submissions", window.submissions, filter::matches);
+        render(events, "students", window.students.values(), filter::matches);
+        render(events, "courses", window.courses.values(), filter::matches);
+        render(events, "slugs", window.slugs.values(), filter::matches);
+        return events;
+    }
+
+    private <T> void render(List<Event> events, String name, Collection<T> changed, Predicate<T> matches) {
+        try {
+            List<T> matching = changed.stream().filter(matches).collect(Collectors.toList());
+            if (!matching.isEmpty()) {
+                events.add(new Event(name, objectMapper.writeValueAsString(matching)));
+            }
+        } catch (Exception e) {
+            // only this event is lost, the rest of the window is still sent
+            logger.error("Failed to render live feed {} event", name, e);
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriber.dropped = true;
+            droppedSubscribers.increment();
+            logger.warn("Dropping live feed subscriber with {} events queued", subscriber.queue.size());
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            if (subscriber.dropped) {
+                subscriber.queue.clear();
+                subscriber.emitter.send(SseEmitter.event().name("dropped").data("", MediaType.TEXT_PLAIN));
+                subscriber.emitter.complete();
+                return; // stays marked as sending, nothing is sent after this
+            }
+            for (Event event = subscriber.queue.poll(); event != null && !subscriber.dropped; event = subscriber.queue.poll()) {
+                subscriber.emitter.send(SseEmitter.event().name(event.name).data(event.data, MediaType.APPLICATION_JSON));
+            }
+        } catch (Exception e) {
+            // the container reports the broken connection through the error callback
+            logger.debug("Live feed subscriber went away: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            return;
+        }
+
+        subscriber.sending.set(false);
+        if (!subscriber.queue.isEmpty() || subscriber.dropped) {
+            schedule(subscriber);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package ee.taltech.arete_admin_panel.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import ee.taltech.arete_admin_panel.exception.InvalidParameterException;
+import lombok.SneakyThrows;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized list responses, kept per endpoint until the version of the cache behind them changes.
+ * <p>
+ * Polling the lists serializes them once per version, every other request copies the stored bytes, and a request
+ * whose {@code If-None-Match} names the current ETag is answered with 304 without touching the body at all. The
+ * ETag is a hash of the body, so it stays the same across restarts and nodes as long as the content does.
+ * <p>
+ * Pages of the lists are serialized per request. They are projected to the asked properties by reading only those
+ * properties of each item, so large properties left out are never serialized.
+ */
+@Service
+public class ResponseCacheService {
+
+    public static final long UNVERSIONED = -1; // never cached, serialized for every request
+    private static final int GZIP_THRESHOLD = 1024;
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Class<?>, List<BeanPropertyDefinition>> properties = new ConcurrentHashMap<>();
+
+    public ResponseCacheService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    private static class Entry {
+
+        private final long version;
+        private final String etag;
+        private final byte[] body;
+        private volatile byte[] gzipped; // compressed on the first request accepting gzip
+
+        Entry(long version, byte[] body) {
+            this.version = version;
+            this.etag = etag(body);
+            this.body = body;
+        }
+    }
+
+    public static String etag(byte[] body) {
+        return "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    /**
+     * The serialized body of the endpoint at the version, 304 if the request already has it.
+     *
+     * @param key     endpoint the body belongs to
+     * @param version version of the cached data, serialized again only when it changes
+     * @param body    reads the data, only called for a new version
+     */
+    public ResponseEntity<byte[]> respond(String key, long version, Supplier<?> body, WebRequest request) {
+        Entry entry = version == UNVERSIONED
+                ? new Entry(version, serialize(body.get()))
+                : entries.compute(key, (ignored, cached) -> cached != null && cached.version == version ? cached : new Entry(version, serialize(body.get())));
+
+        return respond(entry, new HttpHeaders(), request);
+    }
+
+    /**
+     * A page of a list, with only the named properties of every item if fields are given. A full page links the next
+     * one with the cursor of its last item in a {@code Link} header.
+     *
+     * @param cursor    position of an item in the order of the list, given back as the after parameter
+     * @param keyFields properties kept in every projection, the cursor and order of the list are read from them
+     */
+    public <T> ResponseEntity<byte[]> respondPage(List<T> page, Class<T> type, Integer limit, Function<T, String> cursor,
+                                                  List<String> fields, List<String> keyFields, WebRequest request) {
+        Entry entry = new Entry(UNVERSIONED, serialize(fields == null ? page : project(page, type, fields, keyFields)));
+        HttpHeaders headers = new HttpHeaders();
+        if (limit != null && !page.isEmpty() && page.size() >= limit) {
+            HttpServletRequest servletRequest = ((NativeWebRequest) request).getNativeRequest(HttpServletRequest.class);
+            headers.set(HttpHeaders.LINK, nextLink(servletRequest, cursor.apply(page.get(page.size() - 1))));
+        }
+        return respond(entry, headers, request);
+    }
+
+    private ResponseEntity<byte[]> respond(Entry entry, HttpHeaders headers, WebRequest request) {
+        if (isCurrent(request.getHeader(HttpHeaders.IF_NONE_MATCH), entry.etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).eTag(entry.etag).build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .headers(headers)
+                .eTag(entry.etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (entry.body.length >= GZIP_THRESHOLD && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            if (entry.gzipped == null) {
+                entry.gzipped = gzip(entry.body);
+            }
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(entry.gzipped);
+        }
+        return response.body(entry.body);
+    }
+
+    /**
+     * Link to the page of the request after the cursor.
+     */
+    public static String nextLink(HttpServletRequest request, String cursor) {
+        String next = ServletUriComponentsBuilder.fromRequest(request).replaceQueryParam("after", cursor).build().toUriString();
+        return "<" + next + ">; rel=\"next\"";
+    }
+
+    private List<Map<String, Object>> project(List<?> page, Class<?> type, List<String> fields, List<String> keyFields) {
+        Set<String> unknown = new HashSet<>(fields);
+        List<BeanPropertyDefinition> kept = new ArrayList<>();
+        for (BeanPropertyDefinition property : properties(type)) {
+            boolean asked = unknown.remove(property.getName());
+            if (asked || keyFields.contains(property.getName())) {
+                kept.add(property);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new InvalidParameterException("Unknown fields: " + String.join(", ", unknown));
+        }
+
+        List<Map<String, Object>> projected = new ArrayList<>(page.size());
+        for (Object item : page) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (BeanPropertyDefinition property : kept) {
+                values.put(property.getName(), property.getAccessor().getValue(item));
+            }
+            projected.add(values);
+        }
+        return projected;
+    }
+
+    private List<BeanPropertyDefinition> properties(Class<?> type) {
+        return properties.computeIfAbsent(type, key -> {
+            List<BeanPropertyDefinition> serialized = new ArrayList<>();
+            for (BeanPropertyDefinition property : objectMapper.getSerializationConfig().introspect(objectMapper.constructType(key)).findProperties()) {
+                if (property.couldSerialize() && property.getAccessor() != null) {
+                    serialized.add(property);
+                }
+            }
+            return serialized;
+        });
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header names the ETag. Weak comparison, as for every If-None-Match.
+     */
+    public static boolean isCurrent(String ifNoneMatch, String etag) {
+        return ifNoneMatch != null && (ifNoneMatch.trim().equals("*") || ifNoneMatch.contains(etag));
+    }
+
+    @SneakyThrows
+    private byte[] serialize(Object body) {
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    @SneakyThrows
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,88 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete_admin_panel.configuration.CacheProperties;
+import ee.taltech.arete_admin_panel.configuration.ClusterProperties;
+import ee.taltech.arete_admin_panel.repository.CacheSnapshotRepository;
+import ee.taltech.arete_admin_panel.repository.SubmissionRepository;
+import lombok.SneakyThrows;
+import org.slf4j.Logger;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Optional;
+
+/**
+ * Periodically writes the cached state next to the number of aggregated submissions it contains. The snapshot is
+ * taken right after a flush, so it matches the persisted aggregates exactly.
+ */
+@Service
+public class SnapshotService {
+
+    private final Logger logger;
+    private final CacheService cacheService;
+    private final AggregateService aggregateService;
+    private final SubmissionRepository submissionRepository;
+    private final CacheSnapshotRepository cacheSnapshotRepository;
+    private final CacheProperties properties;
+    private final ClusterProperties clusterProperties;
+
+    public SnapshotService(Logger logger,
+                           CacheService cacheService,
+                           AggregateService aggregateService,
+                           SubmissionRepository submissionRepository,
+                           CacheSnapshotRepository cacheSnapshotRepository,
+                           CacheProperties properties,
+                           ClusterProperties clusterProperties) {
+        this.logger = logger;
+        this.cacheService = cacheService;
+        this.aggregateService = aggregateService;
+        this.submissionRepository = submissionRepository;
+        this.cacheSnapshotRepository = cacheSnapshotRepository;
+        this.properties = properties;
+        this.clusterProperties = clusterProperties;
+    }
+
+    public boolean isEnabled() {
+        // in a cluster other nodes aggregate too, so a snapshot never matches the aggregated count
+        return !clusterProperties.isEnabled() && properties.getSnapshotFile() != null && !properties.getSnapshotFile().isEmpty();
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${arete.cache.snapshot-interval:300000}", initialDelayString = "${arete.cache.snapshot-interval:300000}")
+    public void snapshot() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        boolean written = aggregateService.flush(this::write);
+        if (!written) {
+            logger.warn("Skipped cache snapshot, aggregates could not be flushed");
+        }
+    }
+
+    @SneakyThrows
+    private void write() {
+        long aggregated = submissionRepository.countAggregated();
+        cacheSnapshotRepository.save(cacheService.exportState(aggregated, submissionRepository.findLastAggregatedId()));
+    }
+
+    /**
+     * The last snapshot, if it is readable and no submission was aggregated after it was written.
+     */
+    public Optional<CacheSnapshotRepository.Snapshot> loadCurrent() {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+
+        return cacheSnapshotRepository.load().filter(snapshot -> {
+            long aggregated = submissionRepository.countAggregated();
+            if (snapshot.getAggregatedSubmissions() != aggregated) {
+                logger.info("Ignoring stale cache snapshot of {} aggregated submissions, database has {}",
+                        snapshot.getAggregatedSubmissions(), aggregated);
+                return false;
+            }
+            return true;
+        });
+    }
+}
@@ -0,0 +1,183 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete.java.response.arete.AreteResponseDTO;
+import ee.taltech.arete.java.response.arete.TestContextDTO;
+import ee.taltech.arete.java.response.arete.TestStatus;
+import ee.taltech.arete.java.response.arete.UnitTestDTO;
+import ee.taltech.arete_admin_panel.domain.InternedKey;
+import ee.taltech.arete_admin_panel.domain.UnitTestStatistic;
+import ee.taltech.arete_admin_panel.pojo.abi.statistics.UnitTestStatisticsDTO;
+import ee.taltech.arete_admin_panel.repository.UnitTestStatisticRepository;
+import org.slf4j.Logger;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Passed, failed and skipped counts and failure exception classes per unit test of every exercise.
+ * <p>
+ * Counted from each tester response as it arrives and kept in memory, so reading them never touches the job tables.
+ * Changed counters are written to {@code unit_test_statistic} once per flush interval.
+ */
+@Service
+public class UnitTestStatisticService {
+
+    private static final int EXCEPTIONS_SHOWN = 5;
+
+    private final Logger logger;
+    private final KeyInternService keyInternService;
+    private final UnitTestStatisticRepository unitTestStatisticRepository;
+
+    private final Map<Integer, Map<String, Counter>> exercises = new ConcurrentHashMap<>();
+
+    public UnitTestStatisticService(Logger logger, KeyInternService keyInternService, UnitTestStatisticRepository unitTestStatisticRepository) {
+        this.logger = logger;
+        this.keyInternService = keyInternService;
+        this.unitTestStatisticRepository = unitTestStatisticRepository;
+    }
+
+    private static class Counter {
+
+        private final String file;
+        private final String name;
+        private final LongAdder passed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final Map<String, LongAdder> exceptions = new ConcurrentHashMap<>();
+        private volatile Long id;
+        private volatile boolean dirty;
+
+        Counter(String file, String name) {
+            this.file = file;
+            this.name = name;
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        List<UnitTestStatistic> statistics = unitTestStatisticRepository.findAll();
+        for (UnitTestStatistic statistic : statistics) {
+            Counter counter = counter(statistic.getSlugId(), statistic.getFile(), statistic.getName());
+            counter.id = statistic.getId();
+            counter.passed.add(statistic.getPassed());
+            counter.failed.add(statistic.getFailed());
+            counter.skipped.add(statistic.getSkipped());
+            statistic.getExceptions().forEach((exception, occurrences) ->
+                    counter.exceptions.computeIfAbsent(exception, key -> new LongAdder()).add(occurrences));
+        }
+        logger.info("Loaded statistics of {} unit tests", statistics.size());
+    }
+
+    public void record(AreteResponseDTO response) {
+        int slugId = keyInternService.intern(InternedKey.Kind.SLUG, KeyInternService.slugKey(response.getSlug(), response.getGitTestRepo()));
+        for (TestContextDTO suite : response.getTestSuites()) {
+            if (suite.getUnitTests() == null) {
+                continue;
+            }
+            String file = suite.getName() == null ? "" : suite.getName();
+            for (UnitTestDTO test : suite.getUnitTests()) {
+                if (test.getName() == null || test.getStatus() == null) {
+                    continue;
+                }
+
+                Counter counter = counter(slugId, file, test.getName());
+                if (test.getStatus() == TestStatus.PASSED) {
+                    counter.passed.increment();
+                } else if (test.getStatus() == TestStatus.FAILED) {
+                    counter.failed.increment();
+                    if (test.getExceptionClass() != null) {
+                        counter.exceptions.computeIfAbsent(test.getExceptionClass(), key -> new LongAdder()).increment();
+                    }
+                } else {
+                    counter.skipped.increment();
+                }
+                counter.dirty = true;
+            }
+        }
+    }
+
+    private Counter counter(int slugId, String file, String name) {
+        return exercises.computeIfAbsent(slugId, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(file + '\n' + name, key -> new Counter(file, name));
+    }
+
+    /**
+     * Unit tests of the exercise with the most failures first.
+     */
+    public List<UnitTestStatisticsDTO> getFailingTests(int slugId, int limit) {
+        return exercises.getOrDefault(slugId, Map.of()).values().stream()
+                .sorted(Comparator.comparingLong((Counter counter) -> counter.failed.sum()).reversed())
+                .limit(limit)
+                .map(UnitTestStatisticService::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    private static UnitTestStatisticsDTO toDTO(Counter counter) {
+        long passed = counter.passed.sum();
+        long failed = counter.failed.sum();
+        Map<String, Long> exceptions = new LinkedHashMap<>();
+        counter.exceptions.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> entry) -> entry.getValue().sum()).reversed())
+                .limit(EXCEPTIONS_SHOWN)
+                .forEach(entry -> exceptions.put(entry.getKey(), entry.getValue().sum()));
+
+        return UnitTestStatisticsDTO.builder()
+                .file(counter.file)
+                .name(counter.name)
+                .passed(passed)
+                .failed(failed)
+                .skipped(counter.skipped.sum())
+                .passRate(passed + failed == 0 ? 0 : (double) passed / (passed + failed))
+                .exceptions(exceptions)
+                .build();
+    }
+
+    /**
+     * Synchronized as shutdown and the schedule may flush at once, both would insert the counters without an id.
+     */
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${arete.cache.flush-interval:1000}")
+    public synchronized void flush() {
+        List<Counter> changed = new ArrayList<>();
+        List<UnitTestStatistic> rows = new ArrayList<>();
+        exercises.forEach((slugId, tests) -> tests.values().forEach(counter -> {
+            if (!counter.dirty) {
+                return;
+            }
+            // cleared before reading, a concurrent increment marks the counter again for the next flush
+            counter.dirty = false;
+            Map<String, Long> exceptions = new HashMap<>();
+            counter.exceptions.forEach((exception, occurrences) -> exceptions.put(exception, occurrences.sum()));
+            changed.add(counter);
+            rows.add(UnitTestStatistic.builder()
+                    .id(counter.id)
+                    .slugId(slugId)
+                    .file(counter.file)
+                    .name(counter.name)
+                    .passed(counter.passed.sum())
+                    .failed(counter.failed.sum())
+                    .skipped(counter.skipped.sum())
+                    .exceptions(exceptions)
+                    .build());
+        }));
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<UnitTestStatistic> saved = unitTestStatisticRepository.saveAll(rows);
+            for (int i = 0; i < saved.size(); i++) {
+                changed.get(i).id = saved.get(i).getId();
+            }
+        } catch (Exception e) {
+            changed.forEach(counter -> counter.dirty = true);
+            logger.error("Failed to flush unit test statistics: {}", e.getMessage());
+        }
+    }
+}
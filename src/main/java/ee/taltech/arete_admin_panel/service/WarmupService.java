@@ -0,0 +1,181 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete_admin_panel.algorithms.RollingWindow;
+import ee.taltech.arete_admin_panel.configuration.CacheProperties;
+import ee.taltech.arete_admin_panel.domain.Submission;
+import ee.taltech.arete_admin_panel.repository.CacheSnapshotRepository;
+import ee.taltech.arete_admin_panel.repository.SubmissionRepository;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills the caches after startup without blocking it: the caches are restored from the last snapshot, or preloaded
+ * from the persisted aggregates if there is no current one, and submissions missing from the persisted aggregates
+ * are streamed in keyset pages into the workers. A failed warm-up is retried with a growing delay, continuing after
+ * the steps that were done and the last replayed page.
+ */
+@Service
+public class WarmupService {
+
+    private final Logger logger;
+    private final CacheService cacheService;
+    private final SubmissionRepository submissionRepository;
+    private final SnapshotService snapshotService;
+    private final ClusterService clusterService;
+    private final CacheProperties properties;
+
+    @Getter
+    private volatile boolean finished = false;
+
+    @Getter
+    private volatile boolean failed = false; // the last attempt failed, cleared once one succeeds
+
+    @Getter
+    private volatile long total = 0;
+
+    @Getter
+    private volatile long replayed = 0;
+
+    @Getter
+    private volatile int attempts = 0;
+
+    // progress kept between attempts, only touched by the warm-up thread
+    private Long lastAggregatedId;
+    private boolean restored;
+    private boolean recentRestored;
+    private long replayedAfter = 0L;
+
+    public WarmupService(Logger logger,
+                         CacheService cacheService,
+                         SubmissionRepository submissionRepository,
+                         SnapshotService snapshotService,
+                         ClusterService clusterService,
+                         CacheProperties properties) {
+        this.logger = logger;
+        this.cacheService = cacheService;
+        this.submissionRepository = submissionRepository;
+        this.snapshotService = snapshotService;
+        this.clusterService = clusterService;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWarmup() {
+        Thread thread = new Thread(this::warmup, "cache-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void warmup() {
+        long start = System.currentTimeMillis();
+        // live callbacks arriving while the snapshot is restored are deduplicated against the replay too, across
+        // attempts, so submissions enqueued before a failure are not counted again
+        cacheService.startReplay();
+        try {
+            long delay = properties.getWarmupRetryDelay();
+            while (true) {
+                attempts++;
+                try {
+                    attempt();
+                    failed = false;
+                    finished = true;
+                    logger.info("Cache warm-up finished in {} ms, replayed {} submissions", System.currentTimeMillis() - start, replayed);
+                    return;
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    failed = true;
+                    logger.error("Cache warm-up attempt {} failed, retrying in {} ms: {}", attempts, delay, e.getMessage());
+                }
+                TimeUnit.MILLISECONDS.sleep(delay);
+                delay = Math.min(delay * 2, properties.getWarmupMaxRetryDelay());
+            }
+        } catch (InterruptedException e) {
+            failed = true;
+            Thread.currentThread().interrupt();
+        } finally {
+            cacheService.finishReplay();
+        }
+    }
+
+    private void attempt() throws InterruptedException {
+        if (lastAggregatedId == null) {
+            // submissions aggregated later went through the workers and are already in the rolling windows
+            lastAggregatedId = submissionRepository.findLastAggregatedId();
+        }
+        if (!restored) {
+            restore();
+            restored = true;
+        }
+        if (!recentRestored) {
+            restoreRecent(lastAggregatedId);
+            recentRestored = true;
+        }
+        replayNotAggregated();
+    }
+
+    private void restore() {
+        Optional<CacheSnapshotRepository.Snapshot> snapshot = snapshotService.loadCurrent();
+        if (snapshot.isPresent()) {
+            cacheService.restoreState(snapshot.get());
+            // submissions after the snapshot are not aggregated yet and get replayed, only the window is refreshed
+            submissionRepository.findTop10000ByIdGreaterThanOrderByIdDesc(snapshot.get().getLastSubmissionId())
+                    .forEach(cacheService::cacheSubmission);
+            logger.info("Restored cache snapshot of {} students", snapshot.get().getStudents().size());
+            return;
+        }
+
+        cacheService.preload(clusterService::isOwner);
+        submissionRepository.findTop10000ByOrderByIdDesc().forEach(cacheService::cacheSubmission);
+    }
+
+    private void restoreRecent(long lastAggregatedId) {
+        // the rolling windows are not part of the snapshot, submissions of the last day are cheap to count again
+        long since = System.currentTimeMillis() - RollingWindow.BUCKETS * RollingWindow.BUCKET_MILLIS;
+        submissionRepository.findAggregatedSince(since, lastAggregatedId).forEach(cacheService::restoreRecent);
+    }
+
+    private void replayNotAggregated() throws InterruptedException {
+        total = replayed + submissionRepository.countNotAggregated();
+        logger.info("Replaying {} submissions missing from the aggregates", total - replayed);
+
+        int pageSize = properties.getWarmupPageSize();
+        int pages = 0;
+        List<Submission> page;
+        do {
+            page = submissionRepository.findNotAggregatedAfter(replayedAfter, PageRequest.of(0, pageSize));
+            page.stream()
+                    .filter(submission -> clusterService.isOwner(submission.getGitTestSource()))
+                    .forEach(cacheService::enqueueSubmission);
+            replayed += page.size();
+
+            if (!page.isEmpty()) {
+                replayedAfter = page.get(page.size() - 1).getId();
+            }
+            if (++pages % 100 == 0) {
+                logger.info("Warm-up progress {}/{}", replayed, total);
+            }
+
+            // reading is faster than aggregating, keep only a few pages in the queues
+            while (cacheService.getQueueSize() > 4 * pageSize) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+        } while (page.size() == pageSize);
+
+        awaitWorkers();
+    }
+
+    private void awaitWorkers() throws InterruptedException {
+        while (cacheService.getQueueSize() > 0) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+-- job is range partitioned by the tester timestamp (epoch millis). Partitions are created and retired by JobPartitionService.
+-- Existing non partitioned installations keep their table, IF NOT EXISTS makes this a no-op for them.
+CREATE TABLE IF NOT EXISTS job
+(
+    id                  BIGSERIAL    NOT NULL,
+    testing_platform    VARCHAR(255),
+    git_student_repo    VARCHAR(255),
+    git_test_repo       VARCHAR(255),
+    hash                VARCHAR(255),
+    uniid               VARCHAR(255),
+    email               VARCHAR(255),
+    type                VARCHAR(255),
+    version             VARCHAR(255),
+    root                VARCHAR(255),
+    slug                VARCHAR(255),
+    commit_message      VARCHAR(255),
+    docker_extra        VARCHAR(255),
+    docker_test_root    VARCHAR(255),
+    docker_content_root VARCHAR(255),
+    docker_timeout      INTEGER,
+    timestamp           BIGINT       NOT NULL,
+    received_timestamp  BIGINT,
+    finished_timestamp  BIGINT,
+    priority            INTEGER,
+    total_count         INTEGER,
+    total_passed_count  INTEGER,
+    style               INTEGER,
+    total_grade         DOUBLE PRECISION,
+    failed              BOOLEAN,
+    output              TEXT,
+    console_outputs     TEXT,
+    analyzed            INTEGER,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE IF NOT EXISTS job_default PARTITION OF job DEFAULT;
+
+-- The current and the next month get their partitions before anything is written, rows of a month without a partition
+-- land in job_default. JobPartitionService creates the months after that. Single quoted, the script is split on ;
+DO '
+DECLARE
+    month TIMESTAMP;
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_class WHERE relname = ''job'' AND relkind = ''p'' AND pg_table_is_visible(oid)) THEN
+        RETURN;
+    END IF;
+    FOR i IN 0..1 LOOP
+        month := date_trunc(''month'', now() AT TIME ZONE ''UTC'') + make_interval(months => i);
+        IF to_regclass(''job_'' || to_char(month, ''"y"YYYY"m"MM'')) IS NULL
+            AND NOT EXISTS (SELECT 1 FROM job_default
+                            WHERE timestamp >= extract(epoch FROM month) * 1000
+                              AND timestamp < extract(epoch FROM month + interval ''1 month'') * 1000) THEN
+            EXECUTE format(''CREATE TABLE %I PARTITION OF job FOR VALUES FROM (%s) TO (%s)'',
+                           ''job_'' || to_char(month, ''"y"YYYY"m"MM''),
+                           (extract(epoch FROM month) * 1000)::BIGINT,
+                           (extract(epoch FROM month + interval ''1 month'') * 1000)::BIGINT);
+        END IF;
+    END LOOP;
+END';
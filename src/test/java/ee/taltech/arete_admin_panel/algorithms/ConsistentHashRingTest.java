@@ -0,0 +1,39 @@
+package ee.taltech.arete_admin_panel.algorithms;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class ConsistentHashRingTest {
+
+    @Test
+    void addingNodeOnlyMovesKeysToIt() {
+        ConsistentHashRing three = new ConsistentHashRing(List.of("a:8001", "b:8002", "c:8003"), 128);
+        ConsistentHashRing four = new ConsistentHashRing(List.of("d:8004", "c:8003", "b:8002", "a:8001"), 128);
+
+        Map<String, Integer> owned = new HashMap<>();
+        int moved = 0;
+        for (int i = 0; i < 10000; i++) {
+            String course = "https://gitlab.cs.ttu.ee/course" + i + ".git";
+            String before = three.owner(course).get();
+            String after = four.owner(course).get();
+            if (!before.equals(after)) {
+                Assertions.assertEquals("d:8004", after);
+                moved++;
+            }
+            owned.merge(after, 1, Integer::sum);
+        }
+
+        // about a quarter moves and every node gets a fair share
+        Assertions.assertTrue(moved > 1500 && moved < 3500, "moved " + moved);
+        owned.values().forEach(count -> Assertions.assertTrue(count > 1500 && count < 3500, "owned " + owned));
+    }
+
+    @Test
+    void emptyRingHasNoOwner() {
+        Assertions.assertTrue(new ConsistentHashRing(List.of(), 128).owner("course").isEmpty());
+    }
+}
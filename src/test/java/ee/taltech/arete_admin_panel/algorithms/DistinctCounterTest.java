@@ -0,0 +1,32 @@
+package ee.taltech.arete_admin_panel.algorithms;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DistinctCounterTest {
+
+    @Test
+    void exactBelowThresholdAndEstimatedAbove() {
+        DistinctCounter small = new DistinctCounter(1000, 12);
+        for (int i = 0; i < 3000; i++) {
+            small.add("student" + (i % 500));
+        }
+        Assertions.assertTrue(small.isExact());
+        Assertions.assertEquals(500, small.count());
+
+        DistinctCounter first = new DistinctCounter(1000, 12);
+        DistinctCounter second = new DistinctCounter(1000, 12);
+        for (int i = 0; i < 60000; i++) {
+            first.add("student" + i);
+            second.add("student" + (i + 30000));
+        }
+        Assertions.assertFalse(first.isExact());
+        Assertions.assertEquals(60000, first.count(), 60000 * 0.05);
+
+        first.merge(second);
+        Assertions.assertEquals(90000, first.count(), 90000 * 0.05);
+
+        Assertions.assertTrue(first.isConfiguredLike(second.emptyCopy()));
+        Assertions.assertFalse(first.isConfiguredLike(new DistinctCounter(1000, 14)));
+    }
+}
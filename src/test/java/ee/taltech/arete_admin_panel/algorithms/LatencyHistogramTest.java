@@ -0,0 +1,28 @@
+package ee.taltech.arete_admin_panel.algorithms;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value);
+        }
+
+        Assertions.assertEquals(100000, histogram.getCount());
+        Assertions.assertEquals(100000, histogram.getMax());
+        Assertions.assertEquals(50000, histogram.percentile(50), 50000 * 0.04);
+        Assertions.assertEquals(95000, histogram.percentile(95), 95000 * 0.04);
+        Assertions.assertEquals(99000, histogram.percentile(99), 99000 * 0.04);
+        Assertions.assertTrue(histogram.percentile(50) >= 50000);
+
+        for (long value : new long[]{0, 63, 64, 65, 127, 128, 1 << 20, Long.MAX_VALUE / 2}) {
+            int index = LatencyHistogram.index(value);
+            Assertions.assertTrue(LatencyHistogram.highestEquivalent(index) >= value);
+            Assertions.assertTrue(index == 0 || LatencyHistogram.highestEquivalent(index - 1) < value);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ee.taltech.arete_admin_panel.algorithms;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class LeaderboardTest {
+
+    @Test
+    void boundedBoardStaysExactForGrowingScores() {
+        Leaderboard leaderboard = new Leaderboard();
+        int students = Leaderboard.CAPACITY * 3;
+        for (int round = 1; round <= 5; round++) {
+            for (int i = 0; i < students; i++) {
+                // later students gain faster and overtake the early leaders
+                leaderboard.update("student" + i, new Leaderboard.Scores((long) round * i, 0, round));
+            }
+        }
+
+        List<Leaderboard.Entry> top = leaderboard.top(Leaderboard.Metric.TESTS_PASSED, 3);
+        Assertions.assertEquals("student" + (students - 1), top.get(0).getUniid());
+        Assertions.assertEquals(5L * (students - 1), top.get(0).getScore());
+        Assertions.assertEquals("student" + (students - 3), top.get(2).getUniid());
+        Assertions.assertEquals(Leaderboard.CAPACITY, leaderboard.top(Leaderboard.Metric.TESTS_PASSED, Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    void ranksMembersByTheirLatestTotals() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.update("first", new Leaderboard.Scores(10, 0, 2));
+        Leaderboard.Scores second = new Leaderboard.Scores(6, 1, 1);
+        leaderboard.update("second", second);
+        leaderboard.update("second", second.plus(new Leaderboard.Scores(6, 0, 1)));
+
+        Assertions.assertEquals("second", leaderboard.top(Leaderboard.Metric.TESTS_PASSED, 1).get(0).getUniid());
+        Assertions.assertEquals(12L, leaderboard.top(Leaderboard.Metric.TESTS_PASSED, 1).get(0).getScore());
+        Assertions.assertEquals(1L, leaderboard.top(Leaderboard.Metric.DIAGNOSTIC_ERRORS, 1).get(0).getScore());
+        Assertions.assertEquals(2, leaderboard.top(Leaderboard.Metric.COMMITS, 2).get(1).getScore());
+    }
+
+    @Test
+    void boardsAreLoadedPerMetric() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.offer(Leaderboard.Metric.COMMITS, "committer", 7);
+        leaderboard.offer(Leaderboard.Metric.TESTS_PASSED, "tester", 3);
+
+        Assertions.assertEquals("committer", leaderboard.top(Leaderboard.Metric.COMMITS, 10).get(0).getUniid());
+        Assertions.assertEquals(1, leaderboard.top(Leaderboard.Metric.COMMITS, 10).size());
+        Assertions.assertTrue(leaderboard.top(Leaderboard.Metric.DIAGNOSTIC_ERRORS, 10).isEmpty());
+    }
+}
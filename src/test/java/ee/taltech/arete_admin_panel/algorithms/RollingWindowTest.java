@@ -0,0 +1,60 @@
+package ee.taltech.arete_admin_panel.algorithms;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class RollingWindowTest {
+
+    private static final long MINUTE = RollingWindow.BUCKET_MILLIS;
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long START = 1_599_999_960_000L; // at a minute boundary
+
+    @Test
+    void sumsTheBucketsOfTheWindow() {
+        RollingWindow window = new RollingWindow();
+        window.add(START, 4, 3);
+        window.add(START + MINUTE + 10, 2, 2);
+
+        RollingWindow.Totals fiveMinutes = window.sum(5 * MINUTE, START + MINUTE);
+        Assertions.assertEquals(2, fiveMinutes.submissions);
+        Assertions.assertEquals(6, fiveMinutes.testsRan);
+        Assertions.assertEquals(5, fiveMinutes.testsPassed);
+        Assertions.assertEquals(1, window.sum(MINUTE, START + MINUTE).submissions);
+        Assertions.assertEquals(0, window.sum(5 * MINUTE, START - MINUTE).submissions);
+    }
+
+    @Test
+    void bucketExpiresAtTheDayBoundary() {
+        RollingWindow window = new RollingWindow();
+        window.add(START, 1, 1);
+
+        Assertions.assertEquals(1, window.sum(DAY, START + DAY - MINUTE).submissions);
+        Assertions.assertEquals(1, window.sum(DAY, START + DAY - 1).submissions);
+        Assertions.assertEquals(0, window.sum(DAY, START + DAY).submissions);
+        // longer windows are cut to the day the ring holds
+        Assertions.assertEquals(0, window.sum(2 * DAY, START + DAY).submissions);
+    }
+
+    @Test
+    void slotRollsOverToTheSameMinuteOfTheNextDay() {
+        RollingWindow window = new RollingWindow();
+        window.add(START, 1, 1);
+        window.add(START + DAY, 5, 0);
+
+        RollingWindow.Totals day = window.sum(DAY, START + DAY);
+        Assertions.assertEquals(1, day.submissions);
+        Assertions.assertEquals(5, day.testsRan);
+        Assertions.assertEquals(0, day.testsPassed);
+    }
+
+    @Test
+    void submissionsOlderThanTheRingAreDropped() {
+        RollingWindow window = new RollingWindow();
+        window.add(START + DAY, 1, 1);
+        window.add(START, 1, 1);
+
+        Assertions.assertEquals(1, window.sum(DAY, START + DAY).submissions);
+    }
+}
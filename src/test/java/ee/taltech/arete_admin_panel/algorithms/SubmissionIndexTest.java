@@ -0,0 +1,68 @@
+package ee.taltech.arete_admin_panel.algorithms;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ee.taltech.arete_admin_panel.domain.Submission;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+class SubmissionIndexTest {
+
+    @Test
+    void indexFollowsTheCache() {
+        SubmissionIndex index = new SubmissionIndex();
+        Cache<Long, Submission> cache = Caffeine.newBuilder().writer(index).build();
+
+        for (long id = 1; id <= 100; id++) {
+            cache.put(id, Submission.builder()
+                    .id(id)
+                    .uniid("student" + id % 10)
+                    .slug("EX0" + id % 3)
+                    .gitTestSource("course")
+                    .timestamp(1000 - id)
+                    .failed(id % 5 == 0)
+                    .build());
+        }
+
+        List<Submission> newest = index.query(Map.of(SubmissionIndex.Field.UNIID, "student1"), false, 3);
+        Assertions.assertEquals(List.of(1L, 11L, 21L), List.of(newest.get(0).getId(), newest.get(1).getId(), newest.get(2).getId()));
+
+        List<Submission> failed = index.query(Map.of(SubmissionIndex.Field.FAILED, "true", SubmissionIndex.Field.SLUG, "EX00"), true, 100);
+        Assertions.assertTrue(failed.stream().allMatch(submission -> submission.getFailed() && submission.getSlug().equals("EX00")));
+        Assertions.assertEquals(6, failed.size());
+
+        Assertions.assertEquals(34L, index.count(Map.of(), SubmissionIndex.Field.SLUG).get("EX01"));
+        Assertions.assertEquals(7L, index.count(Map.of(SubmissionIndex.Field.SLUG, "EX01"), SubmissionIndex.Field.FAILED).get("true"));
+
+        cache.invalidate(1L);
+        Assertions.assertEquals(11L, index.query(Map.of(SubmissionIndex.Field.UNIID, "student1"), false, 1).get(0).getId());
+        Assertions.assertEquals(99, index.size());
+    }
+
+    @Test
+    void cursorPagesCoverEveryMatchOnce() {
+        SubmissionIndex index = new SubmissionIndex();
+        Cache<Long, Submission> cache = Caffeine.newBuilder().writer(index).build();
+        for (long id = 1; id <= 50; id++) {
+            // pairs of submissions share a timestamp, the id breaks the tie
+            cache.put(id, Submission.builder().id(id).uniid("student" + id % 2).timestamp(id / 2).build());
+        }
+
+        List<Long> seen = new ArrayList<>();
+        SubmissionIndex.Cursor after = null;
+        List<Submission> page;
+        do {
+            page = index.query(Map.of(SubmissionIndex.Field.UNIID, "student0"), false, after, 4);
+            page.forEach(submission -> seen.add(submission.getId()));
+            after = page.isEmpty() ? null : SubmissionIndex.Cursor.parse(SubmissionIndex.Cursor.of(page.get(page.size() - 1)).toString());
+        } while (page.size() == 4);
+
+        Assertions.assertEquals(25, seen.size());
+        Assertions.assertEquals(50L, seen.get(0));
+        Assertions.assertEquals(2L, seen.get(24));
+    }
+}
@@ -0,0 +1,46 @@
+package ee.taltech.arete_admin_panel.algorithms;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+class TimestampSeriesTest {
+
+    @Test
+    @SneakyThrows
+    void behavesLikeSortedSet() {
+        Random random = new Random(42);
+        TimestampSeries series = new TimestampSeries();
+        TreeSet<Long> expected = new TreeSet<>();
+
+        long now = 1_600_000_000_000L;
+        for (int i = 0; i < 5000; i++) {
+            // mostly increasing with some late and duplicate timestamps
+            long timestamp = random.nextInt(10) == 0 ? now - random.nextInt(1_000_000) : (now += random.nextInt(60_000));
+            Assertions.assertEquals(expected.add(timestamp), series.add(timestamp));
+        }
+
+        Assertions.assertEquals(expected.size(), series.size());
+        Assertions.assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), series.toArray());
+
+        long from = expected.first() + 10_000_000;
+        long to = from + 50_000_000;
+        Assertions.assertEquals(expected.subSet(from, to).size(), series.count(from, to));
+
+        int[] histogram = series.histogram(from, to, 1_000_000);
+        Assertions.assertEquals(50, histogram.length);
+        Assertions.assertEquals(expected.subSet(from, from + 1_000_000).size(), histogram[0]);
+        Assertions.assertEquals(series.count(from, to), Arrays.stream(histogram).sum());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        series.writeTo(new DataOutputStream(bytes));
+        TimestampSeries read = TimestampSeries.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        Assertions.assertEquals(series, read);
+        Assertions.assertTrue(series.encodedSize() < expected.size() * 4L);
+    }
+}
@@ -0,0 +1,84 @@
+package ee.taltech.arete_admin_panel.algorithms;
+
+import ee.taltech.arete_admin_panel.domain.Student;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+class VersionedViewTest {
+
+    @Test
+    void publishedVersionDoesNotChangeUnderReaders() {
+        VersionedView<Integer, Student> view = new VersionedView<>(Student::getId, Student::copy);
+        Student live = Student.builder().id(1).uniid("envomp").build();
+        live.getCourses().add("git");
+        view.publish(List.of(live));
+
+        VersionedView.Version<Integer, Student> read = view.current();
+        live.getCourses().add("git2");
+        live.setTotalCommits(5);
+        Assertions.assertEquals(1, read.get(1).get().getCourses().size());
+        Assertions.assertEquals(0, read.get(1).get().getTotalCommits());
+
+        view.publish(List.of(live));
+        view.remove(1);
+        Assertions.assertEquals(2, view.current().get(1).get().getCourses().size());
+        Assertions.assertEquals(2, view.current().getEpoch());
+
+        view.publish(List.of());
+        Assertions.assertTrue(view.current().get(1).isEmpty());
+        Assertions.assertTrue(read.get(1).isPresent());
+    }
+
+    @Test
+    void entityEvictedDuringItsBatchIsNotPublished() {
+        VersionedView<Integer, Student> view = new VersionedView<>(Student::getId, Student::copy);
+        Student evicted = Student.builder().id(1).uniid("evicted").build();
+        Student restored = Student.builder().id(2).uniid("restored").build();
+        view.remove(1);
+        view.remove(2);
+        view.restore(2);
+
+        view.publish(List.of(evicted, restored));
+        Assertions.assertTrue(view.current().get(1).isEmpty());
+        Assertions.assertTrue(view.current().get(2).isPresent());
+    }
+
+    @Test
+    void versionsStayOrderedAndIndependent() {
+        VersionedView<Integer, Student> view = new VersionedView<>(Student::getId, Student::copy);
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        Random random = new Random(42);
+        VersionedView.Version<Integer, Student> early = null;
+        for (int round = 0; round < 200; round++) {
+            List<Student> changed = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                int id = random.nextInt(1000);
+                changed.add(Student.builder().id(id).uniid("student" + id + "v" + round).build());
+            }
+            List<Integer> removed = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                removed.add(random.nextInt(1000));
+            }
+            removed.forEach(view::remove);
+            // a batch holds the latest instance per id
+            Map<Integer, Student> batch = new LinkedHashMap<>();
+            changed.forEach(student -> batch.put(student.getId(), student));
+            batch.values().forEach(student -> expected.put(student.getId(), student.getUniid()));
+            expected.keySet().removeAll(removed);
+            view.publish(batch.values());
+            if (round == 10) {
+                early = view.current();
+            }
+        }
+
+        Assertions.assertEquals(List.copyOf(expected.keySet()),
+                view.current().values().stream().map(Student::getId).collect(Collectors.toList()));
+        Assertions.assertEquals(expected.size(), view.current().values().size());
+        Assertions.assertEquals(List.copyOf(expected.tailMap(500, false).keySet()).subList(0, 10),
+                view.current().page(500, 10).stream().map(Student::getId).collect(Collectors.toList()));
+        Assertions.assertNotEquals(view.current().values().size(), early.values().size());
+    }
+}
@@ -0,0 +1,72 @@
+package ee.taltech.arete_admin_panel.controller;
+
+import ee.taltech.arete_admin_panel.AreteAdminPanelApplication;
+import ee.taltech.arete_admin_panel.domain.Role;
+import ee.taltech.arete_admin_panel.pojo.abi.users.user.FullUserDto;
+import ee.taltech.arete_admin_panel.service.UserService;
+import io.restassured.RestAssured;
+import io.restassured.http.Header;
+import org.apache.http.HttpStatus;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.actuate.autoconfigure.web.server.LocalManagementPort;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+@RunWith(SpringRunner.class)
+@AutoConfigureTestDatabase
+@SpringBootTest(
+        classes = AreteAdminPanelApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT
+)
+public class ActuatorControllerTests {
+
+    @Autowired
+    private UserService userService;
+
+    @LocalManagementPort
+    private int port;
+
+    @Before
+    public void beforeEach() {
+        RestAssured.port = port;
+        RestAssured.basePath = "";
+
+        if (userService.getAllUsers().stream().noneMatch(x -> x.getUsername().equals("prometheus"))) {
+            userService.addUser(new FullUserDto("prometheus", "password", Role.METRICS));
+        }
+    }
+
+    @Test
+    public void prometheusNeedsAMetricsUser() {
+        given()
+                .when()
+                .get("/actuator/prometheus")
+                .then()
+                .statusCode(is(HttpStatus.SC_FORBIDDEN));
+
+        given()
+                .when()
+                .header(new Header("Authorization", "prometheus password"))
+                .get("/actuator/prometheus")
+                .then()
+                .statusCode(is(HttpStatus.SC_OK))
+                .body(containsString("arete_cache_queue"));
+    }
+
+    @Test
+    public void healthStaysOpen() {
+        given()
+                .when()
+                .get("/actuator/health")
+                .then()
+                .statusCode(is(HttpStatus.SC_OK));
+    }
+}
@@ -0,0 +1,90 @@
+package ee.taltech.arete_admin_panel.controller;
+
+import ee.taltech.arete_admin_panel.AreteAdminPanelApplication;
+import ee.taltech.arete_admin_panel.pojo.abi.users.user.AuthenticationDto;
+import ee.taltech.arete_admin_panel.pojo.abi.users.user.UserResponseDTO;
+import ee.taltech.arete_admin_panel.service.UserService;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import io.restassured.http.Header;
+import org.apache.http.HttpStatus;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.is;
+
+@RunWith(SpringRunner.class)
+@AutoConfigureTestDatabase
+@SpringBootTest(
+        classes = AreteAdminPanelApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT
+)
+public class SubmissionControllerTests {
+
+    @Autowired
+    private UserService userService;
+
+    @LocalServerPort
+    private int port;
+
+    private String token;
+
+    @Before
+    public void beforeEach() {
+        RestAssured.port = port;
+        RestAssured.basePath = "/services/arete/api/v2";
+
+        if (token == null) {
+            AuthenticationDto auth = new AuthenticationDto("submissions", "password");
+            if (userService.getAllUsers().stream().noneMatch(x -> x.getUsername().equals("submissions"))) {
+                userService.addSuperUser("submissions", "password");
+            }
+            token = getUserToken(auth).getToken();
+        }
+    }
+
+    @Test
+    public void unknownSubmissionIsNotFound() {
+        for (String path : new String[]{"", "/suites", "/errors", "/output", "/console"}) {
+            given()
+                    .when()
+                    .header(new Header("Authorization", token))
+                    .get("/submission/missing/1" + path)
+                    .then()
+                    .statusCode(is(HttpStatus.SC_NOT_FOUND));
+        }
+    }
+
+    @Test
+    public void limitMustBePositive() {
+        for (String limit : new String[]{"0", "-1"}) {
+            given()
+                    .when()
+                    .header(new Header("Authorization", token))
+                    .queryParam("limit", limit)
+                    .get("/submission/all")
+                    .then()
+                    .statusCode(is(HttpStatus.SC_BAD_REQUEST));
+        }
+    }
+
+    private UserResponseDTO getUserToken(AuthenticationDto auth) {
+        return given()
+                .when()
+                .body(auth)
+                .contentType(ContentType.JSON)
+                .post("/user/auth")
+                .then()
+                .statusCode(is(HttpStatus.SC_OK))
+                .extract()
+                .body()
+                .as(UserResponseDTO.class);
+    }
+}
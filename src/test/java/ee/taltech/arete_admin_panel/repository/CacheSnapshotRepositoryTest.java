@@ -0,0 +1,60 @@
+package ee.taltech.arete_admin_panel.repository;
+
+import ee.taltech.arete_admin_panel.algorithms.Leaderboard;
+import ee.taltech.arete_admin_panel.configuration.CacheProperties;
+import ee.taltech.arete_admin_panel.domain.Course;
+import ee.taltech.arete_admin_panel.domain.Slug;
+import ee.taltech.arete_admin_panel.domain.Student;
+import ee.taltech.arete_admin_panel.domain.Submission;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class CacheSnapshotRepositoryTest {
+
+    @Test
+    @SneakyThrows
+    void snapshotIsRestoredAndCorruptionIsDetected() {
+        Path file = Files.createTempDirectory("snapshot").resolve("cache.snapshot");
+        CacheProperties properties = new CacheProperties();
+        properties.setSnapshotFile(file.toString());
+        CacheSnapshotRepository repository = new CacheSnapshotRepository(LoggerFactory.getLogger(getClass()), properties);
+
+        Student student = Student.builder().id(1).uniid("envomp").firstTested(10L).lastTested(20L).totalCommits(2).build();
+        student.getTimestamps().add(10L);
+        student.getTimestamps().add(20L);
+        student.getSlugs().add("EX01");
+        student.setDifferentSlugs(1);
+        student.getSlugScores().put(3, new Leaderboard.Scores(5, 1, 2));
+        Course course = Course.builder().id(2).gitUrl("https://gitlab.cs.ttu.ee/iti0102-2019/ex.git").name("iti0102-2019").build();
+        course.getTotalCommits().add(2);
+        course.getStudents().add("envomp");
+        course.getLeaders().update("envomp", new Leaderboard.Scores(5, 1, 2));
+        Slug slug = Slug.builder().id(3).name("EX01").courseUrl(course.getGitUrl()).build();
+        Submission submission = Submission.builder().id(42L).uniid("envomp").slug("EX01").timestamp(20L).style(100).build();
+
+        repository.save(new CacheSnapshotRepository.Snapshot(2, 42, List.of(student), List.of(course), List.of(slug), List.of(submission)));
+
+        CacheSnapshotRepository.Snapshot restored = repository.load().orElseThrow();
+        Assertions.assertEquals(2, restored.getAggregatedSubmissions());
+        Assertions.assertEquals(42, restored.getLastSubmissionId());
+        Assertions.assertEquals(student, restored.getStudents().get(0));
+        Assertions.assertEquals(2, restored.getCourses().get(0).getTotalCommits().sum());
+        Assertions.assertEquals(1, restored.getCourses().get(0).getDifferentStudents());
+        Assertions.assertEquals(5, restored.getCourses().get(0).getLeaders().top(Leaderboard.Metric.TESTS_PASSED, 1).get(0).getScore());
+        Assertions.assertEquals("EX01", restored.getSlugs().get(0).getName());
+        Assertions.assertEquals(100, restored.getSubmissions().get(0).getStyle());
+
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(raf.length() - 1);
+            raf.write(raf.read() ^ 0xFF);
+        }
+        Assertions.assertTrue(repository.load().isEmpty());
+    }
+}
@@ -0,0 +1,44 @@
+package ee.taltech.arete_admin_panel.repository;
+
+import ee.taltech.arete_admin_panel.configuration.ArchiveProperties;
+import ee.taltech.arete_admin_panel.domain.Job;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+class JobArchiveRepositoryTest {
+
+    @Test
+    @SneakyThrows
+    void archivedJobsCanBeFoundAfterRestart() {
+        ArchiveProperties properties = new ArchiveProperties();
+        properties.setDirectory(Files.createTempDirectory("archive").toString());
+        properties.setIndexInterval(4);
+
+        JobArchiveRepository repository = new JobArchiveRepository(LoggerFactory.getLogger(getClass()), properties);
+
+        List<Job> jobs = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            // pairs of jobs share a timestamp to cross index interval boundaries
+            jobs.add(Job.builder().hash("hash" + i).timestamp(1000L + i / 2).slug("slug").output("output " + i).build());
+        }
+        repository.append(jobs.subList(0, 25));
+        repository.append(jobs.subList(25, 50));
+
+        JobArchiveRepository reopened = new JobArchiveRepository(LoggerFactory.getLogger(getClass()), properties);
+        for (int i = 0; i < 50; i++) {
+            Optional<Job> job = reopened.findByHashAndTimestamp("hash" + i, 1000L + i / 2);
+            Assertions.assertTrue(job.isPresent());
+            Assertions.assertEquals("output " + i, job.get().getOutput());
+        }
+
+        Assertions.assertTrue(reopened.findByHashAndTimestamp("hash3", 1000L).isEmpty());
+        Assertions.assertTrue(reopened.findByHashAndTimestamp("missing", 1010L).isEmpty());
+    }
+}
@@ -0,0 +1,122 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete.java.response.arete.AreteResponseDTO;
+import ee.taltech.arete_admin_panel.AreteAdminPanelApplication;
+import ee.taltech.arete_admin_panel.algorithms.Leaderboard;
+import ee.taltech.arete_admin_panel.domain.AggregateMember;
+import ee.taltech.arete_admin_panel.domain.Course;
+import ee.taltech.arete_admin_panel.domain.InternedKey;
+import ee.taltech.arete_admin_panel.domain.Student;
+import ee.taltech.arete_admin_panel.repository.AggregateMemberRepository;
+import ee.taltech.arete_admin_panel.repository.CourseAggregateRepository;
+import ee.taltech.arete_admin_panel.repository.StudentAggregateRepository;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@AutoConfigureTestDatabase
+@SpringBootTest(
+        classes = AreteAdminPanelApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT
+)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AggregateServiceTest {
+
+    private static final String UNIID = "aggregated";
+    private static final String COURSE = "git-aggregate";
+
+    @Autowired
+    private AreteService areteService;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private AggregateService aggregateService;
+
+    @Autowired
+    private StudentAggregateRepository studentAggregateRepository;
+
+    @Autowired
+    private CourseAggregateRepository courseAggregateRepository;
+
+    @Autowired
+    private AggregateMemberRepository aggregateMemberRepository;
+
+    private Student student;
+    private Course course;
+
+    @BeforeAll
+    @SneakyThrows
+    void submitAndFlush() {
+        for (String slug : new String[]{"EX01", "EX02"}) {
+            areteService.parseAreteResponseDTO(AreteResponseDTO.builder()
+                    .uniid(UNIID)
+                    .hash("aggregate-" + slug)
+                    .gitTestRepo(COURSE)
+                    .slug(slug)
+                    .build());
+        }
+        areteService.parseAreteResponseDTO(AreteResponseDTO.builder()
+                .uniid(UNIID)
+                .hash("aggregate-other")
+                .gitTestRepo(COURSE + "-other")
+                .slug("EX01")
+                .build());
+
+        for (int i = 0; i < 50 && cacheService.getStudent(UNIID).map(Student::getTotalCommits).orElse(0) < 3; i++) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        student = cacheService.getStudent(UNIID).orElseThrow();
+        course = cacheService.getCourse(COURSE).orElseThrow();
+        aggregateService.flush();
+    }
+
+    @Test
+    void flushAddsTheDeltasToTheAggregates() {
+        Assertions.assertEquals(3, studentAggregateRepository.findById(student.getId()).orElseThrow().getTotalCommits());
+        Assertions.assertEquals(2, courseAggregateRepository.findById(course.getId()).orElseThrow().getTotalCommits());
+    }
+
+    @Test
+    void flushScoresTheMembers() {
+        List<AggregateMember> members = aggregateMemberRepository.findByKindAndOwnerId(InternedKey.Kind.COURSE, course.getId());
+        Assertions.assertEquals(1, members.size());
+        Assertions.assertEquals(UNIID, members.get(0).getUniid());
+        // the student's commits to this course, not all of them
+        Assertions.assertEquals(2L, members.get(0).getCommits());
+    }
+
+    @Test
+    void loadedStudentEqualsTheLiveOne() {
+        Student loaded = aggregateService.loadStudent(student.getId()).orElseThrow();
+        Assertions.assertEquals(3, loaded.getTotalCommits());
+        Assertions.assertEquals(2, loaded.getDifferentCourses());
+        Assertions.assertEquals(student.getCourseScores(), loaded.getCourseScores());
+        Assertions.assertEquals(student.getSlugScores(), loaded.getSlugScores());
+    }
+
+    @Test
+    void loadedCourseEqualsTheLiveOne() {
+        Course loaded = aggregateService.loadCourse(course.getId()).orElseThrow();
+        Assertions.assertEquals(2, loaded.getTotalCommits().sum());
+        Assertions.assertEquals(1, loaded.getDifferentStudents());
+    }
+
+    @Test
+    void leadersAreRankedByTheirScoresInTheCourse() {
+        for (Course leaders : List.of(course, aggregateService.loadCourse(course.getId()).orElseThrow())) {
+            Leaderboard.Entry first = leaders.getLeaders().top(Leaderboard.Metric.COMMITS, 1).get(0);
+            Assertions.assertEquals(UNIID, first.getUniid());
+            Assertions.assertEquals(2, first.getScore());
+        }
+    }
+}
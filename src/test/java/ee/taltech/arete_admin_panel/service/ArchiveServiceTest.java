@@ -0,0 +1,64 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete.java.response.arete.AreteResponseDTO;
+import ee.taltech.arete.java.response.arete.TestContextDTO;
+import ee.taltech.arete.java.response.arete.TestStatus;
+import ee.taltech.arete.java.response.arete.UnitTestDTO;
+import ee.taltech.arete_admin_panel.AreteAdminPanelApplication;
+import ee.taltech.arete_admin_panel.pojo.abi.job.JobSummaryDTO;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@AutoConfigureTestDatabase
+@SpringBootTest(classes = AreteAdminPanelApplication.class)
+@TestPropertySource(properties = {
+        "arete.archive.enabled=true",
+        "arete.archive.directory=target/archive-service-test",
+        "arete.archive.older-than-days=1"})
+class ArchiveServiceTest {
+
+    @Autowired
+    private AreteService areteService;
+
+    @Autowired
+    private ArchiveService archiveService;
+
+    @Autowired
+    private JobService jobService;
+
+    @Test
+    @SneakyThrows
+    void archivedJobIsReadFromTheArchiveAfterItsSummaryWasCached() {
+        areteService.parseAreteResponseDTO(AreteResponseDTO.builder()
+                .uniid("archived")
+                .hash("archived")
+                .timestamp(1234L)
+                .gitTestRepo("git")
+                .slug("slug")
+                .output("output of the tester")
+                .testSuites(List.of(TestContextDTO.builder()
+                        .name("EX01Test")
+                        .unitTests(List.of(UnitTestDTO.builder().name("testA").status(TestStatus.PASSED).build()))
+                        .build()))
+                .build());
+        Assertions.assertFalse(jobService.getSummary("archived", 1234L).get().isArchived());
+
+        archiveService.archiveOldJobs();
+
+        JobSummaryDTO job = jobService.getSummary("archived", 1234L).get();
+        Assertions.assertTrue(job.isArchived());
+        Assertions.assertEquals("testA", jobService.getTestSuites(job).get(0).getUnitTests().get(0).getName());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        jobService.writeOutput(job, JobService.Output.OUTPUT, 0, job.getOutputLength(), output);
+        Assertions.assertEquals("output of the tester", output.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -2,6 +2,9 @@ package ee.taltech.arete_admin_panel.service;
 
 import ee.taltech.arete.java.response.arete.AreteResponseDTO;
 import ee.taltech.arete_admin_panel.AreteAdminPanelApplication;
+import ee.taltech.arete_admin_panel.domain.Course;
+import ee.taltech.arete_admin_panel.domain.Slug;
+import ee.taltech.arete_admin_panel.domain.Student;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -11,7 +14,6 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
-import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
 @RunWith(SpringRunner.class)
@@ -53,13 +55,18 @@ class AreteServiceTest {
 
         TimeUnit.SECONDS.sleep(1);
 
-        Assertions.assertEquals(cacheService.getStudent("envomp").get().getId(), Objects.hash("envomp"));
-        Assertions.assertEquals(cacheService.getStudent("envomp").get().getTotalCommits(), 2);
+        Student student = cacheService.getStudent("envomp").get();
+        Assertions.assertEquals(cacheService.getStudent(student.getId()).get(), student);
+        Assertions.assertEquals(student.getTotalCommits(), 2);
 
-        Assertions.assertEquals(cacheService.getCourse("git").get().getId(), Objects.hash("git"));
-        Assertions.assertEquals(cacheService.getCourse("git").get().getTotalCommits(), 1);
+        Course course = cacheService.getCourse("git").get();
+        Assertions.assertEquals(cacheService.getCourse(course.getId()).get(), course);
+        Assertions.assertEquals(course.getTotalCommits().sum(), 1);
+        Assertions.assertNotEquals(course.getId(), cacheService.getCourse("git2").get().getId());
 
-        Assertions.assertEquals(cacheService.getSlug("slug", "git").get().getId(), Objects.hash("slug", "git"));
-        Assertions.assertEquals(cacheService.getSlug("slug", "git").get().getTotalCommits(), 1);
+        Slug slug = cacheService.getSlug("slug", "git").get();
+        Assertions.assertEquals(cacheService.getSlug(slug.getId()).get(), slug);
+        Assertions.assertEquals(slug.getTotalCommits().sum(), 1);
+        Assertions.assertNotEquals(slug.getId(), cacheService.getSlug("slug2", "git2").get().getId());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete.java.response.arete.AreteResponseDTO;
+import ee.taltech.arete.java.response.arete.TestContextDTO;
+import ee.taltech.arete.java.response.arete.TestStatus;
+import ee.taltech.arete.java.response.arete.UnitTestDTO;
+import ee.taltech.arete_admin_panel.AreteAdminPanelApplication;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@AutoConfigureTestDatabase
+@SpringBootTest(
+        classes = AreteAdminPanelApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT
+)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class JobExportServiceTest {
+
+    private static final String COURSE = "git-export";
+
+    @Autowired
+    private AreteService areteService;
+
+    @Autowired
+    private JobExportService jobExportService;
+
+    @BeforeAll
+    void submitJobs() {
+        for (int i = 0; i < 3; i++) {
+            areteService.parseAreteResponseDTO(AreteResponseDTO.builder()
+                    .uniid("exporter" + i)
+                    .hash("export" + i)
+                    .timestamp(1000L * (i + 1))
+                    .gitTestRepo(COURSE)
+                    .slug(i == 0 ? "EX02" : "EX01")
+                    .testSuites(List.of(TestContextDTO.builder()
+                            .name("EX01Test")
+                            .unitTests(List.of(UnitTestDTO.builder().name("testA").status(TestStatus.PASSED).build()))
+                            .build()))
+                    .build());
+        }
+    }
+
+    @Test
+    void exportsEveryJobOfTheCourseAsOneLine() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assertions.assertEquals(3, jobExportService.export(COURSE, null, 0, Long.MAX_VALUE, out));
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(3, lines.length);
+        Assertions.assertTrue(lines[0].startsWith("{") && lines[0].contains("\"testA\""));
+    }
+
+    @Test
+    void exportsOnlyTheSlugAndPeriod() {
+        Assertions.assertEquals(2, jobExportService.export(COURSE, "EX01", 0, Long.MAX_VALUE, new ByteArrayOutputStream()));
+        Assertions.assertEquals(1, jobExportService.export(COURSE, "EX01", 2500, Long.MAX_VALUE, new ByteArrayOutputStream()));
+    }
+}
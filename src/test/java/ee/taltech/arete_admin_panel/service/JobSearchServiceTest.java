@@ -0,0 +1,100 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete.java.response.arete.AreteResponseDTO;
+import ee.taltech.arete.java.response.arete.ErrorDTO;
+import ee.taltech.arete.java.response.arete.TestContextDTO;
+import ee.taltech.arete.java.response.arete.TestStatus;
+import ee.taltech.arete.java.response.arete.UnitTestDTO;
+import ee.taltech.arete_admin_panel.AreteAdminPanelApplication;
+import ee.taltech.arete_admin_panel.algorithms.SubmissionIndex;
+import ee.taltech.arete_admin_panel.pojo.abi.job.JobSearchHitDTO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@AutoConfigureTestDatabase
+@SpringBootTest(
+        classes = AreteAdminPanelApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT
+)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class JobSearchServiceTest {
+
+    private static final String COURSE = "git-search";
+
+    @Autowired
+    private AreteService areteService;
+
+    @Autowired
+    private JobSearchService jobSearchService;
+
+    @BeforeAll
+    void submitJobs() {
+        areteService.parseAreteResponseDTO(AreteResponseDTO.builder()
+                .uniid("search0")
+                .hash("search0")
+                .timestamp(1000L)
+                .gitTestRepo(COURSE)
+                .slug("EX07")
+                .output("Exception in thread \"main\" java.lang.StackOverflowError")
+                .build());
+        areteService.parseAreteResponseDTO(AreteResponseDTO.builder()
+                .uniid("search1")
+                .hash("search1")
+                .timestamp(2000L)
+                .gitTestRepo(COURSE)
+                .slug("EX07")
+                .errors(List.of(ErrorDTO.builder().message("cannot find symbol recurse").build()))
+                .testSuites(List.of(TestContextDTO.builder()
+                        .name("EX07Test")
+                        .unitTests(List.of(UnitTestDTO.builder().name("testDeep").status(TestStatus.FAILED)
+                                .exceptionClass("java.lang.StackOverflowError").build()))
+                        .build()))
+                .build());
+        areteService.parseAreteResponseDTO(AreteResponseDTO.builder()
+                .uniid("search2")
+                .hash("search2")
+                .timestamp(3000L)
+                .gitTestRepo(COURSE)
+                .slug("EX08")
+                .output("StackOverflowError")
+                .build());
+    }
+
+    @Test
+    void findsOutputsAndExceptionsNewestFirst() {
+        List<JobSearchHitDTO> hits = search("StackOverflowError", "EX07", 0, null);
+        Assertions.assertEquals(List.of("search1", "search0"), hits.stream().map(JobSearchHitDTO::getHash).collect(Collectors.toList()));
+    }
+
+    @Test
+    void pagesAfterTheCursor() {
+        List<JobSearchHitDTO> first = search("StackOverflowError", "EX07", 0, null);
+        List<JobSearchHitDTO> next = search("StackOverflowError", "EX07", 0,
+                SubmissionIndex.Cursor.of(first.get(0).getTimestamp(), first.get(0).getId()));
+        Assertions.assertEquals(1, next.size());
+        Assertions.assertEquals("search0", next.get(0).getHash());
+    }
+
+    @Test
+    void findsErrorMessagesIgnoringCase() {
+        Assertions.assertEquals("search1", search("Cannot find symbol", null, 0, null).get(0).getHash());
+    }
+
+    @Test
+    void searchesOnlyThePeriod() {
+        List<JobSearchHitDTO> hits = search("StackOverflowError", null, 2500, null);
+        Assertions.assertEquals(List.of("search2"), hits.stream().map(JobSearchHitDTO::getHash).collect(Collectors.toList()));
+    }
+
+    private List<JobSearchHitDTO> search(String query, String slug, long from, SubmissionIndex.Cursor after) {
+        return jobSearchService.search(JobSearchService.terms(query), COURSE, slug, from, Long.MAX_VALUE, after, 10);
+    }
+}
@@ -0,0 +1,116 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete.java.response.arete.AreteResponseDTO;
+import ee.taltech.arete.java.response.arete.ErrorDTO;
+import ee.taltech.arete.java.response.arete.TestContextDTO;
+import ee.taltech.arete.java.response.arete.TestStatus;
+import ee.taltech.arete.java.response.arete.UnitTestDTO;
+import ee.taltech.arete_admin_panel.AreteAdminPanelApplication;
+import ee.taltech.arete_admin_panel.pojo.abi.job.JobSummaryDTO;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@AutoConfigureTestDatabase
+@SpringBootTest(
+        classes = AreteAdminPanelApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT
+)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class JobServiceTest {
+
+    private static final String HASH = "job-parts";
+    private static final long TIMESTAMP = 1234L;
+
+    @Autowired
+    private AreteService areteService;
+
+    @Autowired
+    private JobService jobService;
+
+    private JobSummaryDTO job;
+
+    @BeforeAll
+    void submitJob() {
+        areteService.parseAreteResponseDTO(AreteResponseDTO.builder()
+                .uniid("parts")
+                .hash(HASH)
+                .timestamp(TIMESTAMP)
+                .gitTestRepo("git-parts")
+                .slug("EX01")
+                .output("output of the tester")
+                .consoleOutputs("console")
+                .errors(List.of(ErrorDTO.builder().message("cannot find symbol").build()))
+                .testSuites(List.of(TestContextDTO.builder()
+                        .name("EX01Test")
+                        .unitTests(List.of(UnitTestDTO.builder().name("testA").status(TestStatus.FAILED).build()))
+                        .build()))
+                .build());
+        job = jobService.getSummary(HASH, TIMESTAMP).orElseThrow();
+    }
+
+    @Test
+    void summaryCountsThePartsWithoutThem() {
+        Assertions.assertFalse(job.isArchived());
+        Assertions.assertEquals(20, job.getOutputLength());
+        Assertions.assertEquals(7, job.getConsoleOutputsLength());
+        Assertions.assertEquals(1, job.getTestSuiteCount());
+        Assertions.assertEquals(1, job.getErrorCount());
+        Assertions.assertTrue(jobService.getSummary(HASH, TIMESTAMP + 1).isEmpty());
+    }
+
+    @Test
+    void partsAreReadOnTheirOwn() {
+        Assertions.assertEquals("testA", jobService.getTestSuites(job).get(0).getUnitTests().get(0).getName());
+        Assertions.assertEquals("cannot find symbol", jobService.getErrors(job).get(0).getMessage());
+    }
+
+    @Test
+    @SneakyThrows
+    void outputIsWrittenInRanges() {
+        JobService.Range range = JobService.Range.parse("chars=10-", job.getOutputLength()).orElseThrow();
+        ByteArrayOutputStream part = new ByteArrayOutputStream();
+        jobService.writeOutput(job, JobService.Output.OUTPUT, range.getStart(), range.getEnd(), part);
+        Assertions.assertEquals("the tester", part.toString(StandardCharsets.UTF_8));
+        Assertions.assertEquals("chars 10-19/20", range.contentRange(job.getOutputLength()));
+
+        ByteArrayOutputStream console = new ByteArrayOutputStream();
+        jobService.writeOutput(job, JobService.Output.CONSOLE, 0, job.getConsoleOutputsLength(), console);
+        Assertions.assertEquals("console", console.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @SneakyThrows
+    void suffixRangeIsTheEndOfTheOutput() {
+        JobService.Range range = JobService.Range.parse("chars=-6", job.getOutputLength()).orElseThrow();
+        Assertions.assertTrue(range.isSatisfiable(job.getOutputLength()));
+        Assertions.assertEquals("chars 14-19/20", range.contentRange(job.getOutputLength()));
+
+        ByteArrayOutputStream part = new ByteArrayOutputStream();
+        jobService.writeOutput(job, JobService.Output.OUTPUT, range.getStart(), range.getEnd(), part);
+        Assertions.assertEquals("tester", part.toString(StandardCharsets.UTF_8));
+
+        JobService.Range longer = JobService.Range.parse("chars=-100", job.getOutputLength()).orElseThrow();
+        Assertions.assertEquals("chars 0-19/20", longer.contentRange(job.getOutputLength()));
+    }
+
+    @Test
+    void rangesPastTheEndOrInOtherUnitsAreNotSatisfiable() {
+        long length = job.getOutputLength();
+        for (String header : new String[]{"chars=20-", "chars=25-30", "chars=-0", "bytes=0-9", "lines=1-2"}) {
+            JobService.Range range = JobService.Range.parse(header, length).orElseThrow();
+            Assertions.assertFalse(range.isSatisfiable(length), header);
+        }
+        Assertions.assertTrue(JobService.Range.parse(null, length).isEmpty());
+        Assertions.assertTrue(JobService.Range.parse("chars=0-1,5-6", length).isEmpty());
+    }
+}
@@ -0,0 +1,83 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete_admin_panel.domain.InternedKey;
+import ee.taltech.arete_admin_panel.repository.InternedKeyRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class KeyInternServiceTest {
+
+    private static KeyInternService service(InternedKeyRepository repository) {
+        KeyInternService service = new KeyInternService(LoggerFactory.getLogger(KeyInternServiceTest.class), repository);
+        service.load();
+        return service;
+    }
+
+    @Test
+    void valuesOfInternedKeysAreFoundWithoutTheTable() {
+        InternedKeyRepository repository = Mockito.mock(InternedKeyRepository.class);
+        Mockito.when(repository.findAll()).thenReturn(List.of(
+                InternedKey.builder().kind(InternedKey.Kind.COURSE).value("loaded").keyId(1).build()));
+        KeyInternService service = service(repository);
+
+        int id = service.intern(InternedKey.Kind.COURSE, "interned");
+        Assertions.assertEquals(Optional.of("interned"), service.value(InternedKey.Kind.COURSE, id));
+        Assertions.assertEquals(Optional.of("loaded"), service.value(InternedKey.Kind.COURSE, 1));
+        Assertions.assertTrue(service.value(InternedKey.Kind.SLUG, id).isEmpty());
+        Mockito.verify(repository, Mockito.never()).findByKindAndKeyId(InternedKey.Kind.COURSE, id);
+    }
+
+    @Test
+    void keysOfOtherNodesAreReadFromTheTableOnce() {
+        InternedKeyRepository repository = Mockito.mock(InternedKeyRepository.class);
+        Mockito.when(repository.findByKindAndKeyId(InternedKey.Kind.COURSE, 5000)).thenReturn(Optional.of(
+                InternedKey.builder().kind(InternedKey.Kind.COURSE).value("remote").keyId(5000).build()));
+        KeyInternService service = service(repository);
+
+        Assertions.assertEquals(Optional.of("remote"), service.value(InternedKey.Kind.COURSE, 5000));
+        Assertions.assertEquals(Optional.of("remote"), service.value(InternedKey.Kind.COURSE, 5000));
+        Assertions.assertEquals(5000, service.find(InternedKey.Kind.COURSE, "remote"));
+        Mockito.verify(repository, Mockito.times(1)).findByKindAndKeyId(InternedKey.Kind.COURSE, 5000);
+    }
+
+    @Test
+    void internsNullKeys() {
+        InternedKeyRepository repository = Mockito.mock(InternedKeyRepository.class);
+        KeyInternService service = service(repository);
+
+        int id = service.intern(InternedKey.Kind.COURSE, null);
+        Assertions.assertNotEquals(KeyInternService.MISSING, id);
+        Assertions.assertEquals(id, service.find(InternedKey.Kind.COURSE, null));
+        Assertions.assertEquals(id, service.intern(InternedKey.Kind.COURSE, null));
+        Mockito.verify(repository, Mockito.times(1)).save(Mockito.any());
+    }
+
+    @Test
+    void lookupsDuringResizesFindEveryInternedKey() throws InterruptedException {
+        KeyInternService service = service(Mockito.mock(InternedKeyRepository.class));
+        int first = service.intern(InternedKey.Kind.STUDENT, "first");
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger wrong = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                if (service.find(InternedKey.Kind.STUDENT, "first") != first) {
+                    wrong.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 10_000; i++) {
+            service.intern(InternedKey.Kind.STUDENT, "student" + i);
+        }
+        done.set(true);
+        reader.join();
+        Assertions.assertEquals(0, wrong.get());
+    }
+}
@@ -0,0 +1,108 @@
+package ee.taltech.arete_admin_panel.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.arete_admin_panel.configuration.FeedProperties;
+import ee.taltech.arete_admin_panel.domain.Course;
+import ee.taltech.arete_admin_panel.domain.Student;
+import ee.taltech.arete_admin_panel.domain.Submission;
+import ee.taltech.arete_admin_panel.pojo.abi.feed.FeedCourseDTO;
+import ee.taltech.arete_admin_panel.pojo.abi.feed.FeedStudentDTO;
+import ee.taltech.arete_admin_panel.pojo.abi.feed.FeedSubmissionDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+class LiveFeedServiceTest {
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        private final CountDownLatch sendable;
+
+        RecordingEmitter(CountDownLatch sendable) {
+            this.sendable = sendable;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            try {
+                sendable.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(builder.build().stream().map(data -> data.getData().toString()).collect(Collectors.joining()));
+        }
+
+        String next() throws InterruptedException {
+            return events.poll(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static LiveFeedService feed(int bufferSize, SimpleMeterRegistry meterRegistry) {
+        FeedProperties properties = new FeedProperties();
+        properties.setBufferSize(bufferSize);
+        return new LiveFeedService(LoggerFactory.getLogger(LiveFeedServiceTest.class), properties, new ObjectMapper(),
+                Mockito.mock(CacheService.class), meterRegistry);
+    }
+
+    private static CacheService.Published published(String hash, String course) {
+        Submission submission = Submission.builder().id(1L).hash(hash).uniid("feed").gitTestSource(course).slug("EX01").build();
+        Student student = Student.builder().id(1).uniid("feed").courses(new HashSet<>(Set.of(course))).build();
+        Course changed = Course.builder().id(1).gitUrl(course).name(course).build();
+        return new CacheService.Published(List.of(FeedSubmissionDTO.of(submission)), List.of(FeedStudentDTO.of(student)),
+                List.of(FeedCourseDTO.of(changed)), List.of());
+    }
+
+    @Test
+    void sendsCoalescedChangesOfTheSubscribedCourse() throws InterruptedException {
+        LiveFeedService liveFeedService = feed(64, new SimpleMeterRegistry());
+        RecordingEmitter subscribed = new RecordingEmitter(new CountDownLatch(0));
+        RecordingEmitter other = new RecordingEmitter(new CountDownLatch(0));
+        liveFeedService.subscribe(subscribed, "course-a", null);
+        liveFeedService.subscribe(other, "course-b", null);
+
+        liveFeedService.publish(published("first", "course-a"));
+        liveFeedService.publish(published("second", "course-a"));
+        liveFeedService.flush();
+
+        String submissions = subscribed.next();
+        Assertions.assertTrue(submissions.startsWith("event:submissions"));
+        Assertions.assertTrue(submissions.contains("first") && submissions.contains("second"));
+        Assertions.assertTrue(subscribed.next().startsWith("event:students"));
+        Assertions.assertTrue(subscribed.next().startsWith("event:courses"));
+        Assertions.assertNull(other.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void dropsSubscriberWhoseBufferOverflows() throws InterruptedException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LiveFeedService liveFeedService = feed(2, meterRegistry);
+        CountDownLatch sendable = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(sendable);
+        liveFeedService.subscribe(slow, null, null);
+
+        for (int i = 0; i < 4; i++) {
+            liveFeedService.publish(published("hash" + i, "course-a"));
+            liveFeedService.flush();
+        }
+        Assertions.assertEquals(0, meterRegistry.get("arete.feed.subscribers").gauge().value());
+        Assertions.assertEquals(1, meterRegistry.get("arete.feed.dropped").counter().count());
+
+        sendable.countDown();
+        String last = slow.next();
+        for (String event = last; event != null; event = slow.events.poll(100, TimeUnit.MILLISECONDS)) {
+            last = event;
+        }
+        Assertions.assertTrue(last.startsWith("event:dropped"));
+    }
+}
@@ -0,0 +1,61 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete.java.response.arete.AreteResponseDTO;
+import ee.taltech.arete_admin_panel.AreteAdminPanelApplication;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.concurrent.TimeUnit;
+
+@AutoConfigureTestDatabase
+@SpringBootTest(classes = {AreteAdminPanelApplication.class, MetricsTest.SimpleRegistry.class})
+class MetricsTest {
+
+    @TestConfiguration
+    static class SimpleRegistry {
+
+        @Bean
+        SimpleMeterRegistry simpleMeterRegistry() {
+            // joins the composite registry next to prometheus
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private SimpleMeterRegistry registry;
+
+    @Autowired
+    private AreteService areteService;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Test
+    @SneakyThrows
+    void ingestAndCacheMetersAreUpdated() {
+        areteService.parseAreteResponseDTO(AreteResponseDTO.builder()
+                .uniid("metered")
+                .hash("metered")
+                .gitTestRepo("git")
+                .slug("slug")
+                .build());
+        for (int i = 0; i < 50 && cacheService.getStudent("metered").isEmpty(); i++) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+
+        for (String stage : new String[]{"defaults", "submission", "job", "enqueue"}) {
+            Assertions.assertEquals(1, registry.get("arete.ingest").tag("stage", stage).timer().count(), stage);
+        }
+        Assertions.assertTrue(registry.get("arete.cache.batch").timer().count() >= 1);
+        Assertions.assertTrue(registry.get("arete.cache.batch.size").summary().totalAmount() >= 1);
+        Assertions.assertEquals(0, registry.get("arete.cache.queue").gauge().value());
+        Assertions.assertTrue(registry.get("cache.size").tag("name", "student").gauge().value() >= 1);
+    }
+}
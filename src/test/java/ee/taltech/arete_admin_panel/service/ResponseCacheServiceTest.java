@@ -0,0 +1,59 @@
+package ee.taltech.arete_admin_panel.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.arete_admin_panel.domain.Course;
+import ee.taltech.arete_admin_panel.exception.InvalidParameterException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ResponseCacheServiceTest {
+
+    @Test
+    void serializesOncePerVersionAndAnswersCurrentETagWithNotModified() {
+        ResponseCacheService responseCacheService = new ResponseCacheService(new ObjectMapper());
+        AtomicInteger reads = new AtomicInteger();
+
+        ResponseEntity<byte[]> first = responseCacheService.respond("course/all", 1, () -> List.of(reads.incrementAndGet()),
+                new ServletWebRequest(new MockHttpServletRequest()));
+        Assertions.assertEquals(HttpStatus.OK, first.getStatusCode());
+        Assertions.assertEquals("[1]", new String(first.getBody()));
+
+        MockHttpServletRequest conditional = new MockHttpServletRequest();
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, first.getHeaders().getETag());
+        ResponseEntity<byte[]> second = responseCacheService.respond("course/all", 1, () -> List.of(reads.incrementAndGet()),
+                new ServletWebRequest(conditional));
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        Assertions.assertEquals(1, reads.get());
+
+        ResponseEntity<byte[]> changed = responseCacheService.respond("course/all", 2, () -> List.of(reads.incrementAndGet()),
+                new ServletWebRequest(conditional));
+        Assertions.assertEquals(HttpStatus.OK, changed.getStatusCode());
+        Assertions.assertNotEquals(first.getHeaders().getETag(), changed.getHeaders().getETag());
+    }
+
+    @Test
+    void pageKeepsAskedFieldsAndLinksNextPage() {
+        ResponseCacheService responseCacheService = new ResponseCacheService(new ObjectMapper());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/services/arete/api/v2/course/all");
+        request.setQueryString("limit=2&fields=name");
+        List<Course> page = List.of(
+                Course.builder().id(3).name("first").gitUrl("a").build(),
+                Course.builder().id(7).name("second").gitUrl("b").build());
+
+        ResponseEntity<byte[]> response = responseCacheService.respondPage(page, Course.class, 2, course -> course.getId().toString(),
+                List.of("name"), List.of("id"), new ServletWebRequest(request));
+        Assertions.assertEquals("[{\"id\":3,\"name\":\"first\"},{\"id\":7,\"name\":\"second\"}]", new String(response.getBody()));
+        Assertions.assertTrue(response.getHeaders().getFirst(HttpHeaders.LINK).contains("after=7"));
+
+        Assertions.assertThrows(InvalidParameterException.class, () -> responseCacheService.respondPage(page, Course.class, 2,
+                course -> course.getId().toString(), List.of("password"), List.of("id"), new ServletWebRequest(request)));
+    }
+}
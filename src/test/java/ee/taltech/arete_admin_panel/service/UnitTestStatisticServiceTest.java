@@ -0,0 +1,95 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete.java.response.arete.AreteResponseDTO;
+import ee.taltech.arete.java.response.arete.TestContextDTO;
+import ee.taltech.arete.java.response.arete.TestStatus;
+import ee.taltech.arete.java.response.arete.UnitTestDTO;
+import ee.taltech.arete_admin_panel.AreteAdminPanelApplication;
+import ee.taltech.arete_admin_panel.domain.InternedKey;
+import ee.taltech.arete_admin_panel.domain.UnitTestStatistic;
+import ee.taltech.arete_admin_panel.pojo.abi.statistics.UnitTestStatisticsDTO;
+import ee.taltech.arete_admin_panel.repository.UnitTestStatisticRepository;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+@AutoConfigureTestDatabase
+@SpringBootTest(
+        classes = AreteAdminPanelApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT
+)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UnitTestStatisticServiceTest {
+
+    private static final String COURSE = "git-statistics";
+    private static final String SLUG = "EX01";
+
+    @Autowired
+    private AreteService areteService;
+
+    @Autowired
+    private KeyInternService keyInternService;
+
+    @Autowired
+    private UnitTestStatisticService unitTestStatisticService;
+
+    @Autowired
+    private UnitTestStatisticRepository unitTestStatisticRepository;
+
+    private int slugId;
+
+    @BeforeAll
+    void submitResponses() {
+        for (int i = 0; i < 3; i++) {
+            areteService.parseAreteResponseDTO(AreteResponseDTO.builder()
+                    .uniid("tested" + i)
+                    .hash("statistics" + i)
+                    .gitTestRepo(COURSE)
+                    .slug(SLUG)
+                    .testSuites(List.of(TestContextDTO.builder()
+                            .name("EX01Test")
+                            .unitTests(List.of(
+                                    UnitTestDTO.builder().name("testA").status(TestStatus.PASSED).build(),
+                                    UnitTestDTO.builder().name("testB").status(i == 0 ? TestStatus.PASSED : TestStatus.FAILED)
+                                            .exceptionClass("java.lang.AssertionError").build()))
+                            .build()))
+                    .build());
+        }
+        slugId = keyInternService.find(InternedKey.Kind.SLUG, KeyInternService.slugKey(SLUG, COURSE));
+    }
+
+    @Test
+    void failingTestsComeFirst() {
+        List<UnitTestStatisticsDTO> tests = unitTestStatisticService.getFailingTests(slugId, 10);
+        Assertions.assertEquals("testB", tests.get(0).getName());
+        Assertions.assertEquals(2, tests.get(0).getFailed());
+        Assertions.assertEquals(2L, tests.get(0).getExceptions().get("java.lang.AssertionError"));
+        Assertions.assertEquals(3, tests.get(1).getPassed());
+        Assertions.assertEquals(1, unitTestStatisticService.getFailingTests(slugId, 1).size());
+    }
+
+    @Test
+    @SneakyThrows
+    void concurrentFlushesWriteEveryTestOnce() {
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(unitTestStatisticService::flush),
+                CompletableFuture.runAsync(unitTestStatisticService::flush),
+                CompletableFuture.runAsync(unitTestStatisticService::flush)).get();
+
+        List<String> names = unitTestStatisticRepository.findAll().stream()
+                .filter(statistic -> statistic.getSlugId() == slugId)
+                .map(UnitTestStatistic::getName)
+                .sorted()
+                .collect(Collectors.toList());
+        Assertions.assertEquals(List.of("testA", "testB"), names);
+    }
+}
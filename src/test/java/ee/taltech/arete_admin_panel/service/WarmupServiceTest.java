@@ -0,0 +1,101 @@
+package ee.taltech.arete_admin_panel.service;
+
+import ee.taltech.arete_admin_panel.configuration.CacheProperties;
+import ee.taltech.arete_admin_panel.configuration.WarmupHealthIndicator;
+import ee.taltech.arete_admin_panel.domain.Submission;
+import ee.taltech.arete_admin_panel.repository.SubmissionRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+class WarmupServiceTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    private CacheService cacheService;
+    private SubmissionRepository submissionRepository;
+    private WarmupService service;
+    private WarmupHealthIndicator indicator;
+
+    private static List<Submission> page(long from, long to) {
+        return LongStream.rangeClosed(from, to)
+                .mapToObj(id -> Submission.builder().id(id).gitTestSource("source").build())
+                .collect(Collectors.toList());
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        cacheService = Mockito.mock(CacheService.class);
+        submissionRepository = Mockito.mock(SubmissionRepository.class);
+        SnapshotService snapshotService = Mockito.mock(SnapshotService.class);
+        ClusterService clusterService = Mockito.mock(ClusterService.class);
+        Mockito.when(snapshotService.loadCurrent()).thenReturn(Optional.empty());
+        Mockito.when(clusterService.isOwner(ArgumentMatchers.any())).thenReturn(true);
+        Mockito.when(submissionRepository.findLastAggregatedId()).thenReturn(0L);
+        Mockito.when(submissionRepository.countNotAggregated()).thenReturn(5L);
+
+        CacheProperties properties = new CacheProperties();
+        properties.setWarmupPageSize(PAGE_SIZE);
+        properties.setWarmupRetryDelay(1);
+        properties.setWarmupMaxRetryDelay(2);
+
+        service = new WarmupService(LoggerFactory.getLogger(WarmupServiceTest.class), cacheService,
+                submissionRepository, snapshotService, clusterService, properties);
+        indicator = new WarmupHealthIndicator(service);
+    }
+
+    @Test
+    void notAggregatedSubmissionsAreReplayedInPages() {
+        Mockito.when(submissionRepository.findNotAggregatedAfter(0L, PageRequest.of(0, PAGE_SIZE))).thenReturn(page(1, 3));
+        Mockito.when(submissionRepository.findNotAggregatedAfter(3L, PageRequest.of(0, PAGE_SIZE))).thenReturn(page(4, 5));
+
+        Assertions.assertEquals(Status.OUT_OF_SERVICE, indicator.health().getStatus());
+        service.warmup();
+
+        Assertions.assertTrue(service.isFinished());
+        Assertions.assertEquals(5, service.getReplayed());
+        Assertions.assertEquals(1, service.getAttempts());
+        Mockito.verify(cacheService, Mockito.times(5)).enqueueSubmission(ArgumentMatchers.any());
+        Mockito.verify(submissionRepository, Mockito.times(2)).findNotAggregatedAfter(ArgumentMatchers.anyLong(), ArgumentMatchers.any());
+        Mockito.verify(cacheService).finishReplay();
+        Assertions.assertEquals(Status.UP, indicator.health().getStatus());
+    }
+
+    @Test
+    void failedWarmupIsRetriedFromTheLastPage() {
+        AtomicReference<Status> whileRetrying = new AtomicReference<>();
+        Mockito.when(submissionRepository.findNotAggregatedAfter(0L, PageRequest.of(0, PAGE_SIZE))).thenReturn(page(1, 3));
+        Mockito.when(submissionRepository.findNotAggregatedAfter(3L, PageRequest.of(0, PAGE_SIZE)))
+                .thenThrow(new IllegalStateException("connection lost"))
+                .thenAnswer(invocation -> {
+                    whileRetrying.set(indicator.health().getStatus());
+                    return page(4, 5);
+                });
+
+        service.warmup();
+
+        Assertions.assertEquals(Status.DOWN, whileRetrying.get());
+        Assertions.assertEquals(Status.UP, indicator.health().getStatus());
+        Assertions.assertTrue(service.isFinished());
+        Assertions.assertFalse(service.isFailed());
+        Assertions.assertEquals(2, service.getAttempts());
+        Assertions.assertEquals(5, service.getReplayed());
+        // the snapshot is restored once and the first page is not read again
+        Mockito.verify(cacheService, Mockito.times(1)).preload(ArgumentMatchers.any());
+        Mockito.verify(submissionRepository, Mockito.times(1)).findNotAggregatedAfter(0L, PageRequest.of(0, PAGE_SIZE));
+        Mockito.verify(cacheService, Mockito.times(5)).enqueueSubmission(ArgumentMatchers.any());
+        Mockito.verify(cacheService, Mockito.times(1)).startReplay();
+        Mockito.verify(cacheService, Mockito.times(1)).finishReplay();
+    }
+}